@@ -0,0 +1,118 @@
+/*
+ * Fixtures.java
+ *
+ * Version 1.0.0
+ *
+ * This class builds the entities and in-memory repositories the benchmark
+ * suites run against, so no database is involved in a measurement
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package benchmarks;
+
+import activity.entity.Activity;
+import activity.entity.ActivityGroup;
+import activity.repository.ActivityGroupRepository;
+import activity.repository.ActivityRepository;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+final class Fixtures {
+
+    static final LocalDateTime NOW = LocalDateTime.of(2022, 3, 1, 10, 0);
+
+    private Fixtures() {
+    }
+
+    static List<Activity> todoItems(int size, long activityGroupId) {
+        List<Activity> activities = new ArrayList<>(size);
+        for (long i = 1; i <= size; i++) {
+            activities.add(Activity.builder()
+                    .id(activityGroupId * 100_000 + i)
+                    .activityGroupId(activityGroupId)
+                    .title("todo item " + i)
+                    .isActive(true)
+                    .priority("very-high")
+                    .createdDate(NOW)
+                    .updatedDate(NOW)
+                    .build());
+        }
+        return activities;
+    }
+
+    static List<ActivityGroup> activityGroups(int size) {
+        List<ActivityGroup> activityGroups = new ArrayList<>(size);
+        for (long i = 1; i <= size; i++) {
+            activityGroups.add(ActivityGroup.builder()
+                    .id(i)
+                    .title("activity " + i)
+                    .email("bench@gmail.com")
+                    .createdDate(NOW)
+                    .updatedDate(NOW.plusSeconds(i))
+                    .build());
+        }
+        return activityGroups;
+    }
+
+    /**
+     * Answers the repository reads the services make from the given lists.
+     * Any other repository method throws, so a benchmark cannot silently
+     * measure a call that was never stubbed.
+     */
+    static ActivityRepository activityRepository(List<Activity> activities) {
+        Map<Long, Activity> byId = activities.stream().collect(Collectors.toMap(Activity::getId, Function.identity()));
+        Map<Long, List<Activity>> byGroup = activities.stream().collect(Collectors.groupingBy(Activity::getActivityGroupId));
+
+        return proxy(ActivityRepository.class, (name, args) -> {
+            switch (name) {
+                case "findAll":
+                    return activities;
+                case "findItemById":
+                    return Optional.ofNullable(byId.get((Long) args[0]));
+                case "findTodoItemsByActivityGroupId":
+                    return byGroup.getOrDefault((Long) args[0], new ArrayList<>());
+                case "findTodoItemsByActivityGroupIdIn":
+                    return ((Collection<?>) args[0]).stream()
+                            .flatMap(id -> byGroup.getOrDefault((Long) id, new ArrayList<>()).stream())
+                            .collect(Collectors.toList());
+                default:
+                    throw new UnsupportedOperationException(name);
+            }
+        });
+    }
+
+    static ActivityGroupRepository activityGroupRepository(List<ActivityGroup> activityGroups) {
+        Map<Long, ActivityGroup> byId = activityGroups.stream().collect(Collectors.toMap(ActivityGroup::getId, Function.identity()));
+
+        return proxy(ActivityGroupRepository.class, (name, args) -> {
+            switch (name) {
+                case "findByActivityId":
+                    return Optional.ofNullable(byId.get((Long) args[0]));
+                case "findAllActivity":
+                    return activityGroups.subList(0, Math.min((Integer) args[0], activityGroups.size()));
+                case "findByEmail":
+                    return activityGroups.subList(0, Math.min((Integer) args[1], activityGroups.size()));
+                default:
+                    throw new UnsupportedOperationException(name);
+            }
+        });
+    }
+
+    private interface Handler {
+        Object handle(String name, Object[] args);
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> handler.handle(method.getName(), args)));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * JacksonBenchmark.java
+ *
+ * Version 1.0.0
+ *
+ * This class measures writing response envelopes and reading request
+ * bodies with an ObjectMapper configured the way Spring Boot configures it
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package benchmarks;
+
+import activity.dto.ActivityGroupResponse;
+import activity.dto.GeneralRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class JacksonBenchmark {
+
+    private static final byte[] GENERAL_REQUEST = ("{\"activity_group_id\":1,\"title\":\"todo item\","
+            + "\"is_active\":true,\"priority\":\"very-high\",\"email\":\"bench@gmail.com\"}").getBytes(StandardCharsets.UTF_8);
+
+    private ObjectWriter writer;
+    private ObjectReader generalRequestReader;
+
+    @Setup
+    public void setup() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writer();
+        generalRequestReader = objectMapper.readerFor(GeneralRequest.class);
+    }
+
+    //Only the serialization benchmarks take this state, so only they run once per size
+    @State(Scope.Benchmark)
+    public static class Payload {
+
+        @Param({"1", "100", "10000"})
+        private int size;
+
+        private ActivityGroupResponse todoItemsResponse;
+        private ActivityGroupResponse activityGroupsResponse;
+
+        @Setup
+        public void setup() {
+            todoItemsResponse = ActivityGroupResponse.builder()
+                    .status("Success")
+                    .message("Success")
+                    .data(Fixtures.todoItems(size, 1L))
+                    .build();
+            activityGroupsResponse = ActivityGroupResponse.builder()
+                    .status("Success")
+                    .message("Success")
+                    .data(Fixtures.activityGroups(size))
+                    .build();
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeTodoItems(Payload payload) throws Exception {
+        return writer.writeValueAsBytes(payload.todoItemsResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeActivityGroups(Payload payload) throws Exception {
+        return writer.writeValueAsBytes(payload.activityGroupsResponse);
+    }
+
+    @Benchmark
+    public GeneralRequest deserializeGeneralRequest() throws Exception {
+        return generalRequestReader.readValue(GENERAL_REQUEST);
+    }
+}
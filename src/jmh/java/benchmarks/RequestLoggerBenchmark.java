@@ -0,0 +1,136 @@
+/*
+ * RequestLoggerBenchmark.java
+ *
+ * Version 1.0.0
+ *
+ * This class measures what ControllerRequestResponseLogger adds to a
+ * request writing a list response, with capture off and with capture on
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package benchmarks;
+
+import activity.dto.ActivityGroupResponse;
+import activity.util.ControllerRequestResponseLogger;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RequestLoggerBenchmark {
+
+    @Param({"false", "true"})
+    private boolean capture;
+
+    @Param({"100", "10000"})
+    private int size;
+
+    private ControllerRequestResponseLogger filter;
+    private HttpServlet servlet;
+
+    @Setup
+    public void setup() throws Exception {
+        //Capture needs DEBUG, the log lines themselves go nowhere so only the filter is measured
+        Logger logger = (Logger) LoggerFactory.getLogger(ControllerRequestResponseLogger.class);
+        logger.setLevel(Level.DEBUG);
+        logger.detachAndStopAllAppenders();
+        logger.setAdditive(false);
+
+        filter = new ControllerRequestResponseLogger();
+        ReflectionTestUtils.setField(filter, "enabled", capture);
+        ReflectionTestUtils.setField(filter, "sampleRate", 1.0);
+        ReflectionTestUtils.setField(filter, "maxBodyBytes", 4096);
+        ReflectionTestUtils.setField(filter, "includePaths", new String[0]);
+        ReflectionTestUtils.setField(filter, "excludePaths", new String[0]);
+
+        ObjectWriter writer = Jackson2ObjectMapperBuilder.json().build().writer();
+        byte[] body = writer.writeValueAsBytes(ActivityGroupResponse.builder()
+                .status("Success")
+                .message("Success")
+                .data(Fixtures.todoItems(size, 1L))
+                .build());
+
+        servlet = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                resp.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                resp.getOutputStream().write(body);
+            }
+        };
+    }
+
+    @Benchmark
+    public HttpServletResponse filter() throws Exception {
+        HttpServletResponse response = new DiscardingResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/todo-items"), response, new MockFilterChain(servlet));
+        return response;
+    }
+
+    /**
+     * MockHttpServletResponse copies the body one byte at a time, which would
+     * dwarf the filter, so the body is dropped here instead.
+     */
+    private static class DiscardingResponse extends HttpServletResponseWrapper {
+
+        private final ServletOutputStream outputStream = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+        };
+
+        private DiscardingResponse() {
+            super(new MockHttpServletResponse());
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return outputStream;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * ServiceBenchmark.java
+ *
+ * Version 1.0.0
+ *
+ * This class measures the read paths of ActivityService and
+ * ActivityGroupService against in-memory repositories, so the numbers
+ * cover the service code only and not MySQL
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package benchmarks;
+
+import activity.entity.Activity;
+import activity.entity.ActivityGroup;
+import activity.repository.ActivityGroupRepository;
+import activity.repository.ActivityRepository;
+import activity.services.ActivityGroupService;
+import activity.services.ActivityService;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ServiceBenchmark {
+
+    //Number of activity groups, each holding 10 To-Do Items
+    @Param({"1", "100", "1000"})
+    private int size;
+
+    private ActivityService activityService;
+    private ActivityGroupService activityGroupService;
+
+    @Setup
+    public void setup() {
+        //The services log at INFO on every call, keep the console out of the measurement
+        Logger logger = (Logger) LoggerFactory.getLogger("activity");
+        logger.setLevel(Level.INFO);
+        logger.detachAndStopAllAppenders();
+        logger.setAdditive(false);
+
+        List<ActivityGroup> activityGroups = Fixtures.activityGroups(size);
+        List<Activity> activities = new ArrayList<>();
+        activityGroups.forEach(x -> activities.addAll(Fixtures.todoItems(10, x.getId())));
+
+        ActivityRepository activityRepository = Fixtures.activityRepository(activities);
+        ActivityGroupRepository activityGroupRepository = Fixtures.activityGroupRepository(activityGroups);
+
+        activityService = new ActivityService();
+        ReflectionTestUtils.setField(activityService, "activityRepository", activityRepository);
+
+        activityGroupService = new ActivityGroupService();
+        ReflectionTestUtils.setField(activityGroupService, "activityRepository", activityRepository);
+        ReflectionTestUtils.setField(activityGroupService, "activityGroupRepository", activityGroupRepository);
+        ReflectionTestUtils.setField(activityGroupService, "defaultPageSize", 1000);
+        ReflectionTestUtils.setField(activityGroupService, "maxPageSize", 1000);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> getAllTodoItems() {
+        return activityService.getAllTodoItems(null);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> getAllTodoItemsByGroup() {
+        return activityService.getAllTodoItems(1L);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> getTodoItems() {
+        return activityService.getTodoItems(100_001L);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> getAllActivity() {
+        return activityGroupService.getAllActivity(null, null, null, false, false);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> getAllActivityWithTodoItems() {
+        return activityGroupService.getAllActivity(null, null, null, true, false);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> getActivity() {
+        return activityGroupService.getActivity(1L, true, false);
+    }
+}
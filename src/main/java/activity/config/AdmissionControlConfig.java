@@ -0,0 +1,138 @@
+/*
+ * AdmissionControlConfig.java
+ *
+ * Version 1.0.0
+ *
+ * This class puts the service methods marked @Bulkhead behind one adaptive
+ * concurrency limit per bulkhead, so slow heavy lists cannot take every
+ * connection from the reads and writes. A request over the limit gets 503
+ * with Retry-After at once instead of waiting for a connection. Each
+ * bulkhead reports admission.limit, admission.inflight and
+ * admission.rejected tagged with its name.
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.config;
+
+import activity.util.AdaptiveLimiter;
+import activity.util.OverloadedException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.TransactionException;
+
+import java.lang.reflect.Method;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Configuration
+@ConditionalOnProperty(name = "admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlConfig {
+
+    public static final String LIMIT_METRIC = "admission.limit";
+    public static final String INFLIGHT_METRIC = "admission.inflight";
+    public static final String REJECTED_METRIC = "admission.rejected";
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${admission.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    @Value("${admission.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    @Bean
+    public AdmissionControlAspect admissionControlAspect(ObjectProvider<MeterRegistry> meterRegistry) {
+        Map<Bulkhead.Type, AdaptiveLimiter> limiters = new EnumMap<>(Bulkhead.Type.class);
+
+        for (Bulkhead.Type type : Bulkhead.Type.values()) {
+            String prefix = "admission." + type.getName() + ".";
+            int initialLimit = environment.getProperty(prefix + "initial-limit", Integer.class, 10);
+            AdaptiveLimiter limiter = new AdaptiveLimiter(type.getName(),
+                    initialLimit,
+                    environment.getProperty(prefix + "min-limit", Integer.class, 1),
+                    environment.getProperty(prefix + "max-limit", Integer.class, Math.max(initialLimit, 100)),
+                    environment.getProperty(prefix + "latency-threshold-ms", Long.class, 1000L),
+                    backoffRatio);
+            limiters.put(type, limiter);
+
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (registry != null) {
+                register(registry, limiter);
+            }
+        }
+
+        return new AdmissionControlAspect(limiters, retryAfterSeconds);
+    }
+
+    private static void register(MeterRegistry registry, AdaptiveLimiter limiter) {
+        Gauge.builder(LIMIT_METRIC, limiter, AdaptiveLimiter::getLimit)
+                .description("Requests the bulkhead lets in at once")
+                .tag("bulkhead", limiter.getName())
+                .register(registry);
+        Gauge.builder(INFLIGHT_METRIC, limiter, AdaptiveLimiter::getInflight)
+                .description("Requests running in the bulkhead")
+                .tag("bulkhead", limiter.getName())
+                .register(registry);
+        FunctionCounter.builder(REJECTED_METRIC, limiter, AdaptiveLimiter::getRejected)
+                .description("Requests answered with 503 because the bulkhead was full")
+                .tag("bulkhead", limiter.getName())
+                .register(registry);
+    }
+
+    //Runs outside @Transactional, a rejected request never takes a connection
+    @Aspect
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public static class AdmissionControlAspect {
+
+        private final Map<Bulkhead.Type, AdaptiveLimiter> limiters;
+        private final int retryAfterSeconds;
+
+        public AdmissionControlAspect(Map<Bulkhead.Type, AdaptiveLimiter> limiters, int retryAfterSeconds) {
+            this.limiters = limiters;
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        @Around("@annotation(activity.config.Bulkhead)")
+        public Object admit(ProceedingJoinPoint joinPoint) throws Throwable {
+            Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+            AdaptiveLimiter limiter = limiters.get(AnnotationUtils.findAnnotation(method, Bulkhead.class).value());
+            if (!limiter.tryAcquire()) {
+                throw new OverloadedException(limiter.getName(), retryAfterSeconds);
+            }
+
+            long start = System.nanoTime();
+            boolean failed = false;
+            try {
+                return joinPoint.proceed();
+            } catch (DataAccessException | TransactionException e) {
+                //Pool timeouts, lock waits and dropped connections mean the database is saturated
+                failed = true;
+                throw e;
+            } finally {
+                limiter.release(System.nanoTime() - start, failed);
+            }
+        }
+
+        public AdaptiveLimiter getLimiter(Bulkhead.Type type) {
+            return limiters.get(type);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Bulkhead.java
+ *
+ * Version 1.0.0
+ *
+ * This annotation puts a service method behind the concurrency limit of
+ * one bulkhead, see AdmissionControlConfig
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Bulkhead {
+
+    Type value();
+
+    enum Type {
+        //Lookups of one row or one aggregate
+        READ,
+        //Inserts, updates and deletes
+        WRITE,
+        //Creates parked in the To-Do Item write buffer, they wait for a batch instead of holding a connection
+        BUFFERED_WRITE,
+        //Queries that return a whole group, Email or search page
+        LIST;
+
+        public String getName() {
+            return name().toLowerCase().replace('_', '-');
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * CacheConfig.java
+ *
+ * Version 1.0.0
+ *
+ * This class configures the in-process cache in front of the activity
+ * and To-Do Item lookups by ID
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String ACTIVITY_GROUPS_CACHE = "activityGroups";
+    public static final String TODO_ITEMS_CACHE = "todoItems";
+
+    //Caffeine spec, statistics are always recorded so do not add recordStats here
+    @Value("${cache.spec:maximumSize=10000,expireAfterWrite=60s}")
+    private String spec;
+
+    @Bean
+    public CacheManager cacheManager() {
+        //Caffeine evicts with W-TinyLFU, so hot groups survive a scan of cold ones
+        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager(ACTIVITY_GROUPS_CACHE, TODO_ITEMS_CACHE);
+        caffeineCacheManager.setCaffeine(Caffeine.from(spec).recordStats());
+        caffeineCacheManager.setAllowNullValues(false);
+
+        //Evictions made inside a transaction are applied only after it commits
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
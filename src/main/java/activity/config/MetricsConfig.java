@@ -0,0 +1,71 @@
+/*
+ * MetricsConfig.java
+ *
+ * Version 1.0.0
+ *
+ * This class records the number of SQL statements each request runs as the
+ * db.queries distribution, tagged like http.server.requests
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.config;
+
+import activity.util.QueryCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    public static final String DB_QUERIES_METRIC = "db.queries";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new QueryCountInterceptor(meterRegistry));
+    }
+
+    public static class QueryCountInterceptor implements HandlerInterceptor {
+
+        private final MeterRegistry meterRegistry;
+
+        public QueryCountInterceptor(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            QueryCounter.reset();
+            return true;
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+            //Streamed responses run their queries on another thread and are not counted here
+            Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+            DistributionSummary.builder(DB_QUERIES_METRIC)
+                    .description("SQL statements run per request")
+                    .baseUnit("queries")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri != null ? uri.toString() : "UNKNOWN")
+                    .tag("status", String.valueOf(response.getStatus()))
+                    .register(meterRegistry)
+                    .record(QueryCounter.get());
+
+            QueryCounter.clear();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * ReplicaRead.java
+ *
+ * Version 1.0.0
+ *
+ * This annotation marks service methods whose queries may read a replica
+ * when datasource.replica.urls is set. Lookups that fill a cache still
+ * read the primary, see ReplicaRoutingConfig.
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReplicaRead {
+}
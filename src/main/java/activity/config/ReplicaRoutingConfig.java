@@ -0,0 +1,131 @@
+/*
+ * ReplicaRoutingConfig.java
+ *
+ * Version 1.0.0
+ *
+ * This class splits the reads marked @ReplicaRead over a pool per read
+ * replica when datasource.replica.urls is set, everything else keeps using
+ * spring.datasource. Each pool reports its hikaricp metrics under its own
+ * name and is listed by /datasource-stats.
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.config;
+
+import activity.util.DataSourceRouting;
+import activity.util.ReplicaRoutingDataSource;
+import activity.util.ReplicaRoutingFilter;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.lang3.StringUtils;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConditionalOnExpression("'${datasource.replica.urls:}'.trim().length() > 0")
+public class ReplicaRoutingConfig {
+
+    @Value("${datasource.replica.urls}")
+    private String[] urls;
+
+    @Value("${datasource.replica.username:${spring.datasource.username:}}")
+    private String username;
+
+    @Value("${datasource.replica.password:${spring.datasource.password:}}")
+    private String password;
+
+    @Value("${datasource.replica.maximum-pool-size:10}")
+    private int maximumPoolSize;
+
+    //How long reads of a client stay on the primary after it wrote, should cover the usual replica lag
+    @Value("${datasource.replica.read-your-writes-ms:2000}")
+    private long readYourWritesMs;
+
+    @Bean
+    @Primary
+    public ReplicaRoutingDataSource dataSource(DataSourceProperties properties, Environment environment,
+                                               ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        configure(primary, environment, ReplicaRoutingDataSource.PRIMARY, meterRegistry.getIfAvailable());
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            if (StringUtils.isBlank(url)) {
+                continue;
+            }
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(url.trim())
+                    .username(username)
+                    .password(password)
+                    .build();
+            configure(replica, environment, ReplicaRoutingDataSource.REPLICA + (replicas.size() + 1), meterRegistry.getIfAvailable());
+            replica.setMaximumPoolSize(maximumPoolSize);
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+
+        return new ReplicaRoutingDataSource(primary, replicas);
+    }
+
+    @Bean
+    public ReplicaRoutingFilter replicaRoutingFilter() {
+        return new ReplicaRoutingFilter(readYourWritesMs);
+    }
+
+    @Bean
+    public ReplicaReadAspect replicaReadAspect() {
+        return new ReplicaReadAspect();
+    }
+
+    //spring.datasource.hikari applies to every pool, the name tags its metrics
+    private static void configure(HikariDataSource pool, Environment environment, String name, MeterRegistry meterRegistry) {
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        if (meterRegistry != null) {
+            pool.setMetricRegistry(meterRegistry);
+        }
+    }
+
+    @Aspect
+    public static class ReplicaReadAspect {
+
+        @Around("@annotation(activity.config.ReplicaRead)")
+        public Object replicaRead(ProceedingJoinPoint joinPoint) throws Throwable {
+            DataSourceRouting.enterReplicaRead();
+            try {
+                return joinPoint.proceed();
+            } finally {
+                DataSourceRouting.exitReplicaRead();
+            }
+        }
+
+        //A row cached from a lagging replica would outlive the eviction of the write it missed
+        @Around("@annotation(org.springframework.cache.annotation.Cacheable)")
+        public Object cacheFill(ProceedingJoinPoint joinPoint) throws Throwable {
+            DataSourceRouting.enterPrimaryRead();
+            try {
+                return joinPoint.proceed();
+            } finally {
+                DataSourceRouting.exitPrimaryRead();
+            }
+        }
+    }
+}
@@ -12,11 +12,28 @@
 package activity.controller;
 
 import activity.dto.ActivityGroupResponse;
+import activity.dto.BulkRequest;
 import activity.dto.GeneralRequest;
+import activity.dto.ResourceVersion;
+import activity.dto.TodoItemFilter;
 import activity.services.ActivityGroupService;
 import activity.services.ActivityService;
+import activity.services.IdempotencyService;
+import activity.services.SearchService;
+import activity.services.TodoItemImporter;
+import activity.services.TodoItemStreamer;
+import activity.services.TodoListExporter;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -24,11 +41,22 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static activity.services.IdempotencyService.IDEMPOTENCY_KEY_HEADER;
+
+//The reactive profile serves the same URLs from ReactiveActivityController
 @RestController
 @Slf4j
+@Profile("!reactive")
 public class ActivityController {
 
     @Autowired
@@ -37,10 +65,34 @@ public class ActivityController {
     @Autowired
     private ActivityService activityService;
 
+    @Autowired
+    private TodoItemStreamer todoItemStreamer;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private TodoListExporter todoListExporter;
+
+    @Autowired
+    private TodoItemImporter todoItemImporter;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     public static final String ACTIVITY_GROUP_URL = "/activity-groups";
     public static final String ACTIVITY_GROUP_PARAM_URL = ACTIVITY_GROUP_URL + ("/{id}");
     public static final String TODO_ITEMS_URL = "/todo-items";
     public static final String TODO_ITEMS_PARAM_URL = TODO_ITEMS_URL + ("/{id}");
+    public static final String TODO_ITEMS_BULK_URL = TODO_ITEMS_URL + ("/bulk");
+    public static final String TODO_ITEMS_SEARCH_URL = TODO_ITEMS_URL + ("/search");
+    public static final String TODO_ITEMS_IMPORT_URL = TODO_ITEMS_URL + ("/import");
+    public static final String ACTIVITY_GROUP_SUMMARY_URL = ACTIVITY_GROUP_PARAM_URL + ("/summary");
+    public static final String ACTIVITY_GROUP_SEARCH_URL = ACTIVITY_GROUP_URL + ("/search");
+    public static final String ACTIVITY_GROUP_EXPORT_URL = ACTIVITY_GROUP_URL + ("/export");
+    public static final String XLSX_CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    public static final String INCLUDE_TODO_ITEMS = "todo_items";
+    public static final String INCLUDE_SUMMARY = "summary";
 
 
     /**
@@ -49,18 +101,50 @@ public class ActivityController {
      *
      */
     @GetMapping(ACTIVITY_GROUP_URL)
-    public ResponseEntity<ActivityGroupResponse> getAllActivityByEmail(@RequestParam(required = false) String email) {
-        return activityGroupService.getAllActivity(email);
+    public ResponseEntity<ActivityGroupResponse> getAllActivityByEmail(@RequestParam(required = false) String email,
+                                                                       @RequestParam(required = false) String cursor,
+                                                                       @RequestParam(required = false) Integer limit,
+                                                                       @RequestParam(required = false) String include,
+                                                                       WebRequest webRequest) {
+        boolean includeTodoItems = isIncluded(include, INCLUDE_TODO_ITEMS);
+        boolean includeSummary = isIncluded(include, INCLUDE_SUMMARY);
+        boolean conditional = isConditional(webRequest);
+        //The summary is counted from the To-Do Items, so it changes exactly when they do
+        if (conditional && isNotModified(webRequest, activityGroupService.getAllActivityVersion(email, includeTodoItems || includeSummary))) {
+            return null;
+        }
+
+        ResponseEntity<ActivityGroupResponse> response = activityGroupService.getAllActivity(email, cursor, limit, includeTodoItems, includeSummary);
+        //A single complete page is the whole versioned list, its ETag comes from the rows instead of another query
+        if (!conditional && !includeSummary && cursor == null && isOk(response) && response.getBody().getNextCursor() == null) {
+            isNotModified(webRequest, ActivityGroupService.versionOf(dataOf(response), includeTodoItems));
+        }
+        return response;
     }
 
+    //todo_items is embedded by default here, as it always was, include=none leaves it out
     @GetMapping(ACTIVITY_GROUP_PARAM_URL)
-    public ResponseEntity<ActivityGroupResponse> getActivityById(@PathVariable Long id) {
-        return activityGroupService.getActivity(id);
+    public ResponseEntity<ActivityGroupResponse> getActivityById(@PathVariable Long id,
+                                                                 @RequestParam(defaultValue = INCLUDE_TODO_ITEMS) String include,
+                                                                 WebRequest webRequest) {
+        boolean includeTodoItems = isIncluded(include, INCLUDE_TODO_ITEMS);
+        boolean includeSummary = isIncluded(include, INCLUDE_SUMMARY);
+        if (isNotModified(webRequest, activityGroupService.getActivityVersion(id, includeTodoItems || includeSummary))) {
+            return null;
+        }
+        return activityGroupService.getActivity(id, includeTodoItems, includeSummary);
+    }
+
+    //Counts of the To-Do Items of one activity, read from counters kept by every write
+    @GetMapping(ACTIVITY_GROUP_SUMMARY_URL)
+    public ResponseEntity<ActivityGroupResponse> getActivitySummary(@PathVariable Long id) {
+        return activityGroupService.getSummary(id);
     }
 
     @PostMapping(ACTIVITY_GROUP_URL)
-    public ResponseEntity<ActivityGroupResponse> createActivity(@RequestBody GeneralRequest request) {
-        return activityGroupService.createActivity(request);
+    public ResponseEntity<ActivityGroupResponse> createActivity(@RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                                                @RequestBody GeneralRequest request) {
+        return idempotencyService.execute(idempotencyKey, ACTIVITY_GROUP_URL, request, () -> activityGroupService.createActivity(request));
     }
 
     @PatchMapping(ACTIVITY_GROUP_PARAM_URL)
@@ -78,19 +162,61 @@ public class ActivityController {
      * API for TO-DO CRUD
      *
      */
+    //Any filter, sort or limit switches to the filtered query, which needs activity_group_id
     @GetMapping(TODO_ITEMS_URL)
-    public ResponseEntity<ActivityGroupResponse> getAllTodoItems(@RequestParam(required = false) Long activity_group_id) {
-        return activityService.getAllTodoItems(activity_group_id);
+    public ResponseEntity<ActivityGroupResponse> getAllTodoItems(@RequestParam(required = false) Long activity_group_id,
+                                                                 @RequestParam(required = false) Boolean is_active,
+                                                                 @RequestParam(required = false) String priority,
+                                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime created_from,
+                                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime created_to,
+                                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updated_from,
+                                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updated_to,
+                                                                 @RequestParam(required = false) String sort,
+                                                                 @RequestParam(required = false) Integer limit,
+                                                                 WebRequest webRequest) {
+        if (ObjectUtils.anyNotNull(is_active, priority, created_from, created_to, updated_from, updated_to, sort, limit)) {
+            return activityService.getFilteredTodoItems(TodoItemFilter.builder()
+                    .activityGroupId(activity_group_id)
+                    .isActive(is_active)
+                    .priority(priority)
+                    .createdFrom(created_from)
+                    .createdTo(created_to)
+                    .updatedFrom(updated_from)
+                    .updatedTo(updated_to)
+                    .build(), sort, limit);
+        }
+
+        boolean conditional = isConditional(webRequest);
+        if (conditional && isNotModified(webRequest, activityService.getAllTodoItemsVersion(activity_group_id))) {
+            return null;
+        }
+
+        ResponseEntity<ActivityGroupResponse> response = activityService.getAllTodoItems(activity_group_id);
+        if (!conditional && isOk(response)) {
+            isNotModified(webRequest, ActivityService.versionOf(dataOf(response)));
+        }
+        return response;
+    }
+
+    @GetMapping(value = TODO_ITEMS_URL, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllTodoItems(@RequestParam(required = false) Long activity_group_id) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(outputStream -> todoItemStreamer.stream(activity_group_id, outputStream));
     }
 
     @GetMapping(TODO_ITEMS_PARAM_URL)
-    public ResponseEntity<ActivityGroupResponse> getTodoItemsById(@PathVariable Long id) {
+    public ResponseEntity<ActivityGroupResponse> getTodoItemsById(@PathVariable Long id, WebRequest webRequest) {
+        if (isNotModified(webRequest, activityService.getTodoItemsVersion(id))) {
+            return null;
+        }
         return activityService.getTodoItems(id);
     }
 
     @PostMapping(TODO_ITEMS_URL)
-    public ResponseEntity<ActivityGroupResponse> createTodoItems(@RequestBody GeneralRequest request) {
-        return activityService.createTodoItems(request);
+    public ResponseEntity<ActivityGroupResponse> createTodoItems(@RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                                                 @RequestBody GeneralRequest request) {
+        return idempotencyService.execute(idempotencyKey, TODO_ITEMS_URL, request, () -> activityService.createTodoItems(request));
     }
 
     @DeleteMapping(TODO_ITEMS_PARAM_URL)
@@ -102,4 +228,94 @@ public class ActivityController {
     public ResponseEntity<ActivityGroupResponse> updateTodoItem(@PathVariable Long id, @RequestBody GeneralRequest request) {
         return activityService.updateTodoItems(request, id);
     }
+
+    /**
+     *
+     * API for title search, ranked by relevance
+     *
+     */
+    @GetMapping(ACTIVITY_GROUP_SEARCH_URL)
+    public ResponseEntity<ActivityGroupResponse> searchActivityGroups(@RequestParam(required = false) String q,
+                                                                      @RequestParam(required = false) String email,
+                                                                      @RequestParam(required = false) String cursor,
+                                                                      @RequestParam(required = false) Integer limit) {
+        return searchService.searchActivityGroups(q, email, cursor, limit);
+    }
+
+    @GetMapping(TODO_ITEMS_SEARCH_URL)
+    public ResponseEntity<ActivityGroupResponse> searchTodoItems(@RequestParam(required = false) String q,
+                                                                 @RequestParam(required = false) Long activity_group_id,
+                                                                 @RequestParam(required = false) String email,
+                                                                 @RequestParam(required = false) String cursor,
+                                                                 @RequestParam(required = false) Integer limit) {
+        return searchService.searchTodoItems(q, activity_group_id, email, cursor, limit);
+    }
+
+    /**
+     *
+     * API for spreadsheet export and import
+     *
+     */
+    @GetMapping(ACTIVITY_GROUP_EXPORT_URL)
+    public ResponseEntity<StreamingResponseBody> exportActivityGroups(@RequestParam(required = false) String email) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(XLSX_CONTENT_TYPE))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("todo-list.xlsx").build().toString())
+                .body(outputStream -> todoListExporter.export(email, outputStream));
+    }
+
+    //Multipart upload of an .xlsx or .csv file, the same columns as the export
+    @PostMapping(value = TODO_ITEMS_IMPORT_URL, consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ActivityGroupResponse> importTodoItems(@RequestParam(required = false) MultipartFile file,
+                                                                 @RequestParam(required = false) Long activity_group_id) {
+        return todoItemImporter.importTodoItems(file, activity_group_id);
+    }
+
+    /**
+     *
+     * API for bulk TO-DO operations
+     *
+     */
+    @PostMapping(TODO_ITEMS_BULK_URL)
+    public ResponseEntity<ActivityGroupResponse> createTodoItemsBulk(@RequestBody BulkRequest request) {
+        return activityService.createTodoItemsBulk(request);
+    }
+
+    @PatchMapping(TODO_ITEMS_BULK_URL)
+    public ResponseEntity<ActivityGroupResponse> updateTodoItemsBulk(@RequestBody BulkRequest request) {
+        return activityService.updateTodoItemsBulk(request);
+    }
+
+    @DeleteMapping(TODO_ITEMS_BULK_URL)
+    public ResponseEntity<ActivityGroupResponse> deleteTodoItemsBulk(@RequestParam List<Long> ids) {
+        return activityService.deleteTodoItemsBulk(ids);
+    }
+
+    /**
+     * Sets ETag and Last-Modified and answers 304 when the client copy is current.
+     * A null version (resource not found) falls through to the normal 404.
+     */
+    private static boolean isNotModified(WebRequest webRequest, ResourceVersion version) {
+        return version != null && webRequest.checkNotModified(version.getEtag(), version.getLastModified());
+    }
+
+    //List versions are aggregate queries, they only run when the client has a copy to validate
+    private static boolean isConditional(WebRequest webRequest) {
+        return webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null || webRequest.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    private static boolean isOk(ResponseEntity<ActivityGroupResponse> response) {
+        return response != null && response.getStatusCode() == HttpStatus.OK && response.getBody() != null
+                && response.getBody().getData() instanceof List;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> dataOf(ResponseEntity<ActivityGroupResponse> response) {
+        return (List<T>) response.getBody().getData();
+    }
+
+    //include is a comma separated list, e.g. include=todo_items
+    static boolean isIncluded(String include, String name) {
+        return ArrayUtils.contains(StringUtils.split(include, ','), name);
+    }
 }
@@ -0,0 +1,36 @@
+/*
+ * AdmissionControlAdvice.java
+ *
+ * Version 1.0.0
+ *
+ * This class answers requests refused by a full bulkhead with 503 and a
+ * Retry-After header, see AdmissionControlConfig
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.controller;
+
+import activity.dto.ActivityGroupResponse;
+import activity.util.OverloadedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+public class AdmissionControlAdvice {
+
+    public static final String SERVICE_UNAVAILABLE_STATUS = "Service Unavailable";
+
+    @ExceptionHandler(OverloadedException.class)
+    public ResponseEntity<ActivityGroupResponse> overloaded(OverloadedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(ActivityGroupResponse.builder()
+                        .status(SERVICE_UNAVAILABLE_STATUS)
+                        .message(e.getMessage())
+                        .build());
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * CacheStatsController.java
+ *
+ * Version 1.0.0
+ *
+ * This class exposes hit, miss and eviction statistics of the in-process caches
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.controller;
+
+import activity.dto.ActivityGroupResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static activity.services.ActivityGroupService.SUCCESS;
+
+@RestController
+public class CacheStatsController {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    public static final String CACHE_STATS_URL = "/cache-stats";
+
+    @GetMapping(CACHE_STATS_URL)
+    public ResponseEntity<ActivityGroupResponse> getCacheStats() {
+        Map<String, Map<String, Object>> caches = new LinkedHashMap<>();
+
+        for (String name : cacheManager.getCacheNames()) {
+            Cache<?, ?> nativeCache = (Cache<?, ?>) cacheManager.getCache(name).getNativeCache();
+            CacheStats stats = nativeCache.stats();
+
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("size", nativeCache.estimatedSize());
+            values.put("hit_count", stats.hitCount());
+            values.put("miss_count", stats.missCount());
+            values.put("hit_rate", stats.hitRate());
+            values.put("eviction_count", stats.evictionCount());
+            caches.put(name, values);
+        }
+
+        return new ResponseEntity<>(ActivityGroupResponse.builder()
+                .status(SUCCESS)
+                .message(SUCCESS)
+                .data(caches)
+                .build(), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * DataSourceStatsController.java
+ *
+ * Version 1.0.0
+ *
+ * This class exposes the connection counts of every database pool, the
+ * primary and each read replica
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.controller;
+
+import activity.dto.ActivityGroupResponse;
+import activity.util.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static activity.services.ActivityGroupService.SUCCESS;
+
+@RestController
+public class DataSourceStatsController {
+
+    @Autowired
+    private DataSource dataSource;
+
+    public static final String DATASOURCE_STATS_URL = "/datasource-stats";
+
+    @GetMapping(DATASOURCE_STATS_URL)
+    public ResponseEntity<ActivityGroupResponse> getDataSourceStats() throws SQLException {
+        Map<String, Map<String, Object>> pools = new LinkedHashMap<>();
+
+        if (dataSource instanceof ReplicaRoutingDataSource) {
+            ((ReplicaRoutingDataSource) dataSource).getPools().forEach((name, pool) -> pools.put(name, stats(pool)));
+        } else if (dataSource.isWrapperFor(HikariDataSource.class)) {
+            HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+            pools.put(pool.getPoolName(), stats(pool));
+        }
+
+        return new ResponseEntity<>(ActivityGroupResponse.builder()
+                .status(SUCCESS)
+                .message(SUCCESS)
+                .data(pools)
+                .build(), HttpStatus.OK);
+    }
+
+    private static Map<String, Object> stats(HikariDataSource pool) {
+        //The pool starts with its first connection, until then it has none
+        HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("read_only", pool.isReadOnly());
+        values.put("maximum_pool_size", pool.getMaximumPoolSize());
+        values.put("active", bean != null ? bean.getActiveConnections() : 0);
+        values.put("idle", bean != null ? bean.getIdleConnections() : 0);
+        values.put("total", bean != null ? bean.getTotalConnections() : 0);
+        values.put("threads_awaiting", bean != null ? bean.getThreadsAwaitingConnection() : 0);
+        return values;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * ReactiveActivityController.java
+ *
+ * Version 1.0.0
+ *
+ * This class is the controller (API) for to-do list application on the
+ * reactive profile. It serves the URLs of ActivityController without
+ * holding a thread per request, and streams the list endpoints.
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.controller;
+
+import activity.dto.ActivityGroupResponse;
+import activity.dto.GeneralRequest;
+import activity.entity.Activity;
+import activity.entity.ActivityGroup;
+import activity.services.ReactiveActivityGroupService;
+import activity.services.ReactiveActivityService;
+import activity.util.JsonEnvelopeStream;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static activity.controller.ActivityController.ACTIVITY_GROUP_PARAM_URL;
+import static activity.controller.ActivityController.ACTIVITY_GROUP_URL;
+import static activity.controller.ActivityController.INCLUDE_TODO_ITEMS;
+import static activity.controller.ActivityController.TODO_ITEMS_PARAM_URL;
+import static activity.controller.ActivityController.TODO_ITEMS_URL;
+import static activity.controller.ActivityController.isIncluded;
+import static activity.services.ActivityService.SUCCESS;
+
+@RestController
+@Slf4j
+@Profile("reactive")
+public class ReactiveActivityController {
+
+    @Autowired
+    private ReactiveActivityGroupService reactiveActivityGroupService;
+
+    @Autowired
+    private ReactiveActivityService reactiveActivityService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     *
+     * API for Activity CRUD
+     *
+     */
+    @GetMapping(ACTIVITY_GROUP_URL)
+    public ResponseEntity<Flux<DataBuffer>> getAllActivityByEmail(@RequestParam(required = false) String email,
+                                                                  @RequestParam(required = false) String include,
+                                                                  ServerHttpResponse response) {
+        Flux<ActivityGroup> activityGroups = reactiveActivityGroupService.findActivityGroups(email, isIncluded(include, INCLUDE_TODO_ITEMS));
+        return envelope(activityGroups, response);
+    }
+
+    @GetMapping(value = ACTIVITY_GROUP_URL, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ActivityGroup> streamAllActivityByEmail(@RequestParam(required = false) String email,
+                                                        @RequestParam(required = false) String include) {
+        return reactiveActivityGroupService.findActivityGroups(email, isIncluded(include, INCLUDE_TODO_ITEMS));
+    }
+
+    @GetMapping(ACTIVITY_GROUP_PARAM_URL)
+    public Mono<ResponseEntity<ActivityGroupResponse>> getActivityById(@PathVariable Long id,
+                                                                       @RequestParam(defaultValue = INCLUDE_TODO_ITEMS) String include) {
+        return reactiveActivityGroupService.getActivity(id, isIncluded(include, INCLUDE_TODO_ITEMS));
+    }
+
+    @PostMapping(ACTIVITY_GROUP_URL)
+    public Mono<ResponseEntity<ActivityGroupResponse>> createActivity(@RequestBody GeneralRequest request) {
+        return reactiveActivityGroupService.createActivity(request);
+    }
+
+    @PatchMapping(ACTIVITY_GROUP_PARAM_URL)
+    public Mono<ResponseEntity<ActivityGroupResponse>> updateActivity(@PathVariable Long id,
+                                                                      @RequestBody(required = false) GeneralRequest request) {
+        return reactiveActivityGroupService.updateActivity(request, id);
+    }
+
+    @DeleteMapping(ACTIVITY_GROUP_PARAM_URL)
+    public Mono<ResponseEntity<ActivityGroupResponse>> deleteActivity(@PathVariable Long id) {
+        return reactiveActivityGroupService.deleteActivity(id);
+    }
+
+    /**
+     *
+     * API for TO-DO CRUD
+     *
+     */
+    @GetMapping(TODO_ITEMS_URL)
+    public ResponseEntity<Flux<DataBuffer>> getAllTodoItems(@RequestParam(required = false) Long activity_group_id,
+                                                            ServerHttpResponse response) {
+        return envelope(reactiveActivityService.findTodoItems(activity_group_id), response);
+    }
+
+    @GetMapping(value = TODO_ITEMS_URL, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Activity> streamAllTodoItems(@RequestParam(required = false) Long activity_group_id) {
+        return reactiveActivityService.findTodoItems(activity_group_id);
+    }
+
+    @GetMapping(TODO_ITEMS_PARAM_URL)
+    public Mono<ResponseEntity<ActivityGroupResponse>> getTodoItemsById(@PathVariable Long id) {
+        return reactiveActivityService.getTodoItems(id);
+    }
+
+    @PostMapping(TODO_ITEMS_URL)
+    public Mono<ResponseEntity<ActivityGroupResponse>> createTodoItems(@RequestBody GeneralRequest request) {
+        return reactiveActivityService.createTodoItems(request);
+    }
+
+    @DeleteMapping(TODO_ITEMS_PARAM_URL)
+    public Mono<ResponseEntity<ActivityGroupResponse>> deleteTodoItems(@PathVariable Long id) {
+        return reactiveActivityService.deleteTodoItems(id);
+    }
+
+    @PatchMapping(TODO_ITEMS_PARAM_URL)
+    public Mono<ResponseEntity<ActivityGroupResponse>> updateTodoItem(@PathVariable Long id, @RequestBody GeneralRequest request) {
+        return reactiveActivityService.updateTodoItems(request, id);
+    }
+
+    //Same body as the servlet list endpoints, written row by row as the database returns them
+    private ResponseEntity<Flux<DataBuffer>> envelope(Flux<?> rows, ServerHttpResponse response) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(JsonEnvelopeStream.of(SUCCESS, SUCCESS, rows, objectMapper, response.bufferFactory()));
+    }
+}
@@ -10,6 +10,8 @@
 
 package activity.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -27,4 +29,9 @@ public class ActivityGroupResponse extends StatusResponse implements Serializabl
 
     private static final long serialVersionUID = -5708989144475961535L;
     private Object data;
+
+    //Only set on paged list responses when another page exists
+    @JsonProperty("next_cursor")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
 }
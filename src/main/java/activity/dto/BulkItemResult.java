@@ -0,0 +1,39 @@
+/*
+ * BulkItemResult.java
+ *
+ * Version 1.0.0
+ *
+ * This class contains the result of one item in a bulk request
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResult implements Serializable {
+
+    private static final long serialVersionUID = -2318530617785804357L;
+
+    private Integer index;
+
+    private Long id;
+
+    private String status;
+
+    private String message;
+
+    private Object data;
+}
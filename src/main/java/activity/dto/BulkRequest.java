@@ -0,0 +1,41 @@
+/*
+ * BulkRequest.java
+ *
+ * Version 1.0.0
+ *
+ * This class contains mapping for the bulk To-Do Items API
+ * ids is used by bulk update, items is used by bulk create
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkRequest implements Serializable {
+
+    private static final long serialVersionUID = 3386414567917512694L;
+
+    private List<Long> ids;
+
+    private List<GeneralRequest> items;
+
+    @JsonProperty("is_active")
+    private Boolean isActive;
+
+    private String priority;
+
+    private String title;
+}
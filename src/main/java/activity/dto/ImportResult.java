@@ -0,0 +1,44 @@
+/*
+ * ImportResult.java
+ *
+ * Version 1.0.0
+ *
+ * This class contains the outcome of a To-Do Item import, errors holds
+ * one entry per rejected row with index set to its row number
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportResult implements Serializable {
+
+    private static final long serialVersionUID = 5120946813257468921L;
+
+    private long rows;
+
+    private long imported;
+
+    private long failed;
+
+    @JsonProperty("elapsed_ms")
+    private long elapsedMs;
+
+    @JsonProperty("rows_per_second")
+    private double rowsPerSecond;
+
+    private List<BulkItemResult> errors;
+}
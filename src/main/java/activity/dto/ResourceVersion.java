@@ -0,0 +1,77 @@
+/*
+ * ResourceVersion.java
+ *
+ * Version 1.0.0
+ *
+ * This class contains the validators (ETag and Last-Modified) of a resource
+ * or a list, built from updated_date and ids without loading the payload
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.dto;
+
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.function.Function;
+
+@Getter
+public class ResourceVersion {
+
+    private final String tag;
+
+    private final long lastModified;
+
+    private ResourceVersion(String tag, long lastModified) {
+        this.tag = tag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Version of a list. Used by the JPQL aggregate queries, the row count
+     * and the sum of ids change on every insert and delete, MAX(updated_date)
+     * on every update. A delete leaves MAX(updated_date) where it was, so a
+     * list has no Last-Modified and is only validated by its ETag.
+     */
+    public ResourceVersion(Long count, LocalDateTime lastModified, Long idSum) {
+        this(StringUtils.join(count, ".", idSum != null ? idSum : 0, ".", toMillis(lastModified)), -1);
+    }
+
+    //Version of a list already loaded, the same the aggregate query returns for these rows
+    public static <T> ResourceVersion of(Collection<T> rows, Function<T, Long> id, Function<T, LocalDateTime> updatedDate) {
+        long idSum = 0;
+        LocalDateTime lastModified = null;
+        for (T row : rows) {
+            idSum += id.apply(row);
+            LocalDateTime rowUpdatedDate = updatedDate.apply(row);
+            if (rowUpdatedDate != null && (lastModified == null || rowUpdatedDate.isAfter(lastModified))) {
+                lastModified = rowUpdatedDate;
+            }
+        }
+        return new ResourceVersion((long) rows.size(), lastModified, idSum);
+    }
+
+    //Version of a single row
+    public static ResourceVersion of(Long id, LocalDateTime updatedDate) {
+        return new ResourceVersion(StringUtils.join(id, ".", toMillis(updatedDate)), toMillis(updatedDate));
+    }
+
+    //A row with its list has no Last-Modified either, see the list constructor
+    public ResourceVersion and(ResourceVersion other) {
+        return new ResourceVersion(tag + "-" + other.tag,
+                lastModified >= 0 && other.lastModified >= 0 ? Math.max(lastModified, other.lastModified) : -1);
+    }
+
+    //Weak, the JSON body is equivalent for the same version but not byte-for-byte guaranteed
+    public String getEtag() {
+        return "W/\"" + tag + "\"";
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * TodoItemFilter.java
+ *
+ * Version 1.0.0
+ *
+ * This class contains the filters, sort and limit of a filtered To-Do Item
+ * list. Ranges include their from and exclude their to
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TodoItemFilter {
+
+    private Long activityGroupId;
+
+    private Boolean isActive;
+
+    private String priority;
+
+    private LocalDateTime createdFrom;
+
+    private LocalDateTime createdTo;
+
+    private LocalDateTime updatedFrom;
+
+    private LocalDateTime updatedTo;
+
+    //Column and direction, e.g. updated_date DESC
+    private String sortColumn;
+
+    private boolean descending;
+
+    private int limit;
+}
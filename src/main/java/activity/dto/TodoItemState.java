@@ -0,0 +1,26 @@
+/*
+ * TodoItemState.java
+ *
+ * Version 1.0.0
+ *
+ * This class contains the columns of a To-Do Item the per-group counters
+ * depend on, read before the item is changed
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class TodoItemState {
+
+    private final Long activityGroupId;
+
+    private final String priority;
+
+    private final Boolean isActive;
+}
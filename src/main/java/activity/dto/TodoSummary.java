@@ -0,0 +1,39 @@
+/*
+ * TodoSummary.java
+ *
+ * Version 1.0.0
+ *
+ * This class contains the To-Do Item counts of one activity Group
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Map;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TodoSummary implements Serializable {
+
+    private static final long serialVersionUID = 2745503375437127010L;
+
+    @JsonProperty("activity_group_id")
+    private Long activityGroupId;
+
+    private long total;
+
+    private long active;
+
+    //Count per priority, To-Do Items without one are only in total and active
+    private Map<String, Long> priorities;
+}
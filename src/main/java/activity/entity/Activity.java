@@ -22,11 +22,18 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
+import javax.persistence.TableGenerator;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "todos")
+@Table(name = "todos", indexes = {
+        @Index(name = "idx_todos_group_updated", columnList = "ACTIVITY_GROUP_ID, UPDATED_DATE"),
+        @Index(name = "idx_todos_group_active_priority_updated", columnList = "ACTIVITY_GROUP_ID, IS_ACTIVE, PRIORITY, UPDATED_DATE"),
+        @Index(name = "idx_todos_group_active_updated", columnList = "ACTIVITY_GROUP_ID, IS_ACTIVE, UPDATED_DATE"),
+        @Index(name = "idx_todos_group_priority_updated", columnList = "ACTIVITY_GROUP_ID, PRIORITY, UPDATED_DATE")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
@@ -34,8 +41,11 @@ import java.time.LocalDateTime;
 @JsonInclude(JsonInclude.Include.NON_EMPTY)
 public class Activity {
 
+    //Ids are handed out in blocks from the id_blocks table so inserts can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "todos_id")
+    @TableGenerator(name = "todos_id", table = "id_blocks", pkColumnName = "SEQUENCE_NAME",
+            valueColumnName = "NEXT_VAL", pkColumnValue = "todos", allocationSize = 100)
     @Column(name = "ID", length = 3, nullable = false)
     private Long id;
 
@@ -10,6 +10,7 @@
 
 package activity.entity;
 
+import activity.dto.TodoSummary;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
@@ -24,7 +25,10 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "activities")
+@Table(name = "activities", indexes = {
+        @Index(name = "idx_activities_email_updated", columnList = "EMAIL, UPDATED_DATE, ID"),
+        @Index(name = "idx_activities_updated", columnList = "UPDATED_DATE, ID")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
@@ -52,8 +56,13 @@ public class ActivityGroup {
     @Column(name = "EMAIL", length = 200)
     private String email;
 
+    //No foreign key, the To-Do Items of a deleted group are purged after it (see TodoItemPurger)
     @OneToMany(fetch = FetchType.LAZY)
-    @JoinColumn(name = "ACTIVITY_GROUP_ID")
+    @JoinColumn(name = "ACTIVITY_GROUP_ID", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     @JsonProperty("todo_items")
     private List<Activity> todoItems;
+
+    //Only set on responses that ask for include=summary
+    @Transient
+    private TodoSummary summary;
 }
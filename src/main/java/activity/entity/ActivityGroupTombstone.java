@@ -0,0 +1,45 @@
+/*
+ * ActivityGroupTombstone.java
+ *
+ * Version 1.0.0
+ *
+ * This class is the entity mapping for activity_group_tombstones table, one
+ * row per deleted activity Group whose To-Do Items are not purged yet
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.entity;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "activity_group_tombstones", indexes = {
+        @Index(name = "idx_activity_group_tombstones_deleted", columnList = "DELETED_DATE")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Data
+public class ActivityGroupTombstone {
+
+    @Id
+    @Column(name = "ACTIVITY_GROUP_ID", nullable = false)
+    @JsonProperty("activity_group_id")
+    private Long activityGroupId;
+
+    @Column(name = "DELETED_DATE", nullable = false)
+    @JsonProperty("deleted_at")
+    private LocalDateTime deletedDate;
+}
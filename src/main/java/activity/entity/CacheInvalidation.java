@@ -0,0 +1,52 @@
+/*
+ * CacheInvalidation.java
+ *
+ * Version 1.0.0
+ *
+ * This class is the entity mapping for cache_invalidations table
+ * Every node tails this table to evict entries changed on other nodes
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "cache_invalidations")
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Data
+public class CacheInvalidation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ID", nullable = false)
+    private Long id;
+
+    @Column(name = "CACHE_NAME", length = 64, nullable = false)
+    private String cacheName;
+
+    //Null means every entry of the cache
+    @Column(name = "CACHE_KEY")
+    private Long cacheKey;
+
+    @Column(name = "NODE_ID", length = 36, nullable = false)
+    private String nodeId;
+
+    @Column(name = "CREATED_DATE", nullable = false)
+    private LocalDateTime createdDate;
+}
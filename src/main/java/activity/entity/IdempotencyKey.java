@@ -0,0 +1,72 @@
+/*
+ * IdempotencyKey.java
+ *
+ * Version 1.0.0
+ *
+ * This class maps one Idempotency-Key of a create endpoint to the
+ * response it was first answered with
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_created", columnList = "CREATED_DATE")
+})
+@IdClass(IdempotencyKey.Key.class)
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Data
+public class IdempotencyKey {
+
+    @Id
+    @Column(name = "ENDPOINT", length = 64, nullable = false)
+    private String endpoint;
+
+    @Id
+    @Column(name = "IDEMPOTENCY_KEY", length = 255, nullable = false)
+    private String idempotencyKey;
+
+    @Column(name = "REQUEST_HASH", length = 64, nullable = false)
+    private String requestHash;
+
+    //Null while the first request is still running
+    @Column(name = "STATUS_CODE")
+    private Integer statusCode;
+
+    @Lob
+    @Column(name = "RESPONSE_BODY")
+    private String responseBody;
+
+    @Column(name = "CREATED_DATE", nullable = false)
+    private LocalDateTime createdDate;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = -1795316620984437021L;
+
+        private String endpoint;
+        private String idempotencyKey;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * TodoCounter.java
+ *
+ * Version 1.0.0
+ *
+ * This class is the entity mapping for todo_counters table, the number of
+ * To-Do Items and active To-Do Items of one activity Group and priority
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import java.io.Serializable;
+
+@Entity
+@Table(name = "todo_counters")
+@IdClass(TodoCounter.Key.class)
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Data
+public class TodoCounter {
+
+    @Id
+    @Column(name = "ACTIVITY_GROUP_ID", nullable = false)
+    private Long activityGroupId;
+
+    //To-Do Items without a priority are counted under an empty one
+    @Id
+    @Column(name = "PRIORITY", length = 20, nullable = false)
+    private String priority;
+
+    @Column(name = "TOTAL", nullable = false)
+    private long total;
+
+    @Column(name = "ACTIVE", nullable = false)
+    private long active;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 4386061250281795735L;
+
+        private Long activityGroupId;
+        private String priority;
+    }
+}
@@ -8,23 +8,95 @@
 
 package activity.repository;
 
+import activity.dto.ResourceVersion;
 import activity.entity.ActivityGroup;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static activity.config.CacheConfig.ACTIVITY_GROUPS_CACHE;
+import static activity.repository.ActivityRepository.STREAM_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface ActivityGroupRepository extends JpaRepository<ActivityGroup, Long> {
-    //Query to get only one activity by ID
+    //Query to get only one activity by ID, read through the activity cache
+    @Cacheable(cacheNames = ACTIVITY_GROUPS_CACHE, key = "#id", unless = "#result == null")
+    @Query(value = "SELECT * FROM activities WHERE id = :id", nativeQuery = true)
+    Optional<ActivityGroup> findByActivityId(@Param("id") Long id);
+
+    //Query to read one activity past the cache, an update evicts its entry only when it commits
     @Query(value = "SELECT * FROM activities WHERE id = :id", nativeQuery = true)
-    ActivityGroup findByActivityId(@Param("id") Long id);
+    Optional<ActivityGroup> findCurrentByActivityId(@Param("id") Long id);
+
+    //Query to update only the title of one activity, returns the matched row count
+    @CacheEvict(cacheNames = ACTIVITY_GROUPS_CACHE, key = "#id")
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE activities SET title = :title, updated_date = :now WHERE id = :id", nativeQuery = true)
+    int updateTitle(@Param("id") Long id, @Param("title") String title, @Param("now") LocalDateTime now);
+
+    //Query to delete one activity, returns the deleted row count
+    @CacheEvict(cacheNames = ACTIVITY_GROUPS_CACHE, key = "#id")
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM activities WHERE id = :id", nativeQuery = true)
+    int deleteActivityById(@Param("id") Long id);
+
+    //Query to get the first page of activities by Email
+    @Query(value = "SELECT * FROM activities WHERE email = :email ORDER BY updated_date, id LIMIT :limit", nativeQuery = true)
+    List<ActivityGroup> findByEmail(@Param("email") String email, @Param("limit") int limit);
+
+    //Query to get the page of activities by Email after the (updated_date, id) cursor
+    @Query(value = "SELECT * FROM activities WHERE email = :email " +
+            "AND (updated_date > :updatedDate OR (updated_date = :updatedDate AND id > :id)) " +
+            "ORDER BY updated_date, id LIMIT :limit", nativeQuery = true)
+    List<ActivityGroup> findByEmailAfter(@Param("email") String email, @Param("updatedDate") LocalDateTime updatedDate,
+                                         @Param("id") Long id, @Param("limit") int limit);
+
+    //Query to search activity titles of one Email, ranked by the FULLTEXT relevance
+    @Query(value = "SELECT * FROM activities WHERE email = :email AND MATCH(title) AGAINST(:query IN BOOLEAN MODE) " +
+            "ORDER BY MATCH(title) AGAINST(:query IN BOOLEAN MODE) DESC, id LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<ActivityGroup> searchByEmail(@Param("email") String email, @Param("query") String query,
+                                      @Param("limit") int limit, @Param("offset") int offset);
+
+    //Query to get the version of the activities by Email, an index-only scan on (email, updated_date, id)
+    @Query("SELECT new activity.dto.ResourceVersion(COUNT(a), MAX(a.updatedDate), SUM(a.id)) FROM ActivityGroup a WHERE a.email = :email")
+    ResourceVersion findVersionByEmail(@Param("email") String email);
+
+    //Query to get the version of all activities
+    @Query("SELECT new activity.dto.ResourceVersion(COUNT(a), MAX(a.updatedDate), SUM(a.id)) FROM ActivityGroup a")
+    ResourceVersion findVersion();
+
+    //Query to get the first page of all activities
+    @Query(value = "SELECT * FROM activities ORDER BY updated_date, id LIMIT :limit", nativeQuery = true)
+    List<ActivityGroup> findAllActivity(@Param("limit") int limit);
+
+    //Query to get the page of all activities after the (updated_date, id) cursor
+    @Query(value = "SELECT * FROM activities " +
+            "WHERE updated_date > :updatedDate OR (updated_date = :updatedDate AND id > :id) " +
+            "ORDER BY updated_date, id LIMIT :limit", nativeQuery = true)
+    List<ActivityGroup> findAllActivityAfter(@Param("updatedDate") LocalDateTime updatedDate, @Param("id") Long id,
+                                             @Param("limit") int limit);
 
-    //Query to get activities by Email
-    @Query(value = "SELECT * FROM activities WHERE email = :email ORDER BY updated_date LIMIT 1000", nativeQuery = true)
-    List<ActivityGroup> findByEmail(@Param("email") String email);
+    //Query to read the activities of one Email forward-only
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT g FROM ActivityGroup g WHERE g.email = :email ORDER BY g.id")
+    Stream<ActivityGroup> streamByEmail(@Param("email") String email);
 
-    //Query to get all activities
-    @Query(value = "SELECT * FROM activities ORDER BY updated_date LIMIT 1000", nativeQuery = true)
-    List<ActivityGroup> findAllActivity();
+    //Query to read all activities forward-only
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT g FROM ActivityGroup g ORDER BY g.id")
+    Stream<ActivityGroup> streamAll();
 }
@@ -0,0 +1,22 @@
+/*
+ * ActivityGroupTombstoneRepository.java
+ *
+ * Version 1.0.0
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.repository;
+
+import activity.entity.ActivityGroupTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ActivityGroupTombstoneRepository extends JpaRepository<ActivityGroupTombstone, Long> {
+    //Query to get the oldest deleted activity Groups that still have To-Do Items to purge
+    @Query(value = "SELECT * FROM activity_group_tombstones ORDER BY deleted_date, activity_group_id LIMIT :limit", nativeQuery = true)
+    List<ActivityGroupTombstone> findOldest(@Param("limit") int limit);
+}
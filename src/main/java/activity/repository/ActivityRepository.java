@@ -8,15 +8,156 @@
 
 package activity.repository;
 
+import activity.dto.ResourceVersion;
+import activity.dto.TodoItemState;
 import activity.entity.Activity;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static activity.config.CacheConfig.TODO_ITEMS_CACHE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+public interface ActivityRepository extends JpaRepository<Activity, Long>, ActivityRepositoryCustom {
+    String STREAM_FETCH_SIZE = "500";
 
-public interface ActivityRepository extends JpaRepository<Activity, Long> {
     //Query to get To-Do Item by activity Group id
     List<Activity> findTodoItemsByActivityGroupId(Long id);
 
-    //Query to get only one To-Do Item by ID
-    Activity findItemById(Long id);
+    //Query to get the To-Do Items of many activity Groups at once
+    List<Activity> findTodoItemsByActivityGroupIdIn(Collection<Long> ids);
+
+    //Query to get the version of the To-Do Items of one activity Group
+    @Query("SELECT new activity.dto.ResourceVersion(COUNT(a), MAX(a.updatedDate), SUM(a.id)) FROM Activity a WHERE a.activityGroupId = :id")
+    ResourceVersion findVersionByActivityGroupId(@Param("id") Long id);
+
+    //Query to get the version of the To-Do Items of every activity Group of one Email
+    @Query("SELECT new activity.dto.ResourceVersion(COUNT(a), MAX(a.updatedDate), SUM(a.id)) FROM Activity a " +
+            "WHERE a.activityGroupId IN (SELECT g.id FROM ActivityGroup g WHERE g.email = :email)")
+    ResourceVersion findVersionByEmail(@Param("email") String email);
+
+    //Query to get the version of the To-Do Items of every activity Group, orphans still being purged are left out
+    @Query("SELECT new activity.dto.ResourceVersion(COUNT(a), MAX(a.updatedDate), SUM(a.id)) FROM Activity a " +
+            "WHERE a.activityGroupId IN (SELECT g.id FROM ActivityGroup g)")
+    ResourceVersion findVersionOfActivityGroups();
+
+    //Query to get the version of all To-Do Items
+    @Query("SELECT new activity.dto.ResourceVersion(COUNT(a), MAX(a.updatedDate), SUM(a.id)) FROM Activity a")
+    ResourceVersion findVersion();
+
+    //Query to get only one To-Do Item by ID, read through the To-Do Item cache
+    @Cacheable(cacheNames = TODO_ITEMS_CACHE, key = "#id", unless = "#result == null")
+    Optional<Activity> findItemById(Long id);
+
+    //Query to read one To-Do Item past the cache, an update evicts its entry only when it commits
+    @Query("SELECT a FROM Activity a WHERE a.id = :id")
+    Optional<Activity> findCurrentItemById(@Param("id") Long id);
+
+    //Query to read the counted columns of one To-Do Item, locking the row until the change commits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new activity.dto.TodoItemState(a.activityGroupId, a.priority, a.isActive) FROM Activity a WHERE a.id = :id")
+    Optional<TodoItemState> findStateForUpdate(@Param("id") Long id);
+
+    //Query to update only the status of one To-Do Item, returns the matched row count
+    @CacheEvict(cacheNames = TODO_ITEMS_CACHE, key = "#id")
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE todos SET is_active = :isActive, updated_date = :now WHERE id = :id", nativeQuery = true)
+    int updateIsActive(@Param("id") Long id, @Param("isActive") Boolean isActive, @Param("now") LocalDateTime now);
+
+    //Query to update only the title of one To-Do Item, returns the matched row count
+    @CacheEvict(cacheNames = TODO_ITEMS_CACHE, key = "#id")
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE todos SET title = :title, updated_date = :now WHERE id = :id", nativeQuery = true)
+    int updateTitle(@Param("id") Long id, @Param("title") String title, @Param("now") LocalDateTime now);
+
+    //Query to delete one To-Do Item, returns the deleted row count
+    @CacheEvict(cacheNames = TODO_ITEMS_CACHE, key = "#id")
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM todos WHERE id = :id", nativeQuery = true)
+    int deleteItemById(@Param("id") Long id);
+
+    //Query to read all To-Do Items forward-only, STREAM_FETCH_SIZE rows per round trip
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT a FROM Activity a")
+    Stream<Activity> streamAll();
+
+    //Query to read To-Do Items by activity Group id forward-only
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Activity> streamByActivityGroupId(Long id);
+
+    //Query to read the To-Do Items of every activity Group of one Email forward-only, grouped by activity Group
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT a FROM Activity a WHERE a.activityGroupId IN (SELECT g.id FROM ActivityGroup g WHERE g.email = :email) " +
+            "ORDER BY a.activityGroupId, a.id")
+    Stream<Activity> streamByEmail(@Param("email") String email);
+
+    //Query to read all To-Do Items forward-only, grouped by activity Group
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT a FROM Activity a ORDER BY a.activityGroupId, a.id")
+    Stream<Activity> streamAllOrderByActivityGroupId();
+
+    //Query to get which of the given To-Do Item IDs exist
+    @Query(value = "SELECT id FROM todos WHERE id IN (:ids)", nativeQuery = true)
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    //Query to search To-Do Item titles of one activity Group, ranked by the FULLTEXT relevance.
+    //The FULLTEXT lookup matches titles of every group, the group condition filters its matches
+    @Query(value = "SELECT * FROM todos WHERE activity_group_id = :id AND MATCH(title) AGAINST(:query IN BOOLEAN MODE) " +
+            "ORDER BY MATCH(title) AGAINST(:query IN BOOLEAN MODE) DESC, id LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Activity> searchByActivityGroupId(@Param("id") Long id, @Param("query") String query,
+                                           @Param("limit") int limit, @Param("offset") int offset);
+
+    //Query to search To-Do Item titles of every activity Group of one Email
+    @Query(value = "SELECT * FROM todos WHERE activity_group_id IN (SELECT id FROM activities WHERE email = :email) " +
+            "AND MATCH(title) AGAINST(:query IN BOOLEAN MODE) " +
+            "ORDER BY MATCH(title) AGAINST(:query IN BOOLEAN MODE) DESC, id LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Activity> searchByEmail(@Param("email") String email, @Param("query") String query,
+                                 @Param("limit") int limit, @Param("offset") int offset);
+
+    //Query to get the activity Groups the given To-Do Items belong to
+    @Query(value = "SELECT DISTINCT activity_group_id FROM todos WHERE id IN (:ids)", nativeQuery = true)
+    List<Long> findActivityGroupIds(@Param("ids") Collection<Long> ids);
+
+    //Query to update many To-Do Items at once, null values leave the column unchanged
+    @CacheEvict(cacheNames = TODO_ITEMS_CACHE, allEntries = true)
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE todos SET is_active = COALESCE(:isActive, is_active), title = COALESCE(:title, title), " +
+            "priority = COALESCE(:priority, priority), updated_date = :now WHERE id IN (:ids)", nativeQuery = true)
+    int updateByIds(@Param("ids") Collection<Long> ids, @Param("isActive") Boolean isActive, @Param("title") String title,
+                    @Param("priority") String priority, @Param("now") LocalDateTime now);
+
+    //Query to delete many To-Do Items at once
+    @CacheEvict(cacheNames = TODO_ITEMS_CACHE, allEntries = true)
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM todos WHERE id IN (:ids)", nativeQuery = true)
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    //Query to get some To-Do Item IDs of one activity Group, read off idx_todos_group_updated without a sort
+    @Query(value = "SELECT id FROM todos WHERE activity_group_id = :id LIMIT :limit", nativeQuery = true)
+    List<Long> findIdsByActivityGroupId(@Param("id") Long id, @Param("limit") int limit);
+
+    //Query to purge To-Do Items of a deleted activity Group, TodoItemPurger invalidates their IDs first
+    @Modifying
+    @Query(value = "DELETE FROM todos WHERE id IN (:ids)", nativeQuery = true)
+    int purgeByIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,19 @@
+/*
+ * ActivityRepositoryCustom.java
+ *
+ * Version 1.0.0
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.repository;
+
+import activity.dto.TodoItemFilter;
+import activity.entity.Activity;
+
+import java.util.List;
+
+public interface ActivityRepositoryCustom {
+    //Query to get the To-Do Items of one activity Group matching the filter, sorted and limited
+    List<Activity> findByFilter(TodoItemFilter filter);
+}
@@ -0,0 +1,88 @@
+/*
+ * ActivityRepositoryImpl.java
+ *
+ * Version 1.0.0
+ *
+ * This class builds the filtered To-Do Item query. Only the conditions that
+ * are set are written, so MySQL sees equality on the leading columns of
+ * idx_todos_group_active_priority_updated, idx_todos_group_active_updated,
+ * idx_todos_group_priority_updated or idx_todos_group_updated and reads the
+ * rows in UPDATED_DATE order instead of sorting them. Sorting on
+ * CREATED_DATE has no index and is always a filesort
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.repository;
+
+import activity.dto.TodoItemFilter;
+import activity.entity.Activity;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+public class ActivityRepositoryImpl implements ActivityRepositoryCustom {
+    public static final String UPDATED_DATE_COLUMN = "updated_date";
+    public static final String CREATED_DATE_COLUMN = "created_date";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Activity> findByFilter(TodoItemFilter filter) {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        Query query = entityManager.createNativeQuery(sql(filter, parameters), Activity.class)
+                .setHint(HINT_READONLY, true);
+        parameters.forEach(query::setParameter);
+        return query.getResultList();
+    }
+
+    /**
+     * Writes the query for the filter and puts its named parameters in
+     * order into parameters. The sort column must be one of the constants,
+     * it is written into the query as is.
+     */
+    public static String sql(TodoItemFilter filter, Map<String, Object> parameters) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM todos WHERE activity_group_id = :activityGroupId");
+        parameters.put("activityGroupId", filter.getActivityGroupId());
+
+        if (filter.getIsActive() != null) {
+            sql.append(" AND is_active = :isActive");
+            parameters.put("isActive", filter.getIsActive());
+        }
+        if (filter.getPriority() != null) {
+            sql.append(" AND priority = :priority");
+            parameters.put("priority", filter.getPriority());
+        }
+        if (filter.getUpdatedFrom() != null) {
+            sql.append(" AND updated_date >= :updatedFrom");
+            parameters.put("updatedFrom", filter.getUpdatedFrom());
+        }
+        if (filter.getUpdatedTo() != null) {
+            sql.append(" AND updated_date < :updatedTo");
+            parameters.put("updatedTo", filter.getUpdatedTo());
+        }
+        if (filter.getCreatedFrom() != null) {
+            sql.append(" AND created_date >= :createdFrom");
+            parameters.put("createdFrom", filter.getCreatedFrom());
+        }
+        if (filter.getCreatedTo() != null) {
+            sql.append(" AND created_date < :createdTo");
+            parameters.put("createdTo", filter.getCreatedTo());
+        }
+
+        //ID breaks ties, it is the implicit last column of every InnoDB secondary index
+        String direction = filter.isDescending() ? " DESC" : "";
+        sql.append(" ORDER BY ").append(filter.getSortColumn()).append(direction).append(", id").append(direction)
+                .append(" LIMIT :limit");
+        parameters.put("limit", filter.getLimit());
+        return sql.toString();
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * CacheInvalidationRepository.java
+ *
+ * Version 1.0.0
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.repository;
+
+import activity.entity.CacheInvalidation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface CacheInvalidationRepository extends JpaRepository<CacheInvalidation, Long> {
+    //Query to get the next batch of invalidations after the given ID
+    @Query(value = "SELECT * FROM cache_invalidations WHERE id > :id ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<CacheInvalidation> findAfter(@Param("id") Long id, @Param("limit") int limit);
+
+    //Query to add one invalidation per To-Do Item ID in one statement, only the IDs still in todos get one
+    @Modifying
+    @Query(value = "INSERT INTO cache_invalidations (cache_name, cache_key, node_id, created_date) " +
+            "SELECT :cacheName, id, :nodeId, :createdDate FROM todos WHERE id IN (:ids)", nativeQuery = true)
+    int insertForTodoItems(@Param("cacheName") String cacheName, @Param("ids") Collection<Long> ids,
+                           @Param("nodeId") String nodeId, @Param("createdDate") LocalDateTime createdDate);
+
+    //Query to get the newest invalidation ID, 0 when the table is empty
+    @Query(value = "SELECT COALESCE(MAX(id), 0) FROM cache_invalidations", nativeQuery = true)
+    long findMaxId();
+
+    //Query to purge invalidations every node has already applied
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM cache_invalidations WHERE created_date < :before", nativeQuery = true)
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,58 @@
+/*
+ * IdempotencyKeyRepository.java
+ *
+ * Version 1.0.0
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.repository;
+
+import activity.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, IdempotencyKey.Key> {
+    //Query to claim a key for the first request, returns 0 when another request holds it
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO idempotency_keys (endpoint, idempotency_key, request_hash, created_date) " +
+            "VALUES (:endpoint, :key, :hash, :now)", nativeQuery = true)
+    int claim(@Param("endpoint") String endpoint, @Param("key") String key, @Param("hash") String hash,
+              @Param("now") LocalDateTime now);
+
+    //Query to take over a key whose first request never finished, e.g. because its node died
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE idempotency_keys SET request_hash = :hash, created_date = :now " +
+            "WHERE endpoint = :endpoint AND idempotency_key = :key AND status_code IS NULL AND created_date < :staleBefore",
+            nativeQuery = true)
+    int claimStale(@Param("endpoint") String endpoint, @Param("key") String key, @Param("hash") String hash,
+                   @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+
+    //Query to store the response the key is answered with from now on
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE idempotency_keys SET status_code = :status, response_body = :body " +
+            "WHERE endpoint = :endpoint AND idempotency_key = :key", nativeQuery = true)
+    int complete(@Param("endpoint") String endpoint, @Param("key") String key, @Param("status") int status,
+                 @Param("body") String body);
+
+    //Query to free a key whose request failed, so a retry runs it again
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_keys WHERE endpoint = :endpoint AND idempotency_key = :key AND status_code IS NULL",
+            nativeQuery = true)
+    int release(@Param("endpoint") String endpoint, @Param("key") String key);
+
+    //Query to purge keys older than the retention
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_keys WHERE created_date < :before", nativeQuery = true)
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
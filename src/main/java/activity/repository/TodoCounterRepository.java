@@ -0,0 +1,45 @@
+/*
+ * TodoCounterRepository.java
+ *
+ * Version 1.0.0
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.repository;
+
+import activity.entity.TodoCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface TodoCounterRepository extends JpaRepository<TodoCounter, TodoCounter.Key> {
+
+    //Query to get the counters of one activity Group, one row per priority
+    List<TodoCounter> findByActivityGroupId(Long id);
+
+    //Query to get the counters of many activity Groups at once
+    List<TodoCounter> findByActivityGroupIdIn(Collection<Long> ids);
+
+    //Query to add to the counters of one activity Group and priority, creating them on first use
+    @Modifying
+    @Query(value = "INSERT INTO todo_counters (activity_group_id, priority, total, active) VALUES (:id, :priority, :total, :active) " +
+            "ON DUPLICATE KEY UPDATE total = total + :total, active = active + :active", nativeQuery = true)
+    int add(@Param("id") Long id, @Param("priority") String priority, @Param("total") long total, @Param("active") long active);
+
+    //Query to drop the counters of activity Groups before they are counted again
+    @Modifying
+    @Query(value = "DELETE FROM todo_counters WHERE activity_group_id IN (:ids)", nativeQuery = true)
+    int deleteByActivityGroupIds(@Param("ids") Collection<Long> ids);
+
+    //Query to count the To-Do Items of activity Groups from scratch
+    @Modifying
+    @Query(value = "INSERT INTO todo_counters (activity_group_id, priority, total, active) " +
+            "SELECT activity_group_id, COALESCE(priority, ''), COUNT(*), SUM(CASE WHEN is_active THEN 1 ELSE 0 END) " +
+            "FROM todos WHERE activity_group_id IN (:ids) GROUP BY activity_group_id, COALESCE(priority, '')", nativeQuery = true)
+    int insertCounts(@Param("ids") Collection<Long> ids);
+}
@@ -10,20 +10,38 @@
 
 package activity.services;
 
+import activity.config.Bulkhead;
+import activity.config.ReplicaRead;
 import activity.dto.ActivityGroupResponse;
 import activity.dto.GeneralRequest;
+import activity.dto.ResourceVersion;
+import activity.dto.TodoSummary;
+import activity.entity.Activity;
 import activity.entity.ActivityGroup;
+import activity.entity.ActivityGroupTombstone;
 import activity.repository.ActivityGroupRepository;
+import activity.repository.ActivityGroupTombstoneRepository;
+import activity.repository.ActivityRepository;
+import activity.util.PageCursor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static activity.config.CacheConfig.ACTIVITY_GROUPS_CACHE;
 
 @Service
 @Slf4j
@@ -32,54 +50,160 @@ public class ActivityGroupService {
     @Autowired
     private ActivityGroupRepository activityGroupRepository;
 
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private CacheInvalidationService cacheInvalidationService;
+
+    @Autowired
+    private TodoCounterService todoCounterService;
+
+    @Autowired
+    private ActivityGroupTombstoneRepository activityGroupTombstoneRepository;
+
     public static final String SUCCESS = "Success";
     public static final String NOT_FOUND_STATUS = "Not Found";
     public static final String NOT_FOUND_MESSAGE = "Activity with ID ";
     public static final String BAD_REQUEST_STATUS = "Bad Request";
     public static final String BAD_REQUEST_MESSAGE = "title cannot be null";
+    public static final String BAD_REQUEST_LIMIT_MESSAGE = "limit must be between 1 and ";
+    public static final String BAD_REQUEST_CURSOR_MESSAGE = "cursor is invalid";
 
-    public ResponseEntity<ActivityGroupResponse> getAllActivity(String email) {
-        log.info("Get All Activity");
+    @Value("${activity-group.page.default-size:1000}")
+    private int defaultPageSize;
+
+    @Value("${activity-group.page.max-size:1000}")
+    private int maxPageSize;
+
+    @Bulkhead(Bulkhead.Type.LIST)
+    @ReplicaRead
+    public ResponseEntity<ActivityGroupResponse> getAllActivity(String email, String cursor, Integer limit,
+                                                                boolean includeTodoItems, boolean includeSummary) {
         List<ActivityGroup> activityGroups;
-        Integer totalData;
+        int pageSize = limit != null ? limit : defaultPageSize;
+        PageCursor pageCursor = null;
+
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            return new ResponseEntity<>(ActivityGroupResponse.builder()
+                    .status(BAD_REQUEST_STATUS)
+                    .message(StringUtils.join(BAD_REQUEST_LIMIT_MESSAGE, maxPageSize))
+                    .data(new ArrayList<>())
+                    .build(), HttpStatus.BAD_REQUEST);
+        }
+
+        if (StringUtils.isNotEmpty(cursor)) {
+            try {
+                pageCursor = PageCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return new ResponseEntity<>(ActivityGroupResponse.builder()
+                        .status(BAD_REQUEST_STATUS)
+                        .message(BAD_REQUEST_CURSOR_MESSAGE)
+                        .data(new ArrayList<>())
+                        .build(), HttpStatus.BAD_REQUEST);
+            }
+        }
+
+        //One extra row tells whether another page exists
+        int fetchSize = pageSize + 1;
 
         //If email is not empty or null then find by email, else findAll
         if (StringUtils.isNotEmpty(email)) {
-            log.info("Find By Email");
-            activityGroups = activityGroupRepository.findByEmail(email);
+            activityGroups = pageCursor == null
+                    ? activityGroupRepository.findByEmail(email, fetchSize)
+                    : activityGroupRepository.findByEmailAfter(email, pageCursor.getUpdatedDate(), pageCursor.getId(), fetchSize);
         } else {
-            log.info("Find All");
-            activityGroups = activityGroupRepository.findAllActivity();
+            activityGroups = pageCursor == null
+                    ? activityGroupRepository.findAllActivity(fetchSize)
+                    : activityGroupRepository.findAllActivityAfter(pageCursor.getUpdatedDate(), pageCursor.getId(), fetchSize);
         }
 
-        //Set todoItems to null since it is not needed
-        if (!CollectionUtils.isEmpty(activityGroups)) {
-            activityGroups.forEach(x -> x.setTodoItems(null));
+        String nextCursor = null;
+        if (activityGroups.size() > pageSize) {
+            activityGroups = activityGroups.subList(0, pageSize);
+            ActivityGroup last = activityGroups.get(pageSize - 1);
+            nextCursor = PageCursor.encode(last.getUpdatedDate(), last.getId());
         }
 
+        //todoItems is only filled when asked for, with one IN query for the whole page
+        Map<Long, List<Activity>> todoItems = includeTodoItems ? findTodoItems(activityGroups) : Collections.emptyMap();
+        //summary likewise, from the group counters of the page
+        Map<Long, TodoSummary> summaries = includeSummary
+                ? todoCounterService.getSummaries(activityGroups.stream().map(ActivityGroup::getId).collect(Collectors.toList()))
+                : Collections.emptyMap();
+        activityGroups = activityGroups.stream()
+                .map(x -> copyOf(x, includeTodoItems ? todoItems.getOrDefault(x.getId(), new ArrayList<>()) : null, summaries.get(x.getId())))
+                .collect(Collectors.toList());
+        log.info("event=activity_groups.list by_email={} count={} has_next={} include_todo_items={} include_summary={}",
+                StringUtils.isNotEmpty(email), activityGroups.size(), nextCursor != null, includeTodoItems, includeSummary);
+
         ActivityGroupResponse activityGroupResponse = ActivityGroupResponse.builder()
                 .status(SUCCESS)
                 .message(SUCCESS)
                 .data(activityGroups)
+                .nextCursor(nextCursor)
                 .build();
 
         return new ResponseEntity<>(activityGroupResponse, HttpStatus.OK);
     }
 
-    public ResponseEntity<ActivityGroupResponse> getActivity(Long id) {
-        log.info("Get Activity");
+    @Bulkhead(Bulkhead.Type.READ)
+    @ReplicaRead
+    public ResourceVersion getAllActivityVersion(String email, boolean includeTodoItems) {
+        if (StringUtils.isNotEmpty(email)) {
+            ResourceVersion version = activityGroupRepository.findVersionByEmail(email);
+            return includeTodoItems ? version.and(activityRepository.findVersionByEmail(email)) : version;
+        }
+
+        ResourceVersion version = activityGroupRepository.findVersion();
+        //Same rows as the embedded todo_items, so it matches versionOf on the unconditional response
+        return includeTodoItems ? version.and(activityRepository.findVersionOfActivityGroups()) : version;
+    }
+
+    //Version of activities already loaded, equal to getAllActivityVersion when they are the whole list
+    public static ResourceVersion versionOf(List<ActivityGroup> activityGroups, boolean includeTodoItems) {
+        ResourceVersion version = ResourceVersion.of(activityGroups, ActivityGroup::getId, ActivityGroup::getUpdatedDate);
+        if (!includeTodoItems) {
+            return version;
+        }
+
+        List<Activity> todoItems = activityGroups.stream()
+                .filter(x -> x.getTodoItems() != null)
+                .flatMap(x -> x.getTodoItems().stream())
+                .collect(Collectors.toList());
+        return version.and(ActivityService.versionOf(todoItems));
+    }
+
+    @Bulkhead(Bulkhead.Type.READ)
+    @ReplicaRead
+    public ResourceVersion getActivityVersion(Long id, boolean includeTodoItems) {
+        //The activity usually comes from the cache, only its To-Do Items need a query
+        return activityGroupRepository.findByActivityId(id)
+                .map(x -> {
+                    ResourceVersion version = ResourceVersion.of(x.getId(), x.getUpdatedDate());
+                    return includeTodoItems ? version.and(activityRepository.findVersionByActivityGroupId(id)) : version;
+                })
+                .orElse(null);
+    }
+
+    @Bulkhead(Bulkhead.Type.READ)
+    @ReplicaRead
+    public ResponseEntity<ActivityGroupResponse> getActivity(Long id, boolean includeTodoItems, boolean includeSummary) {
+        log.info("event=activity_groups.get id={} include_todo_items={} include_summary={}", id, includeTodoItems, includeSummary);
         String status = NOT_FOUND_STATUS;
         String message = StringUtils.join(NOT_FOUND_MESSAGE, id, StringUtils.SPACE, NOT_FOUND_STATUS);
         HttpStatus httpStatus = HttpStatus.NOT_FOUND;
 
         ActivityGroup activityGroup = ActivityGroup.builder().build();
+        Optional<ActivityGroup> found = activityGroupRepository.findByActivityId(id);
 
         //check If Id exist and response not null
-        if (activityGroupRepository.existsById(id)) {
+        if (found.isPresent()) {
             status = SUCCESS;
             message = SUCCESS;
             httpStatus = HttpStatus.OK;
-            activityGroup = activityGroupRepository.findByActivityId(id);
+            activityGroup = copyOf(found.get(), includeTodoItems ? activityRepository.findTodoItemsByActivityGroupId(id) : null,
+                    includeSummary ? todoCounterService.getSummary(id) : null);
         }
 
         return new ResponseEntity<>(ActivityGroupResponse.builder()
@@ -89,8 +213,28 @@ public class ActivityGroupService {
                 .build(), httpStatus);
     }
 
+    @Bulkhead(Bulkhead.Type.READ)
+    public ResponseEntity<ActivityGroupResponse> getSummary(Long id) {
+        log.info("event=activity_groups.summary id={}", id);
+
+        if (!activityGroupRepository.findByActivityId(id).isPresent()) {
+            return new ResponseEntity<>(ActivityGroupResponse.builder()
+                    .data(TodoSummary.builder().build())
+                    .status(NOT_FOUND_STATUS)
+                    .message(StringUtils.join(NOT_FOUND_MESSAGE, id, StringUtils.SPACE, NOT_FOUND_STATUS))
+                    .build(), HttpStatus.NOT_FOUND);
+        }
+
+        return new ResponseEntity<>(ActivityGroupResponse.builder()
+                .data(todoCounterService.getSummary(id))
+                .status(SUCCESS)
+                .message(SUCCESS)
+                .build(), HttpStatus.OK);
+    }
+
+    @Bulkhead(Bulkhead.Type.WRITE)
     public ResponseEntity<ActivityGroupResponse> createActivity(GeneralRequest request) {
-        log.info("Create new Activity");
+        log.info("event=activity_groups.create");
         String status = BAD_REQUEST_STATUS;
         String message = BAD_REQUEST_MESSAGE;
         HttpStatus httpStatus = HttpStatus.BAD_REQUEST;
@@ -119,8 +263,10 @@ public class ActivityGroupService {
                 .build(), httpStatus);
     }
 
+    @Bulkhead(Bulkhead.Type.WRITE)
+    @Transactional
     public ResponseEntity<ActivityGroupResponse> updateActivity(GeneralRequest request, Long id) {
-        log.info("Update Activity");
+        log.info("event=activity_groups.update id={}", id);
         String status = NOT_FOUND_STATUS;
         String message = StringUtils.join(NOT_FOUND_MESSAGE, id, StringUtils.SPACE, NOT_FOUND_STATUS);
         HttpStatus httpStatus = HttpStatus.NOT_FOUND;
@@ -140,19 +286,17 @@ public class ActivityGroupService {
                     .build(), httpStatus);
         }
 
-        if (activityGroupRepository.existsById(id)) {
+        //Only the title is written, zero matched rows means the id does not exist
+        if (activityGroupRepository.updateTitle(id, request.getTitle(), now) > 0) {
             status = SUCCESS;
             message = SUCCESS;
             httpStatus = HttpStatus.OK;
+            cacheInvalidationService.append(ACTIVITY_GROUPS_CACHE, id);
 
-            activityGroup = activityGroupRepository.findByActivityId(id);
-            activityGroup.setId(id);
-            activityGroup.setTitle(request.getTitle());
-            activityGroup.setUpdatedDate(now);
-
-            activityGroupRepository.save(activityGroup);
-
-            activityGroup.setTodoItems(null);
+            //The cached entry is still the old row until the transaction commits
+            activityGroup = activityGroupRepository.findCurrentByActivityId(id)
+                    .map(x -> copyOf(x, null, null))
+                    .orElse(activityGroup);
         }
 
         return new ResponseEntity<>(ActivityGroupResponse.builder()
@@ -162,24 +306,54 @@ public class ActivityGroupService {
                 .build(), httpStatus);
     }
 
+    @Bulkhead(Bulkhead.Type.WRITE)
+    @Transactional
     public ResponseEntity<ActivityGroupResponse> deleteActivity(Long id) {
-        log.info("Delete Activity");
+        log.info("event=activity_groups.delete id={}", id);
         String status = NOT_FOUND_STATUS;
         String message = StringUtils.join(NOT_FOUND_MESSAGE, id, StringUtils.SPACE, NOT_FOUND_STATUS);
         HttpStatus httpStatus = HttpStatus.NOT_FOUND;
+        Object data = ActivityGroup.builder().build();
 
-        if (activityGroupRepository.existsById(id)) {
+        //The To-Do Items stay behind the tombstone until TodoItemPurger deletes them in batches
+        if (activityGroupRepository.deleteActivityById(id) > 0) {
             status = SUCCESS;
             message = SUCCESS;
             httpStatus = HttpStatus.OK;
-
-            activityGroupRepository.deleteById(id);
+            cacheInvalidationService.append(ACTIVITY_GROUPS_CACHE, id);
+            data = activityGroupTombstoneRepository.save(ActivityGroupTombstone.builder()
+                    .activityGroupId(id)
+                    .deletedDate(LocalDateTime.now())
+                    .build());
         }
 
         return new ResponseEntity<>(ActivityGroupResponse.builder()
                 .status(status)
                 .message(message)
-                .data(ActivityGroup.builder().build())
+                .data(data)
                 .build(), httpStatus);
     }
+
+    private Map<Long, List<Activity>> findTodoItems(List<ActivityGroup> activityGroups) {
+        if (CollectionUtils.isEmpty(activityGroups)) {
+            return Collections.emptyMap();
+        }
+
+        List<Long> ids = activityGroups.stream().map(ActivityGroup::getId).collect(Collectors.toList());
+        return activityRepository.findTodoItemsByActivityGroupIdIn(ids).stream()
+                .collect(Collectors.groupingBy(Activity::getActivityGroupId));
+    }
+
+    //Cached activities are shared between requests, so responses are built on a copy
+    static ActivityGroup copyOf(ActivityGroup activityGroup, List<Activity> todoItems, TodoSummary summary) {
+        return ActivityGroup.builder()
+                .id(activityGroup.getId())
+                .title(activityGroup.getTitle())
+                .email(activityGroup.getEmail())
+                .createdDate(activityGroup.getCreatedDate())
+                .updatedDate(activityGroup.getUpdatedDate())
+                .todoItems(todoItems)
+                .summary(summary)
+                .build();
+    }
 }
@@ -10,21 +10,40 @@
 
 package activity.services;
 
+import activity.config.Bulkhead;
+import activity.config.ReplicaRead;
 import activity.dto.ActivityGroupResponse;
+import activity.dto.BulkItemResult;
+import activity.dto.BulkRequest;
 import activity.dto.GeneralRequest;
+import activity.dto.ResourceVersion;
+import activity.dto.TodoItemFilter;
+import activity.dto.TodoItemState;
 import activity.entity.Activity;
 import activity.repository.ActivityRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import static activity.config.CacheConfig.TODO_ITEMS_CACHE;
+import static activity.repository.ActivityRepositoryImpl.CREATED_DATE_COLUMN;
+import static activity.repository.ActivityRepositoryImpl.UPDATED_DATE_COLUMN;
+import static activity.services.ActivityGroupService.BAD_REQUEST_LIMIT_MESSAGE;
 
 @Service
 @Slf4j
@@ -33,6 +52,15 @@ public class ActivityService {
     @Autowired
     private ActivityRepository activityRepository;
 
+    @Autowired
+    private TodoItemWriteBuffer todoItemWriteBuffer;
+
+    @Autowired
+    private CacheInvalidationService cacheInvalidationService;
+
+    @Autowired
+    private TodoCounterService todoCounterService;
+
     public static final String SUCCESS = "Success";
     public static final String NOT_FOUND_STATUS = "Not Found";
     public static final String NOT_FOUND_MESSAGE = "Todo with ID ";
@@ -40,19 +68,35 @@ public class ActivityService {
     public static final String BAD_REQUEST_TITLE_MESSAGE = "title cannot be null";
     public static final String BAD_REQUEST_MESSAGE = "title and status cannot be null";
     public static final String BAD_REQUEST_ID_MESSAGE = "activity_group_id cannot be null";
+    public static final String BAD_REQUEST_IDS_MESSAGE = "ids cannot be empty";
+    public static final String BAD_REQUEST_ITEMS_MESSAGE = "items cannot be empty";
+    public static final String BAD_REQUEST_BULK_SIZE_MESSAGE = "bulk request cannot contain more than ";
+    public static final String BAD_REQUEST_SORT_MESSAGE = "sort must be one of updated_at, -updated_at, created_at, -created_at";
+    public static final String BAD_REQUEST_RANGE_MESSAGE = "from must be before to";
+    public static final String SORT_UPDATED_AT = "updated_at";
+    public static final String SORT_CREATED_AT = "created_at";
+
+    @Value("${todo.bulk.max-size:1000}")
+    private int bulkMaxSize;
+
+    @Value("${todo.query.default-limit:100}")
+    private int defaultQueryLimit;
 
+    @Value("${todo.query.max-limit:1000}")
+    private int maxQueryLimit;
+
+    @Bulkhead(Bulkhead.Type.LIST)
+    @ReplicaRead
     public ResponseEntity<ActivityGroupResponse> getAllTodoItems(Long id) {
-        log.info("get All Todo Items with id {}", id);
         List<Activity> activities;
 
         if (id != null) {
-            log.info("Find By Id");
             activities = activityRepository.findTodoItemsByActivityGroupId(id);
         } else {
-            log.info("Find All");
             activities = activityRepository.findAll();
         }
-        log.info("Activity Response {}", activities);
+        //Log the size only, formatting every entity costs more than the query on large groups
+        log.info("event=todo_items.list activity_group_id={} count={}", id, activities.size());
 
         ActivityGroupResponse activityGroupResponse = ActivityGroupResponse.builder()
                 .status(SUCCESS)
@@ -63,19 +107,88 @@ public class ActivityService {
         return new ResponseEntity<>(activityGroupResponse, HttpStatus.OK);
     }
 
+    /**
+     * To-Do Items of one activity Group matching the filter, newest update
+     * first unless sort says otherwise. sort is a field name, prefixed with
+     * - for descending order.
+     */
+    @Bulkhead(Bulkhead.Type.LIST)
+    @ReplicaRead
+    public ResponseEntity<ActivityGroupResponse> getFilteredTodoItems(TodoItemFilter filter, String sort, Integer limit) {
+        if (filter.getActivityGroupId() == null) {
+            return bulkBadRequest(BAD_REQUEST_ID_MESSAGE);
+        }
+        if (limit != null && (limit < 1 || limit > maxQueryLimit)) {
+            return bulkBadRequest(StringUtils.join(BAD_REQUEST_LIMIT_MESSAGE, maxQueryLimit));
+        }
+        if (isEmptyRange(filter.getCreatedFrom(), filter.getCreatedTo()) || isEmptyRange(filter.getUpdatedFrom(), filter.getUpdatedTo())) {
+            return bulkBadRequest(BAD_REQUEST_RANGE_MESSAGE);
+        }
+
+        String field = StringUtils.removeStart(StringUtils.defaultIfEmpty(sort, "-" + SORT_UPDATED_AT), "-");
+        if (SORT_UPDATED_AT.equals(field)) {
+            filter.setSortColumn(UPDATED_DATE_COLUMN);
+        } else if (SORT_CREATED_AT.equals(field)) {
+            //No index is in created_date order, the matching rows of the group are sorted
+            filter.setSortColumn(CREATED_DATE_COLUMN);
+        } else {
+            return bulkBadRequest(BAD_REQUEST_SORT_MESSAGE);
+        }
+        filter.setDescending(sort == null || sort.startsWith("-"));
+        filter.setLimit(limit != null ? limit : defaultQueryLimit);
+
+        List<Activity> activities = activityRepository.findByFilter(filter);
+        log.info("event=todo_items.filter activity_group_id={} is_active={} priority={} sort={} count={}",
+                filter.getActivityGroupId(), filter.getIsActive(), filter.getPriority(), sort, activities.size());
+
+        return new ResponseEntity<>(ActivityGroupResponse.builder()
+                .status(SUCCESS)
+                .message(SUCCESS)
+                .data(activities)
+                .build(), HttpStatus.OK);
+    }
+
+    private static boolean isEmptyRange(LocalDateTime from, LocalDateTime to) {
+        return from != null && to != null && !from.isBefore(to);
+    }
+
+    @Bulkhead(Bulkhead.Type.READ)
+    @ReplicaRead
+    public ResourceVersion getAllTodoItemsVersion(Long id) {
+        return id != null
+                ? activityRepository.findVersionByActivityGroupId(id)
+                : activityRepository.findVersion();
+    }
+
+    //Version of To-Do Items already loaded, equal to getAllTodoItemsVersion for the same rows
+    public static ResourceVersion versionOf(List<Activity> activities) {
+        return ResourceVersion.of(activities, Activity::getId, Activity::getUpdatedDate);
+    }
+
+    @Bulkhead(Bulkhead.Type.READ)
+    @ReplicaRead
+    public ResourceVersion getTodoItemsVersion(Long id) {
+        return activityRepository.findItemById(id)
+                .map(x -> ResourceVersion.of(x.getId(), x.getUpdatedDate()))
+                .orElse(null);
+    }
+
+    @Bulkhead(Bulkhead.Type.READ)
+    @ReplicaRead
     public ResponseEntity<ActivityGroupResponse> getTodoItems(Long id) {
-        log.info("get Todo Items with id {}", id);
+        log.info("event=todo_items.get id={}", id);
         String status = NOT_FOUND_STATUS;
         String message = StringUtils.join(NOT_FOUND_MESSAGE, id, StringUtils.SPACE, NOT_FOUND_STATUS);
         HttpStatus httpStatus = HttpStatus.NOT_FOUND;
 
         Activity activity = Activity.builder().build();
+        Optional<Activity> found = activityRepository.findItemById(id);
 
-        if (activityRepository.existsById(id)) {
+        if (found.isPresent()) {
             status = SUCCESS;
             message = SUCCESS;
             httpStatus = HttpStatus.OK;
-            activity = activityRepository.findItemById(id);
+            activity = copyOf(found.get());
         }
 
         return new ResponseEntity<>(ActivityGroupResponse.builder()
@@ -85,59 +198,36 @@ public class ActivityService {
                 .build(), httpStatus);
     }
 
+    @Bulkhead(Bulkhead.Type.BUFFERED_WRITE)
     public ResponseEntity<ActivityGroupResponse> createTodoItems(GeneralRequest request) {
-        log.info("Create new Todo Item");
-        String status = SUCCESS;
-        String message = SUCCESS;
-        HttpStatus httpStatus = HttpStatus.CREATED;
-        LocalDateTime now  = LocalDateTime.now();
-
-        Activity activity = new Activity();
-
-        if (request.getActivityGroupId() == null) {
-            status = BAD_REQUEST_STATUS;
-            message = BAD_REQUEST_ID_MESSAGE;
-            httpStatus = HttpStatus.BAD_REQUEST;
+        log.info("event=todo_items.create activity_group_id={}", request.getActivityGroupId());
 
+        //Same rules as the bulk create and the import
+        String invalid = validateNewTodoItem(request);
+        if (invalid != null) {
             return new ResponseEntity<>(ActivityGroupResponse.builder()
-                    .data(activity)
-                    .status(status)
-                    .message(message)
-                    .build(), httpStatus);
+                    .data(new Activity())
+                    .status(BAD_REQUEST_STATUS)
+                    .message(invalid)
+                    .build(), HttpStatus.BAD_REQUEST);
         }
 
-        if (StringUtils.isBlank(request.getTitle())) {
-            status = BAD_REQUEST_STATUS;
-            message = BAD_REQUEST_TITLE_MESSAGE;
-            httpStatus = HttpStatus.BAD_REQUEST;
-
-            return new ResponseEntity<>(ActivityGroupResponse.builder()
-                    .data(activity)
-                    .status(status)
-                    .message(message)
-                    .build(), httpStatus);
-        }
-
-        activity = Activity.builder()
-                .activityGroupId(request.getActivityGroupId())
-                .title(request.getTitle())
-                .isActive(Boolean.TRUE)
-                .priority(request.getPriority() != null ? request.getPriority() : "very-high")
-                .createdDate(now)
-                .updatedDate(now)
-                .build();
+        Activity activity = newTodoItem(request, LocalDateTime.now());
 
-        activity = activityRepository.save(activity);
+        //Inserts go through the write buffer so concurrent creates share one batch
+        activity = todoItemWriteBuffer.save(activity);
 
         return new ResponseEntity<>(ActivityGroupResponse.builder()
                 .data(activity)
-                .status(status)
-                .message(message)
-                .build(), httpStatus);
+                .status(SUCCESS)
+                .message(SUCCESS)
+                .build(), HttpStatus.CREATED);
     }
 
+    @Bulkhead(Bulkhead.Type.WRITE)
+    @Transactional
     public ResponseEntity<ActivityGroupResponse> updateTodoItems(GeneralRequest request, Long id) {
-        log.info("Update Todo Items");
+        log.info("event=todo_items.update id={}", id);
         String status = NOT_FOUND_STATUS;
         String message = StringUtils.join(NOT_FOUND_MESSAGE, id, StringUtils.SPACE, NOT_FOUND_STATUS);
         HttpStatus httpStatus = HttpStatus.NOT_FOUND;
@@ -157,23 +247,25 @@ public class ActivityService {
                     .build(), httpStatus);
         }
 
-        if (activityRepository.existsById(id)) {
+        //The status counts towards the group counters, so its previous value is read first
+        Optional<TodoItemState> before = request.getIsActive() != null
+                ? activityRepository.findStateForUpdate(id)
+                : Optional.empty();
+
+        //Only the changed column is written, zero matched rows means the id does not exist
+        int updated = request.getIsActive() != null
+                ? activityRepository.updateIsActive(id, request.getIsActive(), now)
+                : activityRepository.updateTitle(id, request.getTitle(), now);
+
+        if (updated > 0) {
             status = SUCCESS;
             message = SUCCESS;
             httpStatus = HttpStatus.OK;
+            cacheInvalidationService.append(TODO_ITEMS_CACHE, id);
+            before.ifPresent(x -> todoCounterService.statusChanged(x, request.getIsActive()));
 
-            activity = activityRepository.findItemById(id);
-            activity.setId(id);
-
-            if (request.getIsActive() != null) {
-                activity.setIsActive(request.getIsActive());
-            } else {
-                activity.setTitle(request.getTitle());
-            }
-
-            activity.setUpdatedDate(now);
-
-            activityRepository.save(activity);
+            //The cached entry is still the old row until the transaction commits
+            activity = activityRepository.findCurrentItemById(id).orElse(activity);
         }
 
         return new ResponseEntity<>(ActivityGroupResponse.builder()
@@ -183,18 +275,22 @@ public class ActivityService {
                 .build(), httpStatus);
     }
 
+    @Bulkhead(Bulkhead.Type.WRITE)
+    @Transactional
     public ResponseEntity<ActivityGroupResponse> deleteTodoItems(Long id) {
-        log.info("Delete Todo items");
+        log.info("event=todo_items.delete id={}", id);
         String status = NOT_FOUND_STATUS;
         String message = StringUtils.join(NOT_FOUND_MESSAGE, id, StringUtils.SPACE, NOT_FOUND_STATUS);
         HttpStatus httpStatus = HttpStatus.NOT_FOUND;
 
-        if (activityRepository.existsById(id)) {
+        Optional<TodoItemState> before = activityRepository.findStateForUpdate(id);
+
+        if (activityRepository.deleteItemById(id) > 0) {
             status = SUCCESS;
             message = SUCCESS;
             httpStatus = HttpStatus.OK;
-
-            activityRepository.deleteById(id);
+            cacheInvalidationService.append(TODO_ITEMS_CACHE, id);
+            before.ifPresent(todoCounterService::removed);
         }
 
         return new ResponseEntity<>(ActivityGroupResponse.builder()
@@ -203,4 +299,184 @@ public class ActivityService {
                 .data(Activity.builder().build())
                 .build(), httpStatus);
     }
+
+    @Bulkhead(Bulkhead.Type.WRITE)
+    @Transactional
+    public ResponseEntity<ActivityGroupResponse> createTodoItemsBulk(BulkRequest request) {
+        log.info("event=todo_items.bulk_create size={}", request.getItems() != null ? request.getItems().size() : 0);
+        List<GeneralRequest> items = request.getItems();
+
+        if (CollectionUtils.isEmpty(items)) {
+            return bulkBadRequest(BAD_REQUEST_ITEMS_MESSAGE);
+        }
+
+        if (items.size() > bulkMaxSize) {
+            return bulkBadRequest(StringUtils.join(BAD_REQUEST_BULK_SIZE_MESSAGE, bulkMaxSize));
+        }
+
+        LocalDateTime now  = LocalDateTime.now();
+        List<BulkItemResult> results = new ArrayList<>(items.size());
+        List<Activity> activities = new ArrayList<>(items.size());
+
+        //Validate with the same rules as createTodoItems, only valid items are inserted
+        for (int i = 0; i < items.size(); i++) {
+            GeneralRequest item = items.get(i);
+            BulkItemResult result = BulkItemResult.builder().index(i).build();
+            results.add(result);
+
+            String invalid = validateNewTodoItem(item);
+            if (invalid != null) {
+                result.setStatus(BAD_REQUEST_STATUS);
+                result.setMessage(invalid);
+            } else {
+                activities.add(newTodoItem(item, now));
+            }
+        }
+
+        List<Activity> saved = activities.isEmpty() ? activities : activityRepository.saveAll(activities);
+        todoCounterService.added(saved);
+
+        int savedIndex = 0;
+        for (BulkItemResult result : results) {
+            if (result.getStatus() == null) {
+                Activity activity = saved.get(savedIndex++);
+                result.setId(activity.getId());
+                result.setStatus(SUCCESS);
+                result.setMessage(SUCCESS);
+                result.setData(activity);
+            }
+        }
+
+        return bulkResponse(results, HttpStatus.CREATED);
+    }
+
+    @Bulkhead(Bulkhead.Type.WRITE)
+    @Transactional
+    public ResponseEntity<ActivityGroupResponse> updateTodoItemsBulk(BulkRequest request) {
+        log.info("event=todo_items.bulk_update size={}", request.getIds() != null ? request.getIds().size() : 0);
+
+        if (StringUtils.isBlank(request.getTitle()) && request.getIsActive() == null && request.getPriority() == null) {
+            return bulkBadRequest(BAD_REQUEST_MESSAGE);
+        }
+
+        ResponseEntity<ActivityGroupResponse> invalidIds = validateBulkIds(request.getIds());
+        if (invalidIds != null) {
+            return invalidIds;
+        }
+
+        Set<Long> ids = new LinkedHashSet<>(request.getIds());
+        Set<Long> existingIds = new HashSet<>(activityRepository.findExistingIds(ids));
+
+        if (!existingIds.isEmpty()) {
+            activityRepository.updateByIds(existingIds, request.getIsActive(), StringUtils.trimToNull(request.getTitle()),
+                    request.getPriority(), LocalDateTime.now());
+            cacheInvalidationService.append(TODO_ITEMS_CACHE, null);
+            if (request.getIsActive() != null || request.getPriority() != null) {
+                todoCounterService.recount(activityRepository.findActivityGroupIds(existingIds));
+            }
+        }
+
+        return bulkResponse(toBulkResults(ids, existingIds), HttpStatus.OK);
+    }
+
+    @Bulkhead(Bulkhead.Type.WRITE)
+    @Transactional
+    public ResponseEntity<ActivityGroupResponse> deleteTodoItemsBulk(List<Long> requestIds) {
+        log.info("event=todo_items.bulk_delete size={}", requestIds != null ? requestIds.size() : 0);
+
+        ResponseEntity<ActivityGroupResponse> invalidIds = validateBulkIds(requestIds);
+        if (invalidIds != null) {
+            return invalidIds;
+        }
+
+        Set<Long> ids = new LinkedHashSet<>(requestIds);
+        Set<Long> existingIds = new HashSet<>(activityRepository.findExistingIds(ids));
+
+        if (!existingIds.isEmpty()) {
+            List<Long> activityGroupIds = activityRepository.findActivityGroupIds(existingIds);
+            activityRepository.deleteByIds(existingIds);
+            cacheInvalidationService.append(TODO_ITEMS_CACHE, null);
+            todoCounterService.recount(activityGroupIds);
+        }
+
+        return bulkResponse(toBulkResults(ids, existingIds), HttpStatus.OK);
+    }
+
+    //The rules of createTodoItems, returns the message of the first broken one or null
+    public static String validateNewTodoItem(GeneralRequest item) {
+        if (item == null || item.getActivityGroupId() == null) {
+            return BAD_REQUEST_ID_MESSAGE;
+        }
+        if (StringUtils.isBlank(item.getTitle())) {
+            return BAD_REQUEST_TITLE_MESSAGE;
+        }
+        return null;
+    }
+
+    public static Activity newTodoItem(GeneralRequest item, LocalDateTime now) {
+        return Activity.builder()
+                .activityGroupId(item.getActivityGroupId())
+                .title(item.getTitle())
+                .isActive(Boolean.TRUE)
+                .priority(item.getPriority() != null ? item.getPriority() : "very-high")
+                .createdDate(now)
+                .updatedDate(now)
+                .build();
+    }
+
+    private ResponseEntity<ActivityGroupResponse> validateBulkIds(List<Long> ids) {
+        if (CollectionUtils.isEmpty(ids) || ids.stream().anyMatch(Objects::isNull)) {
+            return bulkBadRequest(BAD_REQUEST_IDS_MESSAGE);
+        }
+
+        if (ids.size() > bulkMaxSize) {
+            return bulkBadRequest(StringUtils.join(BAD_REQUEST_BULK_SIZE_MESSAGE, bulkMaxSize));
+        }
+
+        return null;
+    }
+
+    private List<BulkItemResult> toBulkResults(Set<Long> ids, Set<Long> existingIds) {
+        List<BulkItemResult> results = new ArrayList<>(ids.size());
+
+        for (Long id : ids) {
+            boolean found = existingIds.contains(id);
+            results.add(BulkItemResult.builder()
+                    .id(id)
+                    .status(found ? SUCCESS : NOT_FOUND_STATUS)
+                    .message(found ? SUCCESS : StringUtils.join(NOT_FOUND_MESSAGE, id, StringUtils.SPACE, NOT_FOUND_STATUS))
+                    .build());
+        }
+
+        return results;
+    }
+
+    private ResponseEntity<ActivityGroupResponse> bulkResponse(List<BulkItemResult> results, HttpStatus httpStatus) {
+        return new ResponseEntity<>(ActivityGroupResponse.builder()
+                .data(results)
+                .status(SUCCESS)
+                .message(SUCCESS)
+                .build(), httpStatus);
+    }
+
+    private ResponseEntity<ActivityGroupResponse> bulkBadRequest(String message) {
+        return new ResponseEntity<>(ActivityGroupResponse.builder()
+                .data(new ArrayList<>())
+                .status(BAD_REQUEST_STATUS)
+                .message(message)
+                .build(), HttpStatus.BAD_REQUEST);
+    }
+
+    //Cached To-Do Items are shared between requests, so responses are built on a copy
+    static Activity copyOf(Activity activity) {
+        return Activity.builder()
+                .id(activity.getId())
+                .activityGroupId(activity.getActivityGroupId())
+                .title(activity.getTitle())
+                .isActive(activity.getIsActive())
+                .priority(activity.getPriority())
+                .createdDate(activity.getCreatedDate())
+                .updatedDate(activity.getUpdatedDate())
+                .build();
+    }
 }
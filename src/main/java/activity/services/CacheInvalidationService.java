@@ -0,0 +1,179 @@
+/*
+ * CacheInvalidationService.java
+ *
+ * Version 1.0.0
+ *
+ * This class keeps the in-process caches of every node coherent.
+ * Write paths append invalidations to the cache_invalidations table in
+ * the same transaction as the write, and every node tails that table by
+ * ID and evicts the entries written on other nodes.
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.services;
+
+import activity.entity.CacheInvalidation;
+import activity.repository.CacheInvalidationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@Slf4j
+public class CacheInvalidationService {
+
+    @Autowired
+    private CacheInvalidationRepository cacheInvalidationRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Value("${cache.invalidation.batch-size:500}")
+    private int batchSize;
+
+    @Value("${cache.invalidation.gap-timeout-ms:5000}")
+    private long gapTimeoutMs;
+
+    @Value("${cache.invalidation.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    //Writes of the reactive stack bypass the local cache, so poll() must evict them here as well
+    private final String reactiveNodeId = UUID.randomUUID().toString();
+
+    private long lastAppliedId;
+    private long gapFirstSeen;
+
+    @PostConstruct
+    void init() {
+        //The local cache starts empty, so older invalidations never need replaying
+        lastAppliedId = cacheInvalidationRepository.findMaxId();
+    }
+
+    /**
+     * Records that the key (or the whole cache when key is null) changed.
+     * Must run in the transaction of the write, so the record commits with it.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String cacheName, Long key) {
+        cacheInvalidationRepository.save(CacheInvalidation.builder()
+                .cacheName(cacheName)
+                .cacheKey(key)
+                .nodeId(nodeId)
+                .createdDate(LocalDateTime.now())
+                .build());
+    }
+
+    /**
+     * Records that the given To-Do Items changed, one key each. Must run in
+     * the transaction of the write and before the items are deleted, the
+     * keys are read from todos.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendTodoItems(String cacheName, Collection<Long> ids) {
+        cacheInvalidationRepository.insertForTodoItems(cacheName, ids, nodeId, LocalDateTime.now());
+    }
+
+    /**
+     * Same as {@link #append(String, Long)} for the reactive stack. The
+     * returned Mono must be subscribed inside the R2DBC transaction of the write.
+     */
+    public Mono<Void> append(DatabaseClient databaseClient, String cacheName, Long key) {
+        DatabaseClient.GenericExecuteSpec insert = databaseClient
+                .sql("INSERT INTO cache_invalidations (cache_name, cache_key, node_id, created_date) " +
+                        "VALUES (:cacheName, :cacheKey, :nodeId, :createdDate)")
+                .bind("cacheName", cacheName)
+                .bind("nodeId", reactiveNodeId)
+                .bind("createdDate", LocalDateTime.now());
+
+        insert = key != null ? insert.bind("cacheKey", key) : insert.bindNull("cacheKey", Long.class);
+        return insert.fetch().rowsUpdated().then();
+    }
+
+    @Scheduled(fixedDelayString = "${cache.invalidation.poll-interval-ms:500}")
+    public void poll() {
+        List<CacheInvalidation> invalidations;
+
+        do {
+            invalidations = cacheInvalidationRepository.findAfter(lastAppliedId, batchSize);
+
+            for (CacheInvalidation invalidation : invalidations) {
+                //This node already evicted its own writes when they committed
+                if (!nodeId.equals(invalidation.getNodeId())) {
+                    evict(invalidation);
+                }
+            }
+        } while (advance(invalidations) && invalidations.size() == batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${cache.invalidation.purge-interval-ms:60000}")
+    public void purge() {
+        int purged = cacheInvalidationRepository.deleteCreatedBefore(LocalDateTime.now().minusMinutes(retentionMinutes));
+        if (purged > 0) {
+            log.info("Purged {} cache invalidations", purged);
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Moves lastAppliedId over the contiguous run of IDs just read. An ID
+     * missing from the run may belong to a transaction that has not
+     * committed yet, so the rows after it are read again on the next poll
+     * until the gap fills or is older than gap-timeout-ms.
+     *
+     * @return true when every row read was applied
+     */
+    private boolean advance(List<CacheInvalidation> invalidations) {
+        for (CacheInvalidation invalidation : invalidations) {
+            long id = invalidation.getId();
+
+            if (id != lastAppliedId + 1) {
+                long now = System.currentTimeMillis();
+                if (gapFirstSeen == 0) {
+                    gapFirstSeen = now;
+                }
+                if (now - gapFirstSeen < gapTimeoutMs) {
+                    return false;
+                }
+                log.warn("Skipping cache invalidations {} to {}", lastAppliedId + 1, id - 1);
+            }
+
+            gapFirstSeen = 0;
+            lastAppliedId = id;
+        }
+
+        return true;
+    }
+
+    private void evict(CacheInvalidation invalidation) {
+        Cache cache = cacheManager.getCache(invalidation.getCacheName());
+        if (cache == null) {
+            return;
+        }
+
+        if (invalidation.getCacheKey() == null) {
+            cache.clear();
+        } else {
+            cache.evict(invalidation.getCacheKey());
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * IdempotencyService.java
+ *
+ * Version 1.0.0
+ *
+ * This class makes create requests safe to retry. The first request with
+ * an Idempotency-Key claims the key in the idempotency_keys table, and its
+ * response is stored there and in a local cache. Retries with the same key
+ * get that response back without running the create again, on any node.
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.services;
+
+import activity.dto.ActivityGroupResponse;
+import activity.entity.IdempotencyKey;
+import activity.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.function.Supplier;
+
+@Service
+@Slf4j
+public class IdempotencyService {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    public static final int MAX_KEY_LENGTH = 255;
+    public static final String BAD_REQUEST_KEY_MESSAGE = "Idempotency-Key cannot be longer than " + MAX_KEY_LENGTH + " characters";
+    public static final String KEY_REUSED_MESSAGE = "Idempotency-Key was already used with a different request";
+    public static final String KEY_IN_PROGRESS_MESSAGE = "a request with this Idempotency-Key is still in progress";
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${idempotency.retention-hours:24}")
+    private long retentionHours;
+
+    @Value("${idempotency.cache-size:100000}")
+    private long cacheSize;
+
+    //A first request older than this that never stored its response is taken over by a retry
+    @Value("${idempotency.lease-seconds:60}")
+    private long leaseSeconds;
+
+    private Cache<String, StoredResponse> responses;
+
+    @PostConstruct
+    void init() {
+        responses = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofHours(retentionHours))
+                .build();
+    }
+
+    /**
+     * Runs create once per key. Without a key it just runs it. A retry with
+     * the same request gets the first response, with a different request
+     * 422, and while the first request is still running 409.
+     */
+    public ResponseEntity<ActivityGroupResponse> execute(String key, String endpoint, Object request,
+                                                         Supplier<ResponseEntity<ActivityGroupResponse>> create) {
+        if (key == null) {
+            return create.get();
+        }
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            return error(HttpStatus.BAD_REQUEST, BAD_REQUEST_KEY_MESSAGE);
+        }
+
+        String hash = hash(request);
+        String cacheKey = endpoint + ' ' + key;
+        StoredResponse stored = responses.getIfPresent(cacheKey);
+
+        if (stored == null) {
+            LocalDateTime now = LocalDateTime.now();
+            if (idempotencyKeyRepository.claim(endpoint, key, hash, now) > 0
+                    || idempotencyKeyRepository.claimStale(endpoint, key, hash, now, now.minusSeconds(leaseSeconds)) > 0) {
+                return first(endpoint, key, cacheKey, hash, create);
+            }
+
+            IdempotencyKey existing = idempotencyKeyRepository.findById(new IdempotencyKey.Key(endpoint, key)).orElse(null);
+            if (existing == null || existing.getStatusCode() == null) {
+                //Released or purged right after the claim failed counts as in progress too, the client simply retries
+                return existing == null || hash.equals(existing.getRequestHash())
+                        ? error(HttpStatus.CONFLICT, KEY_IN_PROGRESS_MESSAGE)
+                        : error(HttpStatus.UNPROCESSABLE_ENTITY, KEY_REUSED_MESSAGE);
+            }
+            stored = new StoredResponse(existing.getRequestHash(), existing.getStatusCode(), existing.getResponseBody());
+            responses.put(cacheKey, stored);
+        }
+
+        if (!hash.equals(stored.getRequestHash())) {
+            return error(HttpStatus.UNPROCESSABLE_ENTITY, KEY_REUSED_MESSAGE);
+        }
+        log.info("event=idempotency.replayed endpoint={} status={}", endpoint, stored.getStatusCode());
+        return replay(stored);
+    }
+
+    private ResponseEntity<ActivityGroupResponse> first(String endpoint, String key, String cacheKey, String hash,
+                                                        Supplier<ResponseEntity<ActivityGroupResponse>> create) {
+        ResponseEntity<ActivityGroupResponse> response;
+        try {
+            response = create.get();
+        } catch (RuntimeException e) {
+            idempotencyKeyRepository.release(endpoint, key);
+            throw e;
+        }
+
+        //Server errors are not final, the retry must run the create again
+        if (response.getStatusCode().is5xxServerError()) {
+            idempotencyKeyRepository.release(endpoint, key);
+            return response;
+        }
+
+        try {
+            String body = objectMapper.writeValueAsString(response.getBody());
+            idempotencyKeyRepository.complete(endpoint, key, response.getStatusCodeValue(), body);
+            responses.put(cacheKey, new StoredResponse(hash, response.getStatusCodeValue(), body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not store the response of " + endpoint, e);
+        }
+        return response;
+    }
+
+    private ResponseEntity<ActivityGroupResponse> replay(StoredResponse stored) {
+        try {
+            return ResponseEntity.status(stored.getStatusCode())
+                    .header(IDEMPOTENT_REPLAYED_HEADER, Boolean.TRUE.toString())
+                    .body(objectMapper.readValue(stored.getBody(), ActivityGroupResponse.class));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:60000}")
+    public void purge() {
+        int purged = idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (purged > 0) {
+            log.info("Purged {} idempotency keys", purged);
+        }
+    }
+
+    //Same key with another body is a client bug, so the request is fingerprinted as well
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not fingerprint the request", e);
+        }
+    }
+
+    private static ResponseEntity<ActivityGroupResponse> error(HttpStatus httpStatus, String message) {
+        return new ResponseEntity<>(ActivityGroupResponse.builder()
+                .status(httpStatus.getReasonPhrase())
+                .message(message)
+                .build(), httpStatus);
+    }
+
+    //Kept as the serialized body, a few hundred bytes per key
+    @Getter
+    @AllArgsConstructor
+    private static class StoredResponse {
+        private final String requestHash;
+        private final int statusCode;
+        private final String body;
+    }
+}
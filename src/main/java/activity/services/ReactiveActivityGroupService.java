@@ -0,0 +1,231 @@
+/*
+ * ReactiveActivityGroupService.java
+ *
+ * Version 1.0.0
+ *
+ * This class contains the Activity CRUD of ActivityGroupService for the
+ * reactive profile, on R2DBC with the same validation and responses
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.services;
+
+import activity.dto.ActivityGroupResponse;
+import activity.dto.GeneralRequest;
+import activity.entity.Activity;
+import activity.entity.ActivityGroup;
+import activity.entity.ActivityGroupTombstone;
+import io.r2dbc.spi.Row;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static activity.config.CacheConfig.ACTIVITY_GROUPS_CACHE;
+import static activity.services.ActivityGroupService.BAD_REQUEST_MESSAGE;
+import static activity.services.ActivityGroupService.BAD_REQUEST_STATUS;
+import static activity.services.ActivityGroupService.NOT_FOUND_MESSAGE;
+import static activity.services.ActivityGroupService.NOT_FOUND_STATUS;
+import static activity.services.ActivityGroupService.SUCCESS;
+
+@Service
+@Slf4j
+@Profile("reactive")
+public class ReactiveActivityGroupService {
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private TransactionalOperator reactiveTransactionalOperator;
+
+    @Autowired
+    private ReactiveActivityService reactiveActivityService;
+
+    @Autowired
+    private CacheInvalidationService cacheInvalidationService;
+
+    private static final String SELECT_ACTIVITY_GROUPS = "SELECT id, title, email, created_date, updated_date FROM activities";
+
+    //To-Do Items are looked up with one IN query per this many streamed activities
+    @Value("${activity-group.page.default-size:1000}")
+    private int todoItemsBatchSize;
+
+    /**
+     * Streams the activities of an email, or all of them, in the
+     * (updated_date, id) order the paged servlet endpoint uses.
+     */
+    public Flux<ActivityGroup> findActivityGroups(String email, boolean includeTodoItems) {
+        log.info("event=activity_groups.list by_email={} include_todo_items={} reactive=true",
+                StringUtils.isNotEmpty(email), includeTodoItems);
+
+        DatabaseClient.GenericExecuteSpec select = StringUtils.isNotEmpty(email)
+                ? databaseClient.sql(SELECT_ACTIVITY_GROUPS + " WHERE email = :email ORDER BY updated_date, id").bind("email", email)
+                : databaseClient.sql(SELECT_ACTIVITY_GROUPS + " ORDER BY updated_date, id");
+        Flux<ActivityGroup> activityGroups = select.map(ReactiveActivityGroupService::toActivityGroup).all();
+
+        if (!includeTodoItems) {
+            return activityGroups;
+        }
+
+        return activityGroups.buffer(todoItemsBatchSize).concatMap(batch -> {
+            List<Long> ids = batch.stream().map(ActivityGroup::getId).collect(Collectors.toList());
+            return reactiveActivityService.findTodoItems(ids)
+                    .collect(Collectors.groupingBy(Activity::getActivityGroupId))
+                    .flatMapIterable(todoItems -> withTodoItems(batch, todoItems));
+        });
+    }
+
+    public Mono<ResponseEntity<ActivityGroupResponse>> getActivity(Long id, boolean includeTodoItems) {
+        log.info("event=activity_groups.get id={} include_todo_items={} reactive=true", id, includeTodoItems);
+
+        Mono<ActivityGroup> activityGroup = findById(id);
+        if (includeTodoItems) {
+            activityGroup = activityGroup.flatMap(x -> reactiveActivityService.findTodoItems(id)
+                    .collectList()
+                    .map(todoItems -> {
+                        x.setTodoItems(todoItems);
+                        return x;
+                    }));
+        }
+
+        return activityGroup
+                .map(x -> response(x, SUCCESS, SUCCESS, HttpStatus.OK))
+                .defaultIfEmpty(notFound(id));
+    }
+
+    public Mono<ResponseEntity<ActivityGroupResponse>> createActivity(GeneralRequest request) {
+        log.info("event=activity_groups.create reactive=true");
+
+        if (StringUtils.isEmpty(request.getTitle())) {
+            return Mono.just(response(new ActivityGroup(), BAD_REQUEST_STATUS, BAD_REQUEST_MESSAGE, HttpStatus.BAD_REQUEST));
+        }
+
+        LocalDateTime now  = LocalDateTime.now();
+        ActivityGroup activityGroup = ActivityGroup.builder()
+                .title(request.getTitle())
+                .email(request.getEmail())
+                .createdDate(now)
+                .updatedDate(now)
+                .build();
+
+        DatabaseClient.GenericExecuteSpec insert = databaseClient
+                .sql("INSERT INTO activities (title, email, created_date, updated_date) VALUES (:title, :email, :createdDate, :updatedDate)")
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .bind("title", activityGroup.getTitle())
+                .bind("createdDate", now)
+                .bind("updatedDate", now);
+        insert = activityGroup.getEmail() != null ? insert.bind("email", activityGroup.getEmail()) : insert.bindNull("email", String.class);
+
+        return insert.map(row -> row.get("id", Long.class))
+                .one()
+                .map(id -> {
+                    activityGroup.setId(id);
+                    return response(activityGroup, SUCCESS, SUCCESS, HttpStatus.CREATED);
+                });
+    }
+
+    public Mono<ResponseEntity<ActivityGroupResponse>> updateActivity(GeneralRequest request, Long id) {
+        log.info("event=activity_groups.update id={} reactive=true", id);
+
+        if (request == null || StringUtils.isBlank(request.getTitle())) {
+            return Mono.just(response(ActivityGroup.builder().build(), BAD_REQUEST_STATUS, BAD_REQUEST_MESSAGE, HttpStatus.BAD_REQUEST));
+        }
+
+        //Only the title is written, zero matched rows means the id does not exist
+        return databaseClient.sql("UPDATE activities SET title = :title, updated_date = :now WHERE id = :id")
+                .bind("title", request.getTitle())
+                .bind("now", LocalDateTime.now())
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated()
+                .flatMap(updated -> updated > 0
+                        ? cacheInvalidationService.append(databaseClient, ACTIVITY_GROUPS_CACHE, id)
+                                .then(findById(id))
+                                .map(x -> response(x, SUCCESS, SUCCESS, HttpStatus.OK))
+                        : Mono.just(notFound(id)))
+                .as(reactiveTransactionalOperator::transactional);
+    }
+
+    public Mono<ResponseEntity<ActivityGroupResponse>> deleteActivity(Long id) {
+        log.info("event=activity_groups.delete id={} reactive=true", id);
+
+        return databaseClient.sql("DELETE FROM activities WHERE id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated()
+                .flatMap(deleted -> deleted > 0
+                        ? cacheInvalidationService.append(databaseClient, ACTIVITY_GROUPS_CACHE, id)
+                                .then(tombstone(id))
+                                .map(x -> response(x, SUCCESS, SUCCESS, HttpStatus.OK))
+                        : Mono.just(notFound(id)))
+                .as(reactiveTransactionalOperator::transactional);
+    }
+
+    //The To-Do Items stay behind the tombstone until TodoItemPurger deletes them in batches
+    private Mono<ActivityGroupTombstone> tombstone(Long id) {
+        ActivityGroupTombstone tombstone = ActivityGroupTombstone.builder()
+                .activityGroupId(id)
+                .deletedDate(LocalDateTime.now())
+                .build();
+
+        return databaseClient.sql("INSERT INTO activity_group_tombstones (activity_group_id, deleted_date) VALUES (:id, :deletedDate)")
+                .bind("id", id)
+                .bind("deletedDate", tombstone.getDeletedDate())
+                .fetch()
+                .rowsUpdated()
+                .thenReturn(tombstone);
+    }
+
+    private Mono<ActivityGroup> findById(Long id) {
+        return databaseClient.sql(SELECT_ACTIVITY_GROUPS + " WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveActivityGroupService::toActivityGroup)
+                .one();
+    }
+
+    private static List<ActivityGroup> withTodoItems(List<ActivityGroup> activityGroups, Map<Long, List<Activity>> todoItems) {
+        for (ActivityGroup activityGroup : activityGroups) {
+            activityGroup.setTodoItems(todoItems.getOrDefault(activityGroup.getId(), new ArrayList<>()));
+        }
+        return activityGroups;
+    }
+
+    private static ActivityGroup toActivityGroup(Row row) {
+        return ActivityGroup.builder()
+                .id(row.get("id", Long.class))
+                .title(row.get("title", String.class))
+                .email(row.get("email", String.class))
+                .createdDate(row.get("created_date", LocalDateTime.class))
+                .updatedDate(row.get("updated_date", LocalDateTime.class))
+                .build();
+    }
+
+    private static ResponseEntity<ActivityGroupResponse> notFound(Long id) {
+        return response(ActivityGroup.builder().build(), NOT_FOUND_STATUS,
+                StringUtils.join(NOT_FOUND_MESSAGE, id, StringUtils.SPACE, NOT_FOUND_STATUS), HttpStatus.NOT_FOUND);
+    }
+
+    private static ResponseEntity<ActivityGroupResponse> response(Object data, String status, String message, HttpStatus httpStatus) {
+        return new ResponseEntity<>(ActivityGroupResponse.builder()
+                .data(data)
+                .status(status)
+                .message(message)
+                .build(), httpStatus);
+    }
+}
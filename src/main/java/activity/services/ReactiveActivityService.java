@@ -0,0 +1,278 @@
+/*
+ * ReactiveActivityService.java
+ *
+ * Version 1.0.0
+ *
+ * This class contains the To-Do Items CRUD of ActivityService for the
+ * reactive profile, on R2DBC with the same validation and responses
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.services;
+
+import activity.dto.ActivityGroupResponse;
+import activity.dto.GeneralRequest;
+import activity.dto.TodoItemState;
+import activity.entity.Activity;
+import io.r2dbc.spi.Row;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static activity.config.CacheConfig.TODO_ITEMS_CACHE;
+import static activity.services.ActivityService.BAD_REQUEST_ID_MESSAGE;
+import static activity.services.ActivityService.BAD_REQUEST_MESSAGE;
+import static activity.services.ActivityService.BAD_REQUEST_STATUS;
+import static activity.services.ActivityService.BAD_REQUEST_TITLE_MESSAGE;
+import static activity.services.ActivityService.NOT_FOUND_MESSAGE;
+import static activity.services.ActivityService.NOT_FOUND_STATUS;
+import static activity.services.ActivityService.SUCCESS;
+
+@Service
+@Slf4j
+@Profile("reactive")
+public class ReactiveActivityService {
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private TransactionalOperator reactiveTransactionalOperator;
+
+    @Autowired
+    private CacheInvalidationService cacheInvalidationService;
+
+    @Autowired
+    private TodoCounterService todoCounterService;
+
+    private static final String SELECT_TODO_ITEMS = "SELECT id, activity_group_id, title, is_active, priority, created_date, updated_date FROM todos";
+
+    //Must match the allocationSize of the todos_id generator on Activity
+    private static final long ID_BLOCK_SIZE = 100;
+
+    private final AtomicReference<IdBlock> idBlock = new AtomicReference<>(new IdBlock(new AtomicLong(1), 0));
+
+    /**
+     * Streams the To-Do Items of a group, or all of them when id is null,
+     * reading rows only as fast as the subscriber requests them.
+     */
+    public Flux<Activity> findTodoItems(Long id) {
+        log.info("event=todo_items.list activity_group_id={} reactive=true", id);
+
+        DatabaseClient.GenericExecuteSpec select = id != null
+                ? databaseClient.sql(SELECT_TODO_ITEMS + " WHERE activity_group_id = :id ORDER BY id").bind("id", id)
+                : databaseClient.sql(SELECT_TODO_ITEMS + " ORDER BY id");
+
+        return select.map(ReactiveActivityService::toActivity).all();
+    }
+
+    public Flux<Activity> findTodoItems(Collection<Long> ids) {
+        return databaseClient.sql(SELECT_TODO_ITEMS + " WHERE activity_group_id IN (:ids) ORDER BY id")
+                .bind("ids", ids)
+                .map(ReactiveActivityService::toActivity)
+                .all();
+    }
+
+    public Mono<ResponseEntity<ActivityGroupResponse>> getTodoItems(Long id) {
+        log.info("event=todo_items.get id={} reactive=true", id);
+        return findItemById(id)
+                .map(x -> response(x, SUCCESS, SUCCESS, HttpStatus.OK))
+                .defaultIfEmpty(notFound(id));
+    }
+
+    public Mono<ResponseEntity<ActivityGroupResponse>> createTodoItems(GeneralRequest request) {
+        log.info("event=todo_items.create activity_group_id={} reactive=true", request.getActivityGroupId());
+
+        if (request.getActivityGroupId() == null) {
+            return Mono.just(response(new Activity(), BAD_REQUEST_STATUS, BAD_REQUEST_ID_MESSAGE, HttpStatus.BAD_REQUEST));
+        }
+
+        if (StringUtils.isBlank(request.getTitle())) {
+            return Mono.just(response(new Activity(), BAD_REQUEST_STATUS, BAD_REQUEST_TITLE_MESSAGE, HttpStatus.BAD_REQUEST));
+        }
+
+        LocalDateTime now  = LocalDateTime.now();
+
+        return nextId().flatMap(id -> {
+            Activity activity = Activity.builder()
+                    .id(id)
+                    .activityGroupId(request.getActivityGroupId())
+                    .title(request.getTitle())
+                    .isActive(Boolean.TRUE)
+                    .priority(request.getPriority() != null ? request.getPriority() : "very-high")
+                    .createdDate(now)
+                    .updatedDate(now)
+                    .build();
+
+            return databaseClient.sql("INSERT INTO todos (id, activity_group_id, title, is_active, priority, created_date, updated_date) " +
+                            "VALUES (:id, :activityGroupId, :title, :isActive, :priority, :createdDate, :updatedDate)")
+                    .bind("id", activity.getId())
+                    .bind("activityGroupId", activity.getActivityGroupId())
+                    .bind("title", activity.getTitle())
+                    .bind("isActive", activity.getIsActive())
+                    .bind("priority", activity.getPriority())
+                    .bind("createdDate", activity.getCreatedDate())
+                    .bind("updatedDate", activity.getUpdatedDate())
+                    .fetch()
+                    .rowsUpdated()
+                    .then(todoCounterService.add(databaseClient, stateOf(activity), 1, 1))
+                    .thenReturn(response(activity, SUCCESS, SUCCESS, HttpStatus.CREATED))
+                    .as(reactiveTransactionalOperator::transactional);
+        });
+    }
+
+    public Mono<ResponseEntity<ActivityGroupResponse>> updateTodoItems(GeneralRequest request, Long id) {
+        log.info("event=todo_items.update id={} reactive=true", id);
+
+        if (StringUtils.isBlank(request.getTitle()) && request.getIsActive() == null) {
+            return Mono.just(response(new Activity(), BAD_REQUEST_STATUS, BAD_REQUEST_MESSAGE, HttpStatus.BAD_REQUEST));
+        }
+
+        //Only the changed column is written, zero matched rows means the id does not exist
+        DatabaseClient.GenericExecuteSpec update = request.getIsActive() != null
+                ? databaseClient.sql("UPDATE todos SET is_active = :value, updated_date = :now WHERE id = :id").bind("value", request.getIsActive())
+                : databaseClient.sql("UPDATE todos SET title = :value, updated_date = :now WHERE id = :id").bind("value", request.getTitle());
+
+        //The status counts towards the group counters, so its previous value is read first
+        Mono<Optional<TodoItemState>> before = request.getIsActive() != null
+                ? findStateForUpdate(id).map(Optional::of).defaultIfEmpty(Optional.empty())
+                : Mono.just(Optional.empty());
+
+        return before.flatMap(state -> update.bind("now", LocalDateTime.now())
+                        .bind("id", id)
+                        .fetch()
+                        .rowsUpdated()
+                        .flatMap(updated -> updated > 0
+                                ? cacheInvalidationService.append(databaseClient, TODO_ITEMS_CACHE, id)
+                                        .then(state.map(x -> todoCounterService.add(databaseClient, x, 0,
+                                                TodoCounterService.activeDelta(x, request.getIsActive()))).orElse(Mono.empty()))
+                                        .then(findItemById(id))
+                                        .map(x -> response(x, SUCCESS, SUCCESS, HttpStatus.OK))
+                                : Mono.just(notFound(id))))
+                .as(reactiveTransactionalOperator::transactional);
+    }
+
+    public Mono<ResponseEntity<ActivityGroupResponse>> deleteTodoItems(Long id) {
+        log.info("event=todo_items.delete id={} reactive=true", id);
+
+        return findStateForUpdate(id)
+                .flatMap(state -> databaseClient.sql("DELETE FROM todos WHERE id = :id")
+                        .bind("id", id)
+                        .fetch()
+                        .rowsUpdated()
+                        .flatMap(deleted -> deleted > 0
+                                ? cacheInvalidationService.append(databaseClient, TODO_ITEMS_CACHE, id)
+                                        .then(todoCounterService.add(databaseClient, state, -1, Boolean.TRUE.equals(state.getIsActive()) ? -1 : 0))
+                                        .thenReturn(response(Activity.builder().build(), SUCCESS, SUCCESS, HttpStatus.OK))
+                                : Mono.just(notFound(id))))
+                .defaultIfEmpty(notFound(id))
+                .as(reactiveTransactionalOperator::transactional);
+    }
+
+    private Mono<Activity> findItemById(Long id) {
+        return databaseClient.sql(SELECT_TODO_ITEMS + " WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveActivityService::toActivity)
+                .one();
+    }
+
+    //Locks the row until the transaction of the change commits
+    private Mono<TodoItemState> findStateForUpdate(Long id) {
+        return databaseClient.sql("SELECT activity_group_id, priority, is_active FROM todos WHERE id = :id FOR UPDATE")
+                .bind("id", id)
+                .map(row -> new TodoItemState(row.get("activity_group_id", Long.class), row.get("priority", String.class),
+                        row.get("is_active", Boolean.class)))
+                .one();
+    }
+
+    /**
+     * Hands out ids from blocks claimed on the id_blocks row the JPA
+     * generator uses, with the same pooled meaning: reading v claims v-99..v.
+     */
+    private Mono<Long> nextId() {
+        IdBlock block = idBlock.get();
+        long id = block.next.getAndIncrement();
+        if (id <= block.last) {
+            return Mono.just(id);
+        }
+
+        return claimIdBlock().map(last -> {
+            IdBlock claimed = new IdBlock(new AtomicLong(last - ID_BLOCK_SIZE + 1), last);
+            long first = claimed.next.getAndIncrement();
+            idBlock.set(claimed);
+            return first;
+        });
+    }
+
+    private Mono<Long> claimIdBlock() {
+        Mono<Long> claim = databaseClient.sql("SELECT next_val FROM id_blocks WHERE sequence_name = 'todos' FOR UPDATE")
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .flatMap(value -> databaseClient.sql("UPDATE id_blocks SET next_val = :next WHERE sequence_name = 'todos'")
+                        .bind("next", value + ID_BLOCK_SIZE)
+                        .fetch()
+                        .rowsUpdated()
+                        .thenReturn(value))
+                //First claim on an empty table, as Hibernate does it
+                .switchIfEmpty(databaseClient.sql("INSERT INTO id_blocks (sequence_name, next_val) VALUES ('todos', :next)")
+                        .bind("next", 1 + ID_BLOCK_SIZE)
+                        .fetch()
+                        .rowsUpdated()
+                        .thenReturn(1L))
+                .as(reactiveTransactionalOperator::transactional);
+
+        //A value below one block is the initial one, its block would reach below 1
+        return claim.flatMap(value -> value < ID_BLOCK_SIZE ? claimIdBlock() : Mono.just(value));
+    }
+
+    private static Activity toActivity(Row row) {
+        return Activity.builder()
+                .id(row.get("id", Long.class))
+                .activityGroupId(row.get("activity_group_id", Long.class))
+                .title(row.get("title", String.class))
+                .isActive(row.get("is_active", Boolean.class))
+                .priority(row.get("priority", String.class))
+                .createdDate(row.get("created_date", LocalDateTime.class))
+                .updatedDate(row.get("updated_date", LocalDateTime.class))
+                .build();
+    }
+
+    private static TodoItemState stateOf(Activity activity) {
+        return new TodoItemState(activity.getActivityGroupId(), activity.getPriority(), activity.getIsActive());
+    }
+
+    private static ResponseEntity<ActivityGroupResponse> notFound(Long id) {
+        return response(Activity.builder().build(), NOT_FOUND_STATUS,
+                StringUtils.join(NOT_FOUND_MESSAGE, id, StringUtils.SPACE, NOT_FOUND_STATUS), HttpStatus.NOT_FOUND);
+    }
+
+    private static ResponseEntity<ActivityGroupResponse> response(Object data, String status, String message, HttpStatus httpStatus) {
+        return new ResponseEntity<>(ActivityGroupResponse.builder()
+                .data(data)
+                .status(status)
+                .message(message)
+                .build(), httpStatus);
+    }
+
+    @AllArgsConstructor
+    private static class IdBlock {
+        private final AtomicLong next;
+        private final long last;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * SearchService.java
+ *
+ * Version 1.0.0
+ *
+ * This class contains the title search over To-Do Items and activities.
+ * Searches run on the MySQL FULLTEXT indexes of both title columns (see
+ * db/migration/mysql/V7__title_fulltext.sql) in boolean mode, every word
+ * of the query matching as a prefix, and are ranked by relevance. Every
+ * search is scoped to one activity Group or one Email, which bounds the
+ * rows ranked and returned, not the index work: InnoDB looks every word up
+ * in the FULLTEXT index over the titles of all users and applies the scope
+ * to those matches afterwards, so a word common across the table costs as
+ * much as it is common. search.max-words caps the lookups per query.
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.services;
+
+import activity.config.Bulkhead;
+import activity.dto.ActivityGroupResponse;
+import activity.entity.Activity;
+import activity.entity.ActivityGroup;
+import activity.repository.ActivityGroupRepository;
+import activity.repository.ActivityRepository;
+import activity.util.PageCursor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import static activity.services.ActivityGroupService.BAD_REQUEST_CURSOR_MESSAGE;
+import static activity.services.ActivityGroupService.BAD_REQUEST_LIMIT_MESSAGE;
+import static activity.services.ActivityGroupService.BAD_REQUEST_STATUS;
+import static activity.services.ActivityGroupService.SUCCESS;
+
+@Service
+@Slf4j
+public class SearchService {
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private ActivityGroupRepository activityGroupRepository;
+
+    public static final String BAD_REQUEST_QUERY_MESSAGE = "q must contain a word of at least ";
+    public static final String BAD_REQUEST_TODO_ITEMS_SCOPE_MESSAGE = "activity_group_id or email cannot be null";
+    public static final String BAD_REQUEST_ACTIVITY_GROUPS_SCOPE_MESSAGE = "email cannot be null";
+    public static final String BAD_REQUEST_OFFSET_MESSAGE = "cursor cannot go past result ";
+
+    //Shorter words are not in the index, innodb_ft_min_token_size must not be above this
+    @Value("${search.min-word-length:3}")
+    private int minWordLength;
+
+    //Every word is one more index lookup, the rest of a longer query is ignored
+    @Value("${search.max-words:8}")
+    private int maxWords;
+
+    @Value("${search.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${search.page.max-size:100}")
+    private int maxPageSize;
+
+    //OFFSET re-ranks every skipped row, deeper pages need a narrower query
+    @Value("${search.max-offset:1000}")
+    private int maxOffset;
+
+    /**
+     * Searches To-Do Item titles of one activity Group when id is set, else
+     * of the activities of one Email. One of them is required.
+     */
+    @Bulkhead(Bulkhead.Type.LIST)
+    public ResponseEntity<ActivityGroupResponse> searchTodoItems(String q, Long id, String email, String cursor, Integer limit) {
+        if (id == null && StringUtils.isEmpty(email)) {
+            return badRequest(BAD_REQUEST_TODO_ITEMS_SCOPE_MESSAGE);
+        }
+        ResponseEntity<ActivityGroupResponse> badRequest = validate(q, cursor, limit);
+        if (badRequest != null) {
+            return badRequest;
+        }
+
+        String query = toBooleanQuery(q);
+        int pageSize = limit != null ? limit : defaultPageSize;
+        int offset = StringUtils.isNotEmpty(cursor) ? PageCursor.decodeOffset(cursor) : 0;
+
+        //One extra row tells whether another page exists
+        List<Activity> activities = id != null
+                ? activityRepository.searchByActivityGroupId(id, query, pageSize + 1, offset)
+                : activityRepository.searchByEmail(email, query, pageSize + 1, offset);
+        log.info("event=todo_items.search by_group={} words={} offset={} count={}",
+                id != null, StringUtils.countMatches(query, '+'), offset, activities.size());
+
+        return page(activities, pageSize, offset);
+    }
+
+    //Searches activity titles of one Email
+    @Bulkhead(Bulkhead.Type.LIST)
+    public ResponseEntity<ActivityGroupResponse> searchActivityGroups(String q, String email, String cursor, Integer limit) {
+        if (StringUtils.isEmpty(email)) {
+            return badRequest(BAD_REQUEST_ACTIVITY_GROUPS_SCOPE_MESSAGE);
+        }
+        ResponseEntity<ActivityGroupResponse> badRequest = validate(q, cursor, limit);
+        if (badRequest != null) {
+            return badRequest;
+        }
+
+        String query = toBooleanQuery(q);
+        int pageSize = limit != null ? limit : defaultPageSize;
+        int offset = StringUtils.isNotEmpty(cursor) ? PageCursor.decodeOffset(cursor) : 0;
+
+        List<ActivityGroup> activityGroups = activityGroupRepository.searchByEmail(email, query, pageSize + 1, offset);
+        log.info("event=activity_groups.search words={} offset={} count={}",
+                StringUtils.countMatches(query, '+'), offset, activityGroups.size());
+
+        //The results are managed entities, copies keep their lazy To-Do Items from being loaded
+        return page(activityGroups.stream()
+                .map(x -> ActivityGroupService.copyOf(x, null, null))
+                .collect(Collectors.toList()), pageSize, offset);
+    }
+
+    /**
+     * Turns free text into a FULLTEXT boolean mode query in which every word
+     * is required and matches as a prefix, e.g. "Buy milk!" is "+buy* +milk*".
+     * Boolean operators typed by the user are dropped with the punctuation.
+     *
+     * @return an empty string when no word is long enough to be indexed
+     */
+    public String toBooleanQuery(String q) {
+        StringBuilder query = new StringBuilder();
+        int words = 0;
+
+        for (String word : StringUtils.defaultString(q).toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}_]+")) {
+            if (word.length() < minWordLength || words == maxWords) {
+                continue;
+            }
+            if (query.length() > 0) {
+                query.append(' ');
+            }
+            query.append('+').append(word).append('*');
+            words++;
+        }
+
+        return query.toString();
+    }
+
+    private ResponseEntity<ActivityGroupResponse> validate(String q, String cursor, Integer limit) {
+        if (toBooleanQuery(q).isEmpty()) {
+            return badRequest(StringUtils.join(BAD_REQUEST_QUERY_MESSAGE, minWordLength, " characters"));
+        }
+
+        if (limit != null && (limit < 1 || limit > maxPageSize)) {
+            return badRequest(StringUtils.join(BAD_REQUEST_LIMIT_MESSAGE, maxPageSize));
+        }
+
+        if (StringUtils.isNotEmpty(cursor)) {
+            int offset;
+            try {
+                offset = PageCursor.decodeOffset(cursor);
+            } catch (IllegalArgumentException e) {
+                return badRequest(BAD_REQUEST_CURSOR_MESSAGE);
+            }
+            if (offset > maxOffset) {
+                return badRequest(StringUtils.join(BAD_REQUEST_OFFSET_MESSAGE, maxOffset));
+            }
+        }
+
+        return null;
+    }
+
+    //No next page past search.max-offset
+    private <T> ResponseEntity<ActivityGroupResponse> page(List<T> results, int pageSize, int offset) {
+        String nextCursor = null;
+        if (results.size() > pageSize) {
+            results = results.subList(0, pageSize);
+            if (offset + pageSize <= maxOffset) {
+                nextCursor = PageCursor.encodeOffset(offset + pageSize);
+            }
+        }
+
+        return new ResponseEntity<>(ActivityGroupResponse.builder()
+                .status(SUCCESS)
+                .message(SUCCESS)
+                .data(results)
+                .nextCursor(nextCursor)
+                .build(), HttpStatus.OK);
+    }
+
+    private static ResponseEntity<ActivityGroupResponse> badRequest(String message) {
+        return new ResponseEntity<>(ActivityGroupResponse.builder()
+                .status(BAD_REQUEST_STATUS)
+                .message(message)
+                .data(new ArrayList<>())
+                .build(), HttpStatus.BAD_REQUEST);
+    }
+}
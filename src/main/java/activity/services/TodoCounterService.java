@@ -0,0 +1,154 @@
+/*
+ * TodoCounterService.java
+ *
+ * Version 1.0.0
+ *
+ * This class keeps the per-group To-Do Item counters in step with the
+ * todos table. Every write path adjusts them in its own transaction, so
+ * a summary is a read of a few rows instead of a count over the items.
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.services;
+
+import activity.dto.TodoItemState;
+import activity.dto.TodoSummary;
+import activity.entity.Activity;
+import activity.entity.TodoCounter;
+import activity.repository.TodoCounterRepository;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.CollectionUtils;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+@Service
+public class TodoCounterService {
+
+    @Autowired
+    private TodoCounterRepository todoCounterRepository;
+
+    /**
+     * Counts new To-Do Items, one statement per activity Group and priority.
+     * Must run in the transaction of the insert.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void added(List<Activity> activities) {
+        Map<TodoCounter.Key, long[]> deltas = new HashMap<>();
+        for (Activity activity : activities) {
+            long[] delta = deltas.computeIfAbsent(new TodoCounter.Key(activity.getActivityGroupId(), priorityOf(activity.getPriority())),
+                    x -> new long[2]);
+            delta[0]++;
+            delta[1] += Boolean.TRUE.equals(activity.getIsActive()) ? 1 : 0;
+        }
+
+        deltas.forEach((key, delta) -> todoCounterRepository.add(key.getActivityGroupId(), key.getPriority(), delta[0], delta[1]));
+    }
+
+    //The state must have been read with ActivityRepository.findStateForUpdate in the same transaction
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void statusChanged(TodoItemState before, Boolean isActive) {
+        long active = activeDelta(before, isActive);
+        if (active != 0) {
+            todoCounterRepository.add(before.getActivityGroupId(), priorityOf(before.getPriority()), 0, active);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removed(TodoItemState before) {
+        todoCounterRepository.add(before.getActivityGroupId(), priorityOf(before.getPriority()),
+                -1, Boolean.TRUE.equals(before.getIsActive()) ? -1 : 0);
+    }
+
+    //Bulk changes can move many items between priorities, those groups are counted again
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recount(Collection<Long> activityGroupIds) {
+        if (CollectionUtils.isEmpty(activityGroupIds)) {
+            return;
+        }
+        todoCounterRepository.deleteByActivityGroupIds(activityGroupIds);
+        todoCounterRepository.insertCounts(activityGroupIds);
+    }
+
+    public TodoSummary getSummary(Long activityGroupId) {
+        return toSummary(activityGroupId, todoCounterRepository.findByActivityGroupId(activityGroupId));
+    }
+
+    public Map<Long, TodoSummary> getSummaries(Collection<Long> activityGroupIds) {
+        if (CollectionUtils.isEmpty(activityGroupIds)) {
+            return new HashMap<>();
+        }
+
+        Map<Long, List<TodoCounter>> counters = todoCounterRepository.findByActivityGroupIdIn(activityGroupIds).stream()
+                .collect(Collectors.groupingBy(TodoCounter::getActivityGroupId));
+        Map<Long, TodoSummary> summaries = new HashMap<>();
+        for (Long id : activityGroupIds) {
+            summaries.put(id, toSummary(id, counters.getOrDefault(id, new ArrayList<>())));
+        }
+        return summaries;
+    }
+
+    /**
+     * Same as {@link #added}, {@link #statusChanged} and {@link #removed} for
+     * the reactive stack, one To-Do Item at a time. The returned Mono must be
+     * subscribed inside the R2DBC transaction of the write.
+     */
+    public Mono<Void> add(DatabaseClient databaseClient, TodoItemState item, long total, long active) {
+        if (total == 0 && active == 0) {
+            return Mono.empty();
+        }
+
+        return databaseClient.sql("INSERT INTO todo_counters (activity_group_id, priority, total, active) VALUES (:id, :priority, :total, :active) " +
+                        "ON DUPLICATE KEY UPDATE total = total + :total, active = active + :active")
+                .bind("id", item.getActivityGroupId())
+                .bind("priority", priorityOf(item.getPriority()))
+                .bind("total", total)
+                .bind("active", active)
+                .fetch()
+                .rowsUpdated()
+                .then();
+    }
+
+    public static long activeDelta(TodoItemState before, Boolean isActive) {
+        boolean wasActive = Boolean.TRUE.equals(before.getIsActive());
+        boolean nowActive = Boolean.TRUE.equals(isActive);
+        return wasActive == nowActive ? 0 : (nowActive ? 1 : -1);
+    }
+
+    private static TodoSummary toSummary(Long activityGroupId, List<TodoCounter> counters) {
+        long total = 0;
+        long active = 0;
+        Map<String, Long> priorities = new TreeMap<>();
+
+        for (TodoCounter counter : counters) {
+            total += counter.getTotal();
+            active += counter.getActive();
+            if (StringUtils.isNotEmpty(counter.getPriority()) && counter.getTotal() > 0) {
+                priorities.put(counter.getPriority(), counter.getTotal());
+            }
+        }
+
+        return TodoSummary.builder()
+                .activityGroupId(activityGroupId)
+                .total(total)
+                .active(active)
+                .priorities(priorities)
+                .build();
+    }
+
+    private static String priorityOf(String priority) {
+        return StringUtils.defaultString(priority);
+    }
+}
@@ -0,0 +1,417 @@
+/*
+ * TodoItemImporter.java
+ *
+ * Version 1.0.0
+ *
+ * This class imports To-Do Items from an uploaded .xlsx or .csv file. Rows
+ * are parsed one at a time and inserted in batches, each batch committed
+ * on its own, so neither the file nor the rows are held in memory
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.services;
+
+import activity.dto.ActivityGroupResponse;
+import activity.dto.BulkItemResult;
+import activity.dto.GeneralRequest;
+import activity.dto.ImportResult;
+import activity.entity.Activity;
+import activity.repository.ActivityRepository;
+import activity.util.CsvReader;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.UnsupportedFileFormatException;
+import org.apache.poi.ooxml.POIXMLException;
+import org.apache.poi.ooxml.util.SAXHelper;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static activity.services.ActivityService.BAD_REQUEST_STATUS;
+import static activity.services.ActivityService.SUCCESS;
+import static activity.services.TodoListExporter.TODO_ITEMS_SHEET;
+
+@Service
+@Slf4j
+public class TodoItemImporter {
+    public static final String BAD_REQUEST_FILE_MESSAGE = "file cannot be empty";
+    public static final String BAD_REQUEST_FORMAT_MESSAGE = "file must be .xlsx or .csv";
+    public static final String BAD_REQUEST_HEADER_MESSAGE = "header row must contain a title column";
+    public static final String BAD_REQUEST_READ_MESSAGE = "file could not be read: ";
+    public static final String BAD_REQUEST_GROUP_ID_MESSAGE = "activity_group_id must be a number";
+    public static final String BAD_REQUEST_IS_ACTIVE_MESSAGE = "is_active must be true or false";
+    public static final String INSERT_FAILED_MESSAGE = "row could not be inserted";
+
+    //Header names, matching the columns of the export
+    static final String ACTIVITY_GROUP_ID_COLUMN = "activity_group_id";
+    static final String TITLE_COLUMN = "title";
+    static final String PRIORITY_COLUMN = "priority";
+    static final String IS_ACTIVE_COLUMN = "is_active";
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private TodoCounterService todoCounterService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${todo.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${todo.import.max-errors:1000}")
+    private int maxErrors;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Imports every data row after the header row. Columns are found by
+     * header name, activity_group_id falls back to the parameter when the
+     * column is missing or blank. Rows that break the rules of
+     * createTodoItems are reported and skipped, the rest are inserted.
+     */
+    public ResponseEntity<ActivityGroupResponse> importTodoItems(MultipartFile file, Long activityGroupId) {
+        if (file == null || file.isEmpty()) {
+            return badRequest(BAD_REQUEST_FILE_MESSAGE, null);
+        }
+
+        String name = StringUtils.defaultString(file.getOriginalFilename()).toLowerCase(Locale.ROOT);
+        boolean xlsx = name.endsWith(".xlsx");
+        if (!xlsx && !name.endsWith(".csv")) {
+            return badRequest(BAD_REQUEST_FORMAT_MESSAGE, null);
+        }
+
+        log.info("event=todo_items.import file={} size={} activity_group_id={}", name, file.getSize(), activityGroupId);
+        Import state = new Import(activityGroupId);
+
+        try {
+            if (xlsx) {
+                readXlsx(file, state);
+            } else {
+                readCsv(file, state);
+            }
+            state.flush();
+        } catch (IOException | OpenXML4JException | SAXException | ParserConfigurationException
+                 | UnsupportedFileFormatException | POIXMLException e) {
+            //Not a zip or not a workbook surfaces as one of the unchecked POI exceptions
+            log.warn("event=todo_items.import_failed file={} rows={}", name, state.rows, e);
+            state.flush();
+            return badRequest(BAD_REQUEST_READ_MESSAGE + e.getMessage(), state.result());
+        } catch (MissingTitleColumn e) {
+            return badRequest(BAD_REQUEST_HEADER_MESSAGE, state.result());
+        }
+
+        ImportResult result = state.result();
+        log.info("event=todo_items.imported file={} rows={} imported={} failed={} rows_per_second={}",
+                name, result.getRows(), result.getImported(), result.getFailed(), Math.round(result.getRowsPerSecond()));
+
+        return new ResponseEntity<>(ActivityGroupResponse.builder()
+                .data(result)
+                .status(SUCCESS)
+                .message(SUCCESS)
+                .build(), HttpStatus.CREATED);
+    }
+
+    private void readCsv(MultipartFile file, Import state) throws IOException {
+        try (CsvReader reader = new CsvReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            List<String> record;
+            int rowNumber = 0;
+            while ((record = reader.next()) != null) {
+                state.row(++rowNumber, record);
+            }
+        }
+    }
+
+    //The event API needs the zip on disk, opening it from a stream would unpack every part into memory
+    private void readXlsx(MultipartFile file, Import state)
+            throws IOException, OpenXML4JException, SAXException, ParserConfigurationException {
+        Path path = Files.createTempFile("todo-import", ".xlsx");
+        try {
+            file.transferTo(path);
+            try (OPCPackage pkg = OPCPackage.open(path.toFile(), PackageAccess.READ)) {
+                XSSFReader reader = new XSSFReader(pkg);
+                ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+                XMLReader parser = SAXHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(), strings, new SheetRows(state), false));
+
+                //An exported workbook is read from its To-Do Items sheet, anything else from its first sheet
+                try (InputStream sheet = sheet(reader)) {
+                    parser.parse(new InputSource(sheet));
+                }
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static InputStream sheet(XSSFReader reader) throws IOException, OpenXML4JException {
+        XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+        InputStream first = null;
+        while (sheets.hasNext()) {
+            InputStream sheet = sheets.next();
+            if (TODO_ITEMS_SHEET.equals(sheets.getSheetName())) {
+                if (first != null) {
+                    first.close();
+                }
+                return sheet;
+            }
+            if (first == null) {
+                first = sheet;
+            } else {
+                sheet.close();
+            }
+        }
+        if (first == null) {
+            throw new IOException("workbook has no sheets");
+        }
+        return first;
+    }
+
+    /**
+     * Collects the cells of each row by column, the handler leaves blank
+     * cells out so the list is padded up to the column of each cell.
+     */
+    private static class SheetRows implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final Import state;
+        private final List<String> cells = new ArrayList<>();
+
+        private SheetRows(Import state) {
+            this.state = state;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells.clear();
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            state.row(rowNum + 1, cells);
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : cells.size();
+            while (cells.size() < column) {
+                cells.add(null);
+            }
+            cells.add(formattedValue);
+        }
+    }
+
+    private static class MissingTitleColumn extends RuntimeException {
+        private static final long serialVersionUID = 6086211548541127376L;
+    }
+
+    //State of one import, rows are fed in file order by either reader
+    private class Import {
+        private final Long activityGroupId;
+        private final long start = System.nanoTime();
+        private final LocalDateTime now = LocalDateTime.now();
+        private final List<Activity> batch = new ArrayList<>(batchSize);
+        private final List<Integer> batchRows = new ArrayList<>(batchSize);
+        private final List<BulkItemResult> errors = new ArrayList<>();
+
+        private int groupIdColumn = -1;
+        private int titleColumn = -1;
+        private int priorityColumn = -1;
+        private int isActiveColumn = -1;
+        private boolean headerRead;
+        private long rows;
+        private long imported;
+        private long failed;
+
+        private Import(Long activityGroupId) {
+            this.activityGroupId = activityGroupId;
+        }
+
+        void row(int rowNumber, List<String> cells) {
+            if (!headerRead) {
+                header(cells);
+                return;
+            }
+            if (cells.stream().allMatch(StringUtils::isBlank)) {
+                return;
+            }
+            rows++;
+
+            GeneralRequest item = GeneralRequest.builder()
+                    .title(cell(cells, titleColumn))
+                    .priority(StringUtils.trimToNull(cell(cells, priorityColumn)))
+                    .build();
+
+            String groupId = StringUtils.trimToNull(cell(cells, groupIdColumn));
+            if (groupId == null) {
+                item.setActivityGroupId(activityGroupId);
+            } else {
+                try {
+                    item.setActivityGroupId(Long.valueOf(groupId));
+                } catch (NumberFormatException e) {
+                    error(rowNumber, BAD_REQUEST_GROUP_ID_MESSAGE);
+                    return;
+                }
+            }
+
+            String invalid = ActivityService.validateNewTodoItem(item);
+            if (invalid != null) {
+                error(rowNumber, invalid);
+                return;
+            }
+
+            Activity activity = ActivityService.newTodoItem(item, now);
+            //Migrated lists carry finished items, so is_active is kept when the file has it
+            String isActive = StringUtils.trimToNull(cell(cells, isActiveColumn));
+            if (isActive != null) {
+                Boolean value = parseBoolean(isActive);
+                if (value == null) {
+                    error(rowNumber, BAD_REQUEST_IS_ACTIVE_MESSAGE);
+                    return;
+                }
+                activity.setIsActive(value);
+            }
+
+            batch.add(activity);
+            batchRows.add(rowNumber);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        private void header(List<String> cells) {
+            for (int i = 0; i < cells.size(); i++) {
+                String column = StringUtils.trimToEmpty(cells.get(i)).toLowerCase(Locale.ROOT);
+                if (ACTIVITY_GROUP_ID_COLUMN.equals(column)) {
+                    groupIdColumn = i;
+                } else if (TITLE_COLUMN.equals(column)) {
+                    titleColumn = i;
+                } else if (PRIORITY_COLUMN.equals(column)) {
+                    priorityColumn = i;
+                } else if (IS_ACTIVE_COLUMN.equals(column)) {
+                    isActiveColumn = i;
+                }
+            }
+            if (titleColumn < 0) {
+                throw new MissingTitleColumn();
+            }
+            headerRead = true;
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                imported += insert(batch).size();
+            } catch (RuntimeException e) {
+                //One bad row must not reject the whole batch, so fall back to one insert per row
+                log.warn("Batch insert of {} imported todo items failed, retrying one by one", batch.size(), e);
+                for (int i = 0; i < batch.size(); i++) {
+                    try {
+                        imported += insert(List.of(batch.get(i))).size();
+                    } catch (RuntimeException rowFailure) {
+                        error(batchRows.get(i), INSERT_FAILED_MESSAGE);
+                    }
+                }
+            }
+            batch.clear();
+            batchRows.clear();
+        }
+
+        private void error(int rowNumber, String message) {
+            failed++;
+            //Only the first errors are listed, a broken file must not turn into a huge response
+            if (errors.size() < maxErrors) {
+                errors.add(BulkItemResult.builder().index(rowNumber).status(BAD_REQUEST_STATUS).message(message).build());
+            }
+        }
+
+        ImportResult result() {
+            long elapsedNanos = Math.max(System.nanoTime() - start, 1);
+            return ImportResult.builder()
+                    .rows(rows)
+                    .imported(imported)
+                    .failed(failed)
+                    .elapsedMs(elapsedNanos / 1_000_000)
+                    .rowsPerSecond(rows * 1_000_000_000.0 / elapsedNanos)
+                    .errors(errors)
+                    .build();
+        }
+    }
+
+    //The group counters are updated in the transaction of the insert, one commit per batch
+    private List<Activity> insert(List<Activity> activities) {
+        return transactionTemplate.execute(status -> {
+            List<Activity> saved = activityRepository.saveAll(activities);
+            todoCounterService.added(saved);
+            activityRepository.flush();
+            //The request may hold one persistence context open for its whole length
+            entityManager.clear();
+            return saved;
+        });
+    }
+
+    private static String cell(List<String> cells, int column) {
+        return column >= 0 && column < cells.size() ? cells.get(column) : null;
+    }
+
+    private static Boolean parseBoolean(String value) {
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "true":
+            case "1":
+                return Boolean.TRUE;
+            case "false":
+            case "0":
+                return Boolean.FALSE;
+            default:
+                return null;
+        }
+    }
+
+    private static ResponseEntity<ActivityGroupResponse> badRequest(String message, ImportResult result) {
+        return new ResponseEntity<>(ActivityGroupResponse.builder()
+                .data(result)
+                .status(BAD_REQUEST_STATUS)
+                .message(message)
+                .build(), HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * TodoItemPurger.java
+ *
+ * Version 1.0.0
+ *
+ * This class removes the To-Do Items of deleted activity Groups. A group
+ * delete only removes the group row and leaves a tombstone, this purger
+ * then deletes the items in small batches, each in its own short
+ * transaction, and drops the tombstone with the last one.
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.services;
+
+import activity.entity.ActivityGroupTombstone;
+import activity.repository.ActivityGroupTombstoneRepository;
+import activity.repository.ActivityRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+import static activity.config.CacheConfig.TODO_ITEMS_CACHE;
+
+@Service
+@Slf4j
+public class TodoItemPurger {
+
+    //Tombstones read per run, the batch budget usually runs out first
+    private static final int TOMBSTONES_PER_RUN = 100;
+
+    @Autowired
+    private ActivityGroupTombstoneRepository activityGroupTombstoneRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private TodoCounterService todoCounterService;
+
+    @Autowired
+    private CacheInvalidationService cacheInvalidationService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${todo.purge.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${todo.purge.max-batches:50}")
+    private int maxBatches;
+
+    @Value("${todo.purge.pause-ms:20}")
+    private long pauseMs;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    //Runs on its own scheduler pool thread, one run still stops after max-batches so it yields the connection
+    //pool to requests and the next run carries on
+    @Scheduled(fixedDelayString = "${todo.purge.interval-ms:1000}")
+    public void purge() {
+        purge(maxBatches);
+    }
+
+    /**
+     * Purges the oldest tombstones first, at most maxBatches deletes of
+     * batch-size To-Do Items. Nodes may run this at the same time, a batch
+     * only deletes IDs it has just read and the tombstone is only dropped
+     * once its group has no items left.
+     *
+     * @return the number of To-Do Items deleted
+     */
+    public long purge(int maxBatches) {
+        long purged = 0;
+        int batches = 0;
+
+        for (ActivityGroupTombstone tombstone : activityGroupTombstoneRepository.findOldest(TOMBSTONES_PER_RUN)) {
+            if (batches >= maxBatches) {
+                break;
+            }
+            Long activityGroupId = tombstone.getActivityGroupId();
+            int deleted;
+
+            do {
+                if (batches++ > 0 && !pause()) {
+                    return purged;
+                }
+                deleted = purgeBatch(activityGroupId);
+                purged += deleted;
+            } while (deleted == batchSize && batches < maxBatches);
+
+            //A full last batch means the budget ran out, the group is continued on the next run
+            if (deleted < batchSize) {
+                finish(tombstone);
+            }
+        }
+
+        return purged;
+    }
+
+    private int purgeBatch(Long activityGroupId) {
+        Integer deleted = transactionTemplate.execute(status -> {
+            List<Long> ids = activityRepository.findIdsByActivityGroupId(activityGroupId, batchSize);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+
+            //Other nodes evict exactly the deleted items, the rest of their cache stays warm
+            cacheInvalidationService.appendTodoItems(TODO_ITEMS_CACHE, ids);
+            //The cache is wrapped transaction aware, so these evictions only run after the commit
+            Cache cache = cacheManager.getCache(TODO_ITEMS_CACHE);
+            if (cache != null) {
+                ids.forEach(cache::evict);
+            }
+            return activityRepository.purgeByIds(ids);
+        });
+        return deleted != null ? deleted : 0;
+    }
+
+    //Drops the tombstone unless items were added to the group while it was purged
+    private void finish(ActivityGroupTombstone tombstone) {
+        Long activityGroupId = tombstone.getActivityGroupId();
+        Boolean finished = transactionTemplate.execute(status -> {
+            if (!activityRepository.findIdsByActivityGroupId(activityGroupId, 1).isEmpty()) {
+                return false;
+            }
+
+            //Every item was invalidated by the batch that deleted it
+            todoCounterService.recount(List.of(activityGroupId));
+            activityGroupTombstoneRepository.delete(tombstone);
+            return true;
+        });
+
+        if (Boolean.TRUE.equals(finished)) {
+            log.info("event=activity_groups.purged id={} deleted_at={}", activityGroupId, tombstone.getDeletedDate());
+        }
+    }
+
+    //Gives replicas time to apply the previous batch, false when the thread is stopping
+    private boolean pause() {
+        if (pauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * TodoItemStreamer.java
+ *
+ * Version 1.0.0
+ *
+ * This class writes To-Do Items as newline delimited JSON while they are
+ * read from the database, so memory is bounded by the fetch size
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.services;
+
+import activity.entity.Activity;
+import activity.repository.ActivityRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@Slf4j
+public class TodoItemStreamer {
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Writes one JSON object per line. The result set stays open for the
+     * whole response, so this must run inside the read-only transaction.
+     */
+    @Transactional(readOnly = true)
+    public long stream(Long activityGroupId, OutputStream outputStream) throws IOException {
+        log.info("event=todo_items.stream activity_group_id={}", activityGroupId);
+        //Rows are left in the generator buffer, flushing each one would send a chunk per row
+        ObjectWriter writer = objectMapper.writerFor(Activity.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+
+        try (Stream<Activity> activities = activityGroupId != null
+                ? activityRepository.streamByActivityGroupId(activityGroupId)
+                : activityRepository.streamAll();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream).setRootValueSeparator(null)) {
+
+            Iterator<Activity> iterator = activities.iterator();
+            while (iterator.hasNext()) {
+                Activity activity = iterator.next();
+                writer.writeValue(generator, activity);
+                generator.writeRaw('\n');
+
+                //Detach so the persistence context does not grow with the table
+                entityManager.detach(activity);
+                count++;
+            }
+        }
+
+        log.info("event=todo_items.streamed activity_group_id={} count={}", activityGroupId, count);
+        return count;
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * TodoItemWriteBuffer.java
+ *
+ * Version 1.0.0
+ *
+ * This class collects concurrent To-Do Item inserts for a few milliseconds
+ * and writes them to the database as one JDBC batch
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.services;
+
+import activity.entity.Activity;
+import activity.repository.ActivityRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+@Slf4j
+public class TodoItemWriteBuffer {
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private TodoCounterService todoCounterService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${todo.write-buffer.flush-interval-ms:5}")
+    private long flushIntervalMs;
+
+    @Value("${todo.write-buffer.max-batch-size:50}")
+    private int maxBatchSize;
+
+    @Value("${todo.write-buffer.capacity:10000}")
+    private int capacity;
+
+    @Value("${todo.write-buffer.flushers:2}")
+    private int flushers;
+
+    private BlockingQueue<PendingWrite> queue;
+    private ExecutorService executor;
+    private TransactionTemplate transactionTemplate;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(capacity);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        running = true;
+
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(flushers, runnable -> {
+            Thread thread = new Thread(runnable, "todo-write-buffer-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (int i = 0; i < flushers; i++) {
+            executor.submit(this::flushLoop);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+
+        //Anything still queued is written before the context goes away
+        List<PendingWrite> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+    }
+
+    /**
+     * Queues the item for the next batch and waits until it has been written.
+     * The returned entity carries its generated id.
+     */
+    public Activity save(Activity activity) {
+        PendingWrite pendingWrite = new PendingWrite(activity);
+
+        //When the buffer is full or shutting down the caller writes its own row
+        if (!running || !queue.offer(pendingWrite)) {
+            return insert(activity);
+        }
+
+        //stop() may have drained the queue between the check and the offer, then nobody flushes this write.
+        //If it is still queued it is taken back, otherwise a flush already owns it and completes it.
+        if (!running && queue.remove(pendingWrite)) {
+            return insert(activity);
+        }
+
+        try {
+            return pendingWrite.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void flushLoop() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+
+        while (running) {
+            try {
+                batch.add(queue.take());
+
+                //Give concurrent callers a short window to join the batch
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingWrite next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                queue.drainTo(batch, maxBatchSize - batch.size());
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingWrite> batch) {
+        List<Activity> activities = new ArrayList<>(batch.size());
+        batch.forEach(write -> activities.add(write.activity));
+
+        try {
+            List<Activity> saved = insert(activities);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(saved.get(i));
+            }
+        } catch (RuntimeException e) {
+            //One bad row must not fail the whole batch, so fall back to one insert per caller
+            log.warn("Batch insert of {} todo items failed, retrying one by one", batch.size(), e);
+            for (PendingWrite write : batch) {
+                try {
+                    write.result.complete(insert(write.activity));
+                } catch (RuntimeException single) {
+                    write.result.completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    //The group counters are updated in the transaction of the insert
+    private List<Activity> insert(List<Activity> activities) {
+        return transactionTemplate.execute(status -> {
+            List<Activity> saved = activityRepository.saveAll(activities);
+            todoCounterService.added(saved);
+            return saved;
+        });
+    }
+
+    private Activity insert(Activity activity) {
+        return transactionTemplate.execute(status -> {
+            Activity saved = activityRepository.save(activity);
+            todoCounterService.added(List.of(saved));
+            return saved;
+        });
+    }
+
+    private static final class PendingWrite {
+        private final Activity activity;
+        private final CompletableFuture<Activity> result = new CompletableFuture<>();
+
+        private PendingWrite(Activity activity) {
+            this.activity = activity;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * TodoListExporter.java
+ *
+ * Version 1.0.0
+ *
+ * This class writes activity Groups and their To-Do Items to an .xlsx
+ * workbook while they are read from the database. Only the last rows of
+ * each sheet are kept in memory, older rows are flushed to a temporary file
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.services;
+
+import activity.entity.Activity;
+import activity.entity.ActivityGroup;
+import activity.repository.ActivityGroupRepository;
+import activity.repository.ActivityRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@Slf4j
+public class TodoListExporter {
+    public static final String ACTIVITY_GROUPS_SHEET = "Activity Groups";
+    public static final String TODO_ITEMS_SHEET = "To-Do Items";
+    public static final String[] ACTIVITY_GROUP_COLUMNS = {"id", "title", "email", "created_at", "updated_at"};
+    public static final String[] TODO_ITEM_COLUMNS = {"id", "activity_group_id", "title", "is_active", "priority", "created_at", "updated_at"};
+
+    //Excel stops at 1,048,576 rows per sheet, the header takes one
+    static final int MAX_ROWS_PER_SHEET = 1_048_575;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private ActivityGroupRepository activityGroupRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Value("${export.xlsx.row-window:100}")
+    private int rowWindow;
+
+    /**
+     * Writes one sheet of activity Groups and one of To-Do Items, either of
+     * one Email or of everyone. Both result sets are read forward-only, so
+     * this must run inside the read-only transaction.
+     */
+    @Transactional(readOnly = true)
+    public long export(String email, OutputStream outputStream) throws IOException {
+        log.info("event=todo_list.export email={}", email);
+        SXSSFWorkbook workbook = new SXSSFWorkbook(rowWindow);
+        //The temporary sheet files are gzipped, a 500k item export stays a few MB on disk
+        workbook.setCompressTempFiles(true);
+        long count;
+
+        try {
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+
+            SXSSFSheet groups = header(workbook, ACTIVITY_GROUPS_SHEET, ACTIVITY_GROUP_COLUMNS);
+            try (Stream<ActivityGroup> activityGroups = email != null
+                    ? activityGroupRepository.streamByEmail(email)
+                    : activityGroupRepository.streamAll()) {
+                Iterator<ActivityGroup> iterator = activityGroups.iterator();
+                while (iterator.hasNext() && groups.getLastRowNum() < MAX_ROWS_PER_SHEET) {
+                    ActivityGroup group = iterator.next();
+                    Row row = groups.createRow(groups.getLastRowNum() + 1);
+                    cell(row, 0, group.getId());
+                    cell(row, 1, group.getTitle());
+                    cell(row, 2, group.getEmail());
+                    cell(row, 3, group.getCreatedDate(), dateStyle);
+                    cell(row, 4, group.getUpdatedDate(), dateStyle);
+                    entityManager.detach(group);
+                }
+            }
+
+            SXSSFSheet items = header(workbook, TODO_ITEMS_SHEET, TODO_ITEM_COLUMNS);
+            try (Stream<Activity> activities = email != null
+                    ? activityRepository.streamByEmail(email)
+                    : activityRepository.streamAllOrderByActivityGroupId()) {
+                Iterator<Activity> iterator = activities.iterator();
+                while (iterator.hasNext() && items.getLastRowNum() < MAX_ROWS_PER_SHEET) {
+                    Activity activity = iterator.next();
+                    Row row = items.createRow(items.getLastRowNum() + 1);
+                    cell(row, 0, activity.getId());
+                    cell(row, 1, activity.getActivityGroupId());
+                    cell(row, 2, activity.getTitle());
+                    if (activity.getIsActive() != null) {
+                        row.createCell(3).setCellValue(activity.getIsActive());
+                    }
+                    cell(row, 4, activity.getPriority());
+                    cell(row, 5, activity.getCreatedDate(), dateStyle);
+                    cell(row, 6, activity.getUpdatedDate(), dateStyle);
+                    entityManager.detach(activity);
+                }
+            }
+            count = items.getLastRowNum();
+            if (count >= MAX_ROWS_PER_SHEET || groups.getLastRowNum() >= MAX_ROWS_PER_SHEET) {
+                log.warn("event=todo_list.export_truncated email={} rows={}", email, MAX_ROWS_PER_SHEET);
+            }
+
+            //Zips the flushed sheet files into the response
+            workbook.write(outputStream);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+
+        log.info("event=todo_list.exported email={} count={}", email, count);
+        return count;
+    }
+
+    private static SXSSFSheet header(SXSSFWorkbook workbook, String name, String[] columns) {
+        SXSSFSheet sheet = workbook.createSheet(name);
+        Row row = sheet.createRow(0);
+        for (int i = 0; i < columns.length; i++) {
+            row.createCell(i).setCellValue(columns[i]);
+        }
+        //Freezing the header costs nothing, auto-sizing would need every row in memory
+        sheet.createFreezePane(0, 1);
+        return sheet;
+    }
+
+    private static void cell(Row row, int column, Long value) {
+        if (value != null) {
+            row.createCell(column).setCellValue(value);
+        }
+    }
+
+    private static void cell(Row row, int column, String value) {
+        if (value != null) {
+            row.createCell(column).setCellValue(value);
+        }
+    }
+
+    private static void cell(Row row, int column, LocalDateTime value, CellStyle style) {
+        if (value != null) {
+            Cell cell = row.createCell(column);
+            cell.setCellValue(value);
+            cell.setCellStyle(style);
+        }
+    }
+}
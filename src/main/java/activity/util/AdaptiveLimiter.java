@@ -0,0 +1,101 @@
+/*
+ * AdaptiveLimiter.java
+ *
+ * Version 1.0.0
+ *
+ * This class bounds the requests in flight in one bulkhead. The limit
+ * follows observed latency, AIMD style: it shrinks by a ratio when a
+ * response is slow or fails and grows by one per limit's worth of fast
+ * responses while the bulkhead is busy. Requests over the limit are
+ * refused at once instead of waiting.
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+public class AdaptiveLimiter {
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final LongSupplier nanoClock;
+
+    private double limit;
+    private int inflight;
+    private long rejected;
+    private long lastDecrease;
+
+    public AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit, long latencyThresholdMs, double backoffRatio) {
+        this(name, initialLimit, minLimit, maxLimit, latencyThresholdMs, backoffRatio, System::nanoTime);
+    }
+
+    public AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit, long latencyThresholdMs, double backoffRatio,
+                           LongSupplier nanoClock) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException(name + " limits must satisfy 1 <= min <= initial <= max");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException(name + " backoff ratio must be between 0 and 1");
+        }
+
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs);
+        this.backoffRatio = backoffRatio;
+        this.nanoClock = nanoClock;
+        this.limit = initialLimit;
+        this.lastDecrease = nanoClock.getAsLong() - latencyThresholdNanos;
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (inflight >= (int) limit) {
+            rejected++;
+            return false;
+        }
+        inflight++;
+        return true;
+    }
+
+    /**
+     * Ends a request let in by {@link #tryAcquire()}. The limit shrinks at
+     * most once per latency threshold, so a burst of slow responses caused
+     * by one stall counts as one signal.
+     */
+    public synchronized void release(long elapsedNanos, boolean failed) {
+        boolean busy = inflight * 2 >= limit;
+        inflight--;
+
+        if (failed || elapsedNanos > latencyThresholdNanos) {
+            long now = nanoClock.getAsLong();
+            if (now - lastDecrease >= latencyThresholdNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastDecrease = now;
+            }
+        } else if (busy) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInflight() {
+        return inflight;
+    }
+
+    public synchronized long getRejected() {
+        return rejected;
+    }
+}
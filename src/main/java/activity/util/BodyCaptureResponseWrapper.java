@@ -0,0 +1,135 @@
+/*
+ * BodyCaptureResponseWrapper.java
+ *
+ * Version 1.0.0
+ *
+ * This class writes the response straight through to the client and keeps
+ * a copy of at most the first maxBytes bytes for logging
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.util;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+public class BodyCaptureResponseWrapper extends HttpServletResponseWrapper {
+
+    private final int maxBytes;
+    private final ByteArrayOutputStream captured;
+
+    private long contentSize;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    public BodyCaptureResponseWrapper(HttpServletResponse response, int maxBytes) {
+        super(response);
+        this.maxBytes = maxBytes;
+        this.captured = new ByteArrayOutputStream(Math.min(maxBytes, 1024));
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new CaptureOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        super.flushBuffer();
+    }
+
+    /**
+     * Pushes anything still held by the writer to the client. Called once the
+     * filter chain has returned, since the container only flushes its own writer.
+     */
+    public void finish() {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    public byte[] getCapturedBody() {
+        return captured.toByteArray();
+    }
+
+    public long getContentSize() {
+        return contentSize;
+    }
+
+    public boolean isTruncated() {
+        return contentSize > captured.size();
+    }
+
+    private void capture(byte[] bytes, int offset, int length) {
+        int room = maxBytes - captured.size();
+        if (room > 0) {
+            captured.write(bytes, offset, Math.min(room, length));
+        }
+        contentSize += length;
+    }
+
+    private class CaptureOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+
+        private CaptureOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            if (captured.size() < maxBytes) {
+                captured.write(b);
+            }
+            contentSize++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            capture(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
@@ -2,112 +2,152 @@ package activity.util;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.web.util.ContentCachingRequestWrapper;
-import org.springframework.web.util.ContentCachingResponseWrapper;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Component
 public class ControllerRequestResponseLogger extends OncePerRequestFilter {
 
     private final Logger log = LoggerFactory.getLogger(this.getClass());
 
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+
+    @Value("${http.capture.enabled:false}")
+    private boolean enabled;
+
+    //Fraction of matching requests that are captured, from 0.0 to 1.0
+    @Value("${http.capture.sample-rate:1.0}")
+    private double sampleRate;
+
+    //Bytes of each request and response body kept for the log, the rest is only counted
+    @Value("${http.capture.max-body-bytes:4096}")
+    private int maxBodyBytes;
+
+    @Value("${http.capture.include-paths:}")
+    private String[] includePaths;
+
+    @Value("${http.capture.exclude-paths:}")
+    private String[] excludePaths;
+
     @Override
     protected void doFilterInternal(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse, FilterChain filterChain) throws ServletException, IOException {
-        if (isAsyncDispatch(httpServletRequest)) {
-            filterChain.doFilter(httpServletRequest, httpServletResponse);
+        //Requests that are not captured go through untouched, nothing is wrapped or buffered
+        if (shouldCapture(httpServletRequest)) {
+            doFilterWrapped(new ContentCachingRequestWrapper(httpServletRequest, maxBodyBytes),
+                    new BodyCaptureResponseWrapper(httpServletResponse, maxBodyBytes), filterChain);
         } else {
-            doFilterWrapped(wrapRequest(httpServletRequest), wrapResponse(httpServletResponse), filterChain);
+            filterChain.doFilter(httpServletRequest, httpServletResponse);
         }
     }
 
-    protected void doFilterWrapped(ContentCachingRequestWrapper httpServletRequest, ContentCachingResponseWrapper httpServletResponse, FilterChain filterChain) throws IOException, ServletException {
-        try {
-            filterChain.doFilter(httpServletRequest, httpServletResponse);
-        } finally {
-            afterRequest(httpServletRequest, httpServletResponse);
-            httpServletResponse.copyBodyToResponse();
+    protected boolean shouldCapture(HttpServletRequest request) {
+        if (!enabled || !log.isDebugEnabled() || isAsyncDispatch(request) || isStreamingRequest(request)) {
+            return false;
         }
-    }
 
-    protected void afterRequest(ContentCachingRequestWrapper request, ContentCachingResponseWrapper response) throws IOException {
-        if (log.isInfoEnabled()) {
-            logRequest(request, request.getContentAsByteArray());
-            logResponse(response);
+        String path = request.getRequestURI();
+        if (includePaths.length > 0 && !matchesAny(includePaths, path)) {
+            return false;
         }
+        if (matchesAny(excludePaths, path)) {
+            return false;
+        }
+
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
     }
 
-    private void logRequest(ContentCachingRequestWrapper request, byte[] body) throws IOException {
-        if (log.isDebugEnabled()) {
-            StringBuilder stringBuilder = new StringBuilder();
-            stringBuilder.append('\n').append("===========================request begin================================================").append('\n');
-            stringBuilder.append("URI         : {").append(request.getRequestURI()).append("}\n");
-            stringBuilder.append("Method      : {").append(request.getMethod()).append("}\n");
-            stringBuilder.append("Headers     : {");
-            for (String headerName : Collections.list(request.getHeaderNames())) {
-                stringBuilder.append("{");
-                stringBuilder.append(headerName);
-                stringBuilder.append("=[");
-                stringBuilder.append(request.getHeader(headerName));
-                stringBuilder.append("]}");
+    private boolean matchesAny(String[] patterns, String path) {
+        for (String pattern : patterns) {
+            if (pathMatcher.match(pattern.trim(), path)) {
+                return true;
             }
-            stringBuilder.append("}");
-            stringBuilder.append('\n');
-            stringBuilder.append("Request body: {").append(new String(body, "UTF-8")).append("}\n");
-            stringBuilder.append("==========================request end================================================");
-            log.debug(stringBuilder.toString());
         }
+        return false;
     }
 
-    private void logResponse(ContentCachingResponseWrapper response) throws UnsupportedEncodingException {
-        if (log.isDebugEnabled()) {
-            StringBuilder stringBuilder = new StringBuilder();
-            stringBuilder.append('\n').append("============================response begin==========================================").append('\n');
-            stringBuilder.append("Status code  : {").append(response.getStatusCode()).append("}\n");
-            stringBuilder.append("Headers     : {");
-            for (String headerName : response.getHeaderNames()) {
-                stringBuilder.append("{");
-                stringBuilder.append(headerName);
-                stringBuilder.append("=[");
-                stringBuilder.append(response.getHeader(headerName));
-                stringBuilder.append("]}");
-            }
-            stringBuilder.append("}").append('\n');
+    private static boolean isStreamingRequest(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE);
+    }
 
-            if (response.getContentSize() > 0) {
-                String contentType=response.getContentType();
-                if(MediaType.APPLICATION_JSON_VALUE.equals(contentType) || MediaType.APPLICATION_JSON_UTF8_VALUE.equals(contentType) || MediaType.APPLICATION_XML_VALUE.equals(contentType)) {
-                    stringBuilder.append("Response body: {").append(new String(response.getContentAsByteArray(), "UTF-8")).append("}\n");
-                }
-            }
-            stringBuilder.append("=======================response end=================================================");
-            log.debug(stringBuilder.toString());
+    protected void doFilterWrapped(ContentCachingRequestWrapper httpServletRequest, BodyCaptureResponseWrapper httpServletResponse, FilterChain filterChain) throws IOException, ServletException {
+        try {
+            filterChain.doFilter(httpServletRequest, httpServletResponse);
+        } finally {
+            httpServletResponse.finish();
+            afterRequest(httpServletRequest, httpServletResponse);
         }
     }
 
-    private static ContentCachingRequestWrapper wrapRequest(HttpServletRequest request) {
-        if (request instanceof ContentCachingRequestWrapper) {
-            return (ContentCachingRequestWrapper) request;
-        } else {
-            return new ContentCachingRequestWrapper(request);
+    protected void afterRequest(ContentCachingRequestWrapper request, BodyCaptureResponseWrapper response) {
+        logRequest(request, request.getContentAsByteArray());
+        logResponse(response);
+    }
+
+    private void logRequest(ContentCachingRequestWrapper request, byte[] body) {
+        StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append('\n').append("===========================request begin================================================").append('\n');
+        stringBuilder.append("URI         : {").append(request.getRequestURI()).append("}\n");
+        stringBuilder.append("Method      : {").append(request.getMethod()).append("}\n");
+        stringBuilder.append("Headers     : {");
+        for (String headerName : Collections.list(request.getHeaderNames())) {
+            stringBuilder.append("{");
+            stringBuilder.append(headerName);
+            stringBuilder.append("=[");
+            stringBuilder.append(request.getHeader(headerName));
+            stringBuilder.append("]}");
+        }
+        stringBuilder.append("}");
+        stringBuilder.append('\n');
+        stringBuilder.append("Request body: {").append(new String(body, StandardCharsets.UTF_8));
+        if (request.getContentLengthLong() > body.length) {
+            stringBuilder.append("... (").append(request.getContentLengthLong()).append(" bytes)");
         }
+        stringBuilder.append("}\n");
+        stringBuilder.append("==========================request end================================================");
+        log.debug(stringBuilder.toString());
     }
 
-    private static ContentCachingResponseWrapper wrapResponse(HttpServletResponse response) {
-        if (response instanceof ContentCachingResponseWrapper) {
-            return (ContentCachingResponseWrapper) response;
-        } else {
-            return new ContentCachingResponseWrapper(response);
+    private void logResponse(BodyCaptureResponseWrapper response) {
+        StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append('\n').append("============================response begin==========================================").append('\n');
+        stringBuilder.append("Status code  : {").append(response.getStatus()).append("}\n");
+        stringBuilder.append("Headers     : {");
+        for (String headerName : response.getHeaderNames()) {
+            stringBuilder.append("{");
+            stringBuilder.append(headerName);
+            stringBuilder.append("=[");
+            stringBuilder.append(response.getHeader(headerName));
+            stringBuilder.append("]}");
+        }
+        stringBuilder.append("}").append('\n');
+
+        if (response.getContentSize() > 0) {
+            String contentType = response.getContentType();
+            if (contentType != null && (contentType.startsWith(MediaType.APPLICATION_JSON_VALUE) || contentType.startsWith(MediaType.APPLICATION_XML_VALUE))) {
+                stringBuilder.append("Response body: {").append(new String(response.getCapturedBody(), StandardCharsets.UTF_8));
+                if (response.isTruncated()) {
+                    stringBuilder.append("... (").append(response.getContentSize()).append(" bytes)");
+                }
+                stringBuilder.append("}\n");
+            }
         }
+        stringBuilder.append("=======================response end=================================================");
+        log.debug(stringBuilder.toString());
     }
 }
-
@@ -0,0 +1,91 @@
+/*
+ * DataSourceRouting.java
+ *
+ * Version 1.0.0
+ *
+ * This class holds the routing state of the current thread: whether the
+ * statements run now may read a replica, and which replica the current
+ * request already reads, so a version check and the body it guards see
+ * the same copy of the data
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.util;
+
+public final class DataSourceRouting {
+
+    private static final ThreadLocal<State> STATE = new ThreadLocal<>();
+
+    private DataSourceRouting() {
+    }
+
+    //Around a whole request, pinned requests read the primary only
+    public static void beginRequest(boolean pinnedToPrimary) {
+        State state = new State();
+        state.request = true;
+        state.pinned = pinnedToPrimary;
+        STATE.set(state);
+    }
+
+    public static void endRequest() {
+        STATE.remove();
+    }
+
+    public static void enterReplicaRead() {
+        state().replicaReads++;
+    }
+
+    public static void exitReplicaRead() {
+        State state = STATE.get();
+        if (state != null && --state.replicaReads == 0 && !state.request) {
+            STATE.remove();
+        }
+    }
+
+    //Around statements that must see the primary even inside a replica read
+    public static void enterPrimaryRead() {
+        state().primaryReads++;
+    }
+
+    public static void exitPrimaryRead() {
+        State state = STATE.get();
+        if (state != null) {
+            state.primaryReads--;
+        }
+    }
+
+    public static boolean isReplicaRead() {
+        State state = STATE.get();
+        return state != null && state.replicaReads > 0 && state.primaryReads == 0 && !state.pinned;
+    }
+
+    public static String getReplica() {
+        State state = STATE.get();
+        return state != null ? state.replica : null;
+    }
+
+    public static void setReplica(String replica) {
+        State state = STATE.get();
+        if (state != null) {
+            state.replica = replica;
+        }
+    }
+
+    private static State state() {
+        State state = STATE.get();
+        if (state == null) {
+            state = new State();
+            STATE.set(state);
+        }
+        return state;
+    }
+
+    private static class State {
+        private boolean request;
+        private boolean pinned;
+        private int replicaReads;
+        private int primaryReads;
+        private String replica;
+    }
+}
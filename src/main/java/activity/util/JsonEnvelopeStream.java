@@ -0,0 +1,74 @@
+/*
+ * JsonEnvelopeStream.java
+ *
+ * Version 1.0.0
+ *
+ * This class writes a Flux of rows as the usual ActivityGroupResponse
+ * envelope, one buffer per row, so a list is never held in memory whole
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.util;
+
+import activity.dto.ActivityGroupResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+public class JsonEnvelopeStream {
+
+    private static final String EMPTY_DATA = "[]";
+    private static final byte SEPARATOR = ',';
+
+    private JsonEnvelopeStream() {
+    }
+
+    /**
+     * @return {"status":status,"message":message,"data":[rows...]} as it is
+     * written, rows are requested from the source as the client reads
+     */
+    public static Flux<DataBuffer> of(String status, String message, Flux<?> rows,
+                                      ObjectMapper objectMapper, DataBufferFactory bufferFactory) {
+        //The envelope around data is whatever the ObjectMapper writes for an empty list
+        String empty = write(objectMapper, ActivityGroupResponse.builder()
+                .status(status)
+                .message(message)
+                .data(Collections.emptyList())
+                .build());
+        int data = empty.lastIndexOf(EMPTY_DATA) + 1;
+        byte[] prefix = empty.substring(0, data).getBytes(StandardCharsets.UTF_8);
+        byte[] suffix = empty.substring(data).getBytes(StandardCharsets.UTF_8);
+
+        Flux<DataBuffer> body = rows.index().map(row -> {
+            byte[] json = writeBytes(objectMapper, row.getT2());
+            DataBuffer buffer = bufferFactory.allocateBuffer(json.length + 1);
+            if (row.getT1() > 0) {
+                buffer.write(SEPARATOR);
+            }
+            return buffer.write(json);
+        });
+
+        return Flux.concat(Mono.fromSupplier(() -> bufferFactory.wrap(prefix)), body,
+                Mono.fromSupplier(() -> bufferFactory.wrap(suffix)));
+    }
+
+    private static String write(ObjectMapper objectMapper, Object value) {
+        return new String(writeBytes(objectMapper, value), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] writeBytes(ObjectMapper objectMapper, Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * OverloadedException.java
+ *
+ * Version 1.0.0
+ *
+ * This exception is thrown when a bulkhead is full, the request is answered
+ * with 503 and a Retry-After header
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.util;
+
+public class OverloadedException extends RuntimeException {
+
+    private static final long serialVersionUID = -2312079412517795862L;
+
+    private final String bulkhead;
+    private final int retryAfterSeconds;
+
+    public OverloadedException(String bulkhead, int retryAfterSeconds) {
+        super("Too many " + bulkhead + " requests in flight");
+        this.bulkhead = bulkhead;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getBulkhead() {
+        return bulkhead;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * QueryCounter.java
+ *
+ * Version 1.0.0
+ *
+ * This class counts the SQL statements Hibernate prepares on the current
+ * thread, so the number of queries behind each request can be recorded
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.util;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+public class QueryCounter implements StatementInspector {
+
+    private static final long serialVersionUID = 5370913286532715224L;
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    //Hibernate creates this class from hibernate.session_factory.statement_inspector
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static int get() {
+        return COUNT.get()[0];
+    }
+
+    public static void clear() {
+        COUNT.remove();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * ReplicaRoutingDataSource.java
+ *
+ * Version 1.0.0
+ *
+ * This class sends the connections of replica reads to one of the replica
+ * pools, round robin per request, and every other connection to the primary
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.util;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica-";
+
+    private final Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+    private final List<String> replicas = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicaPools) {
+        pools.put(PRIMARY, primary);
+        for (int i = 0; i < replicaPools.size(); i++) {
+            String key = REPLICA + (i + 1);
+            pools.put(key, replicaPools.get(i));
+            replicas.add(key);
+        }
+
+        setTargetDataSources(new LinkedHashMap<>(pools));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicas.isEmpty() || !DataSourceRouting.isReplicaRead()) {
+            return PRIMARY;
+        }
+
+        String replica = DataSourceRouting.getReplica();
+        if (replica == null) {
+            replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            DataSourceRouting.setReplica(replica);
+        }
+        return replica;
+    }
+
+    //Primary first, then the replicas in configuration order
+    public Map<String, HikariDataSource> getPools() {
+        return Collections.unmodifiableMap(pools);
+    }
+
+    @Override
+    public void close() {
+        pools.values().forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * ReplicaRoutingFilter.java
+ *
+ * Version 1.0.0
+ *
+ * This class opens the routing scope of each request. A write sets a
+ * cookie that keeps the reads of the same client on the primary for a
+ * short window, so it reads its own writes while the replicas catch up.
+ *
+ * Created by Muhammad Isro Prihandoyo
+ */
+
+package activity.util;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+public class ReplicaRoutingFilter extends OncePerRequestFilter {
+
+    public static final String READ_PRIMARY_UNTIL_COOKIE = "read_primary_until";
+
+    private final long readYourWritesMs;
+
+    public ReplicaRoutingFilter(long readYourWritesMs) {
+        this.readYourWritesMs = readYourWritesMs;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        boolean pinned;
+
+        if (isRead(request)) {
+            pinned = readPrimaryUntil(request) > now;
+        } else {
+            //Set before the body is written, failed writes pin the client as well
+            Cookie cookie = new Cookie(READ_PRIMARY_UNTIL_COOKIE, String.valueOf(now + readYourWritesMs));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, (readYourWritesMs + 999) / 1000));
+            response.addCookie(cookie);
+            pinned = true;
+        }
+
+        DataSourceRouting.beginRequest(pinned);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            DataSourceRouting.endRequest();
+        }
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        return HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+    }
+
+    private static long readPrimaryUntil(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return 0;
+        }
+
+        for (Cookie cookie : request.getCookies()) {
+            if (READ_PRIMARY_UNTIL_COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
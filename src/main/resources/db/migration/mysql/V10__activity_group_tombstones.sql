@@ -0,0 +1,13 @@
+-- Deleted activity Groups whose To-Do Items are still being purged in batches
+-- (see TodoItemPurger.java). The row goes away with the last item of the group.
+CREATE TABLE IF NOT EXISTS activity_group_tombstones (
+    ACTIVITY_GROUP_ID BIGINT      NOT NULL PRIMARY KEY,
+    DELETED_DATE      DATETIME(6) NOT NULL,
+    INDEX idx_activity_group_tombstones_deleted (DELETED_DATE)
+);
+
+-- One-time sweep of the To-Do Items orphaned by group deletes before the purger
+-- existed. Only the tombstones are written here, the purger removes the rows.
+INSERT IGNORE INTO activity_group_tombstones (ACTIVITY_GROUP_ID, DELETED_DATE)
+SELECT DISTINCT t.ACTIVITY_GROUP_ID, NOW(6) FROM todos t
+WHERE NOT EXISTS (SELECT 1 FROM activities a WHERE a.ID = t.ACTIVITY_GROUP_ID);
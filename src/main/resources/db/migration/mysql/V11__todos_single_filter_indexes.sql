@@ -0,0 +1,5 @@
+-- Filtered GET /todo-items on status alone or priority alone (see ActivityRepositoryImpl.java).
+-- In idx_todos_group_active_priority_updated the unfiltered column sits between the equality
+-- and UPDATED_DATE, so MySQL would sort the rows. These keep the equality columns leading.
+CREATE INDEX idx_todos_group_active_updated ON todos (ACTIVITY_GROUP_ID, IS_ACTIVE, UPDATED_DATE);
+CREATE INDEX idx_todos_group_priority_updated ON todos (ACTIVITY_GROUP_ID, PRIORITY, UPDATED_DATE);
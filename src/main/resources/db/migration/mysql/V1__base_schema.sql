@@ -0,0 +1,20 @@
+-- Tables of Activity.java and ActivityGroup.java as they were before migrations
+-- were versioned. Databases that already have them are baselined at this version
+-- (spring.flyway.baseline-on-migrate), so this only runs on an empty schema.
+CREATE TABLE IF NOT EXISTS activities (
+    ID           BIGINT       NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    TITLE        VARCHAR(200) NOT NULL,
+    CREATED_DATE DATETIME(6)  NOT NULL,
+    UPDATED_DATE DATETIME(6),
+    EMAIL        VARCHAR(200)
+);
+
+CREATE TABLE IF NOT EXISTS todos (
+    ID                BIGINT       NOT NULL PRIMARY KEY,
+    ACTIVITY_GROUP_ID BIGINT       NOT NULL,
+    TITLE             VARCHAR(200) NOT NULL,
+    IS_ACTIVE         BIT(1),
+    PRIORITY          VARCHAR(20),
+    CREATED_DATE      DATETIME(6)  NOT NULL,
+    UPDATED_DATE      DATETIME(6)
+);
@@ -0,0 +1,12 @@
+-- Block allocator for todos.ID (see Activity.java).
+-- Hibernate's pooled optimizer treats NEXT_VAL as the top of the next block: reading v
+-- hands out v-99..v. Seeding MAX(ID) + allocationSize keeps the first block above the
+-- existing rows.
+CREATE TABLE IF NOT EXISTS id_blocks (
+    SEQUENCE_NAME VARCHAR(64) NOT NULL PRIMARY KEY,
+    NEXT_VAL      BIGINT      NOT NULL
+);
+
+INSERT INTO id_blocks (SEQUENCE_NAME, NEXT_VAL)
+SELECT 'todos', COALESCE(MAX(ID), 0) + 100 FROM todos
+ON DUPLICATE KEY UPDATE NEXT_VAL = GREATEST(NEXT_VAL, VALUES(NEXT_VAL));
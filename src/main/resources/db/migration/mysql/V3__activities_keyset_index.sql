@@ -0,0 +1,6 @@
+-- Keyset pagination for GET /activity-groups orders by (updated_date, id).
+-- Every write path sets updated_date, backfill the rows that predate that.
+UPDATE activities SET UPDATED_DATE = CREATED_DATE WHERE UPDATED_DATE IS NULL;
+
+CREATE INDEX idx_activities_email_updated ON activities (EMAIL, UPDATED_DATE, ID);
+CREATE INDEX idx_activities_updated ON activities (UPDATED_DATE, ID);
@@ -0,0 +1,10 @@
+-- Change log tailed by every node to evict cache entries written on other nodes
+-- (see CacheInvalidationService.java).
+CREATE TABLE IF NOT EXISTS cache_invalidations (
+    ID           BIGINT       NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    CACHE_NAME   VARCHAR(64)  NOT NULL,
+    CACHE_KEY    BIGINT,
+    NODE_ID      VARCHAR(36)  NOT NULL,
+    CREATED_DATE DATETIME(6)  NOT NULL,
+    INDEX idx_cache_invalidations_created (CREATED_DATE)
+);
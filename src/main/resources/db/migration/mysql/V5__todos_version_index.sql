@@ -0,0 +1,3 @@
+-- ETag of GET /todo-items?activity_group_id= and /activity-groups/{id} is an
+-- aggregate over this index (InnoDB secondary indexes already carry ID).
+CREATE INDEX idx_todos_group_updated ON todos (ACTIVITY_GROUP_ID, UPDATED_DATE);
@@ -0,0 +1,14 @@
+-- Per-group To-Do Item counters kept by every write path (see TodoCounterService.java).
+-- Items without a priority are counted under ''.
+CREATE TABLE IF NOT EXISTS todo_counters (
+    ACTIVITY_GROUP_ID BIGINT      NOT NULL,
+    PRIORITY          VARCHAR(20) NOT NULL,
+    TOTAL             BIGINT      NOT NULL,
+    ACTIVE            BIGINT      NOT NULL,
+    PRIMARY KEY (ACTIVITY_GROUP_ID, PRIORITY)
+);
+
+-- Counts the existing rows; running this statement again by hand recounts every group.
+REPLACE INTO todo_counters (ACTIVITY_GROUP_ID, PRIORITY, TOTAL, ACTIVE)
+SELECT ACTIVITY_GROUP_ID, COALESCE(PRIORITY, ''), COUNT(*), SUM(CASE WHEN IS_ACTIVE THEN 1 ELSE 0 END)
+FROM todos GROUP BY ACTIVITY_GROUP_ID, COALESCE(PRIORITY, '');
@@ -0,0 +1,5 @@
+-- Title search (see SearchService.java) runs MATCH ... AGAINST in boolean mode on these.
+-- Words shorter than innodb_ft_min_token_size (default 3) are not indexed, keep
+-- search.min-word-length at or above it. Building each index rewrites its table.
+CREATE FULLTEXT INDEX ft_todos_title ON todos (TITLE);
+CREATE FULLTEXT INDEX ft_activities_title ON activities (TITLE);
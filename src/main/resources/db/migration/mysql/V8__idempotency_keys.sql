@@ -0,0 +1,12 @@
+-- Responses of create requests sent with an Idempotency-Key header, replayed on retries
+-- (see IdempotencyService.java). STATUS_CODE is NULL while the first request is running.
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    ENDPOINT        VARCHAR(64)  NOT NULL,
+    IDEMPOTENCY_KEY VARCHAR(255) NOT NULL,
+    REQUEST_HASH    VARCHAR(64)  NOT NULL,
+    STATUS_CODE     INT,
+    RESPONSE_BODY   LONGTEXT,
+    CREATED_DATE    DATETIME(6)  NOT NULL,
+    PRIMARY KEY (ENDPOINT, IDEMPOTENCY_KEY),
+    INDEX idx_idempotency_keys_created (CREATED_DATE)
+);
@@ -0,0 +1,4 @@
+-- Filtered GET /todo-items (see ActivityRepositoryImpl.java): equality on group, status
+-- and priority, then range and order on UPDATED_DATE. InnoDB appends ID, which is the
+-- tie-breaker of the sort. Filters on the group alone use idx_todos_group_updated.
+CREATE INDEX idx_todos_group_active_priority_updated ON todos (ACTIVITY_GROUP_ID, IS_ACTIVE, PRIORITY, UPDATED_DATE);
@@ -0,0 +1,130 @@
+package config;
+
+import activity.config.AdmissionControlConfig.AdmissionControlAspect;
+import activity.config.Bulkhead;
+import activity.util.AdaptiveLimiter;
+import activity.util.OverloadedException;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdmissionControlConfigTest {
+
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch finish = new CountDownLatch(1);
+
+    private AdmissionControlAspect aspect;
+
+    @Test
+    void givenFullListBulkhead_whenCalled_thenListRejectedAndReadsAdmitted() throws Exception {
+        Repository repository = proxy(1);
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(repository::list);
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        OverloadedException e = assertThrows(OverloadedException.class, repository::list);
+        assertEquals("list", e.getBulkhead());
+        assertEquals(3, e.getRetryAfterSeconds());
+        assertEquals("read", repository.read());
+
+        finish.countDown();
+        assertEquals("list", running.get(5, TimeUnit.SECONDS));
+        assertEquals("list", repository.list());
+    }
+
+    @Test
+    void givenFullWriteBulkhead_whenBufferedCreateCalled_thenAdmitted() throws Exception {
+        Repository repository = proxy(1);
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(repository::update);
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        assertThrows(OverloadedException.class, repository::update);
+        //Creates waiting for a batch are counted against their own limit, not the one of the writes
+        assertEquals("create", repository.create());
+
+        finish.countDown();
+        assertEquals("update", running.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void givenDatabaseFailure_whenCalled_thenLimitShrinksAndPermitReturned() {
+        Repository repository = proxy(10);
+        AdaptiveLimiter limiter = aspect.getLimiter(Bulkhead.Type.WRITE);
+
+        assertThrows(QueryTimeoutException.class, repository::write);
+        assertEquals(9, limiter.getLimit());
+        assertEquals(0, limiter.getInflight());
+    }
+
+    private Repository proxy(int limit) {
+        Map<Bulkhead.Type, AdaptiveLimiter> limiters = new EnumMap<>(Bulkhead.Type.class);
+        for (Bulkhead.Type type : Bulkhead.Type.values()) {
+            limiters.put(type, new AdaptiveLimiter(type.getName(), limit, 1, 10, 60_000, 0.9));
+        }
+        aspect = new AdmissionControlAspect(limiters, 3);
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Repository(entered, finish));
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+    public static class Repository {
+
+        private final CountDownLatch entered;
+        private final CountDownLatch finish;
+
+        public Repository(CountDownLatch entered, CountDownLatch finish) {
+            this.entered = entered;
+            this.finish = finish;
+        }
+
+        @Bulkhead(Bulkhead.Type.LIST)
+        public String list() {
+            entered.countDown();
+            try {
+                finish.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "list";
+        }
+
+        @Bulkhead(Bulkhead.Type.WRITE)
+        public String update() {
+            entered.countDown();
+            try {
+                finish.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "update";
+        }
+
+        @Bulkhead(Bulkhead.Type.BUFFERED_WRITE)
+        public String create() {
+            return "create";
+        }
+
+        @Bulkhead(Bulkhead.Type.READ)
+        public String read() {
+            return "read";
+        }
+
+        @Bulkhead(Bulkhead.Type.WRITE)
+        public void write() {
+            throw new QueryTimeoutException("lock wait timeout");
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package config;
+
+import activity.config.CacheConfig;
+import activity.entity.Activity;
+import activity.entity.ActivityGroup;
+import activity.repository.ActivityGroupRepository;
+import activity.repository.ActivityRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.AopTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static activity.config.CacheConfig.ACTIVITY_GROUPS_CACHE;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = {CacheConfig.class, CacheConfigTest.Repositories.class})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class CacheConfigTest {
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ActivityGroupRepository activityGroupRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    //Plain @Bean mocks so the caching proxy is applied to them, @MockBean instances are not proxied
+    @Configuration
+    static class Repositories {
+        @Bean
+        ActivityGroupRepository activityGroupRepository() {
+            return mock(ActivityGroupRepository.class);
+        }
+
+        @Bean
+        ActivityRepository activityRepository() {
+            return mock(ActivityRepository.class);
+        }
+    }
+
+    @Test
+    void givenCachedActivity_whenFindByActivityId_thenRepositoryQueriedOnce() {
+        when(target(activityGroupRepository).findByActivityId(1L)).thenReturn(Optional.of(ActivityGroup.builder().id(1L).build()));
+
+        activityGroupRepository.findByActivityId(1L);
+        activityGroupRepository.findByActivityId(1L);
+
+        verify(target(activityGroupRepository), times(1)).findByActivityId(1L);
+    }
+
+    @Test
+    void givenUpdate_whenFindByActivityId_thenCacheEvicted() {
+        when(target(activityGroupRepository).findByActivityId(1L)).thenReturn(Optional.of(ActivityGroup.builder().id(1L).build()));
+
+        activityGroupRepository.findByActivityId(1L);
+        activityGroupRepository.updateTitle(1L, "test", LocalDateTime.now());
+        activityGroupRepository.findByActivityId(1L);
+
+        verify(target(activityGroupRepository), times(2)).findByActivityId(1L);
+    }
+
+    @Test
+    void givenNotFound_whenFindByActivityId_thenNotCached() {
+        activityGroupRepository.findByActivityId(1234L);
+
+        assertNull(cacheManager.getCache(ACTIVITY_GROUPS_CACHE).get(1234L));
+    }
+
+    @Test
+    void givenBulkUpdate_whenFindItemById_thenAllTodoItemsEvicted() {
+        when(target(activityRepository).findItemById(1L)).thenReturn(Optional.of(Activity.builder().id(1L).build()));
+
+        activityRepository.findItemById(1L);
+        activityRepository.updateByIds(List.of(1L), Boolean.FALSE, null, null, LocalDateTime.now());
+        activityRepository.findItemById(1L);
+
+        verify(target(activityRepository), times(2)).findItemById(1L);
+    }
+
+    private static <T> T target(T proxy) {
+        return AopTestUtils.getUltimateTargetObject(proxy);
+    }
+}
@@ -0,0 +1,71 @@
+package config;
+
+import activity.Application;
+import activity.config.MetricsConfig;
+import activity.util.QueryCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static activity.config.MetricsConfig.DB_QUERIES_METRIC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MetricsConfigTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MetricsConfig.QueryCountInterceptor interceptor = new MetricsConfig.QueryCountInterceptor(meterRegistry);
+    private final QueryCounter queryCounter = new QueryCounter();
+
+    @Test
+    void givenStatementsInRequest_whenCompleted_thenQueriesRecordedPerUri() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/activity-groups/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/activity-groups/{id}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        queryCounter.inspect("select 1");
+        interceptor.preHandle(request, response, null);
+        queryCounter.inspect("select * from activities where id=?");
+        queryCounter.inspect("select * from todos where activity_group_id=?");
+        interceptor.afterCompletion(request, response, null, null);
+
+        DistributionSummary summary = meterRegistry.get(DB_QUERIES_METRIC)
+                .tag("uri", "/activity-groups/{id}")
+                .tag("status", "200")
+                .summary();
+        assertEquals(1, summary.count());
+        assertEquals(2.0, summary.totalAmount());
+        assertEquals(0, QueryCounter.get());
+    }
+
+    @Test
+    void givenStatistics_whenStarted_thenHibernateMetersWithoutSessionLog() {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:metrics;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false")) {
+            SessionFactoryOptions options = context.getBean(SessionFactory.class).getSessionFactoryOptions();
+            assertTrue(options.isStatisticsEnabled());
+            //No StatisticalLoggingSessionEventListener, it logs a block at INFO for every session
+            assertFalse(options.getBaselineSessionEventsListenerBuilder().isLogSessionMetrics());
+
+            MeterRegistry registry = context.getBean(MeterRegistry.class);
+            assertNotNull(registry.find("hibernate.sessions.open").functionCounter());
+            assertNotNull(registry.find("hibernate.query.executions").functionCounter());
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package config;
+
+import activity.Application;
+import activity.entity.ActivityGroup;
+import activity.services.ActivityGroupService;
+import activity.services.ActivityService;
+import activity.util.DataSourceRouting;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static activity.util.ReplicaRoutingFilter.READ_PRIMARY_UNTIL_COOKIE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Boots the application over two embedded databases, one as the primary and
+ * one as its replica, holding different titles for the same rows so each
+ * response shows which one it was read from.
+ */
+public class ReplicaRoutingTest {
+
+    private static final String PRIMARY_URL = "jdbc:h2:mem:routing_primary;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final String REPLICA_URL = "jdbc:h2:mem:routing_replica;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final String EMAIL = "routing@gmail.com";
+
+    private static ConfigurableApplicationContext context;
+    private static int port;
+    private static long groupId;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @BeforeAll
+    static void start() {
+        //Hibernate creates the replica schema the same way as the primary one
+        new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + REPLICA_URL,
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.show-sql=false")
+                .close();
+
+        context = new SpringApplicationBuilder(Application.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=" + PRIMARY_URL,
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--datasource.replica.urls=" + REPLICA_URL,
+                        "--datasource.replica.read-your-writes-ms=60000",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--management.server.port=-1");
+        port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+
+        groupId = seed(context.getBean(JdbcTemplate.class), "primary title");
+        seed(new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", "")), "replica title");
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @Test
+    void givenNoRecentWrite_whenListed_thenReadFromReplica() throws Exception {
+        String body = get("/activity-groups?email=" + EMAIL + "&include=todo_items", null).body();
+        assertTrue(body.contains("replica title"), body);
+        assertTrue(body.contains("replica item"), body);
+
+        body = get("/todo-items?activity_group_id=" + groupId, null).body();
+        assertTrue(body.contains("replica item"), body);
+    }
+
+    @Test
+    void givenCachedLookup_whenRead_thenFilledFromPrimary() throws Exception {
+        String body = get("/activity-groups/" + groupId, null).body();
+        assertTrue(body.contains("primary title"), body);
+    }
+
+    @Test
+    void givenUncachedGroup_whenReadWithItems_thenItemsStillFromReplica() throws Exception {
+        long otherGroupId = seed(context.getBean(JdbcTemplate.class), "uncached primary title");
+        seed(new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", "")), "uncached replica title");
+
+        //The cache fill takes a primary connection, the item query after it must not reuse it
+        String body = get("/activity-groups/" + otherGroupId + "?include=todo_items", null).body();
+        assertTrue(body.contains("uncached primary title"), body);
+        assertTrue(body.contains("uncached replica item"), body);
+    }
+
+    @Test
+    void givenReplicaRead_whenCacheMissFollows_thenFilledFromPrimary() {
+        long otherGroupId = seed(context.getBean(JdbcTemplate.class), "late primary title");
+        seed(new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", "")), "late replica title");
+
+        //Same thread and routing state as one request, a connection held across both calls would be the replica one
+        DataSourceRouting.beginRequest(false);
+        try {
+            String items = String.valueOf(context.getBean(ActivityService.class).getAllTodoItems(otherGroupId).getBody().getData());
+            assertTrue(items.contains("late replica item"), items);
+
+            ActivityGroup activityGroup = (ActivityGroup) context.getBean(ActivityGroupService.class)
+                    .getActivity(otherGroupId, false, false).getBody().getData();
+            assertEquals("late primary title", activityGroup.getTitle());
+        } finally {
+            DataSourceRouting.endRequest();
+        }
+        assertEquals(0, context.getBeansOfType(OpenEntityManagerInViewInterceptor.class).size());
+    }
+
+    @Test
+    void givenWriteByClient_whenClientReads_thenPrimaryUntilWindowEnds() throws Exception {
+        long otherGroupId = seed(context.getBean(JdbcTemplate.class), "other primary");
+        seed(new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", "")), "other replica");
+
+        HttpResponse<String> patched = httpClient.send(HttpRequest.newBuilder(uri("/activity-groups/" + otherGroupId))
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"title\":\"patched\"}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, patched.statusCode());
+        String cookie = patched.headers().firstValue("Set-Cookie").orElse("");
+        assertTrue(cookie.startsWith(READ_PRIMARY_UNTIL_COOKIE + "="), cookie);
+
+        String body = get("/activity-groups?email=" + EMAIL, cookie.substring(0, cookie.indexOf(';'))).body();
+        assertTrue(body.contains("patched"), body);
+
+        body = get("/activity-groups?email=" + EMAIL, null).body();
+        assertTrue(body.contains("other replica"), body);
+    }
+
+    @Test
+    void givenReplicas_whenStatsRequested_thenEveryPoolListed() throws Exception {
+        get("/activity-groups?email=" + EMAIL, null);
+
+        String body = get("/datasource-stats", null).body();
+        assertTrue(body.contains("\"primary\":{\"read_only\":false"), body);
+        assertTrue(body.contains("\"replica-1\":{\"read_only\":true"), body);
+        assertNotNull(context.getBean(MeterRegistry.class).find("hikaricp.connections").tag("pool", "replica-1").gauge());
+    }
+
+    private HttpResponse<String> get(String path, String cookie) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path)).GET();
+        if (cookie != null) {
+            request.header("Cookie", cookie);
+        }
+        HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), response.body());
+        return response;
+    }
+
+    private static URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    //Same IDs on both databases, only the titles tell them apart
+    private static long seed(JdbcTemplate jdbcTemplate, String title) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO activities (title, created_date, updated_date, email) VALUES (?, ?, ?, ?)", title, now, now, EMAIL);
+        long id = jdbcTemplate.queryForObject("SELECT MAX(id) FROM activities", Long.class);
+        jdbcTemplate.update("INSERT INTO todos (id, activity_group_id, title, is_active, priority, created_date, updated_date) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", 600_000_000L + id, id, title.replace("title", "item"), true, "high", now, now);
+        return id;
+    }
+}
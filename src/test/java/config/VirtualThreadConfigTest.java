@@ -0,0 +1,34 @@
+package config;
+
+import activity.config.VirtualThreadConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VirtualThreadConfigTest {
+
+    private final WebApplicationContextRunner contextRunner = new WebApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(WebMvcAutoConfiguration.class))
+            .withUserConfiguration(VirtualThreadConfig.class);
+
+    @Test
+    void givenPropertyNotSet_whenStarted_thenPlatformThreads() {
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(TomcatProtocolHandlerCustomizer.class));
+    }
+
+    @Test
+    void givenPropertyEnabled_whenStarted_thenVirtualThreadsOrClearFailure() {
+        contextRunner.withPropertyValues("spring.threads.virtual.enabled=true").run(context -> {
+            if (VirtualThreadConfig.isSupported()) {
+                assertThat(context).hasSingleBean(TomcatProtocolHandlerCustomizer.class);
+            } else {
+                assertThat(context).getFailure().hasRootCauseInstanceOf(NoSuchMethodException.class)
+                        .hasMessageContaining("needs Java 21 or later");
+            }
+        });
+    }
+}
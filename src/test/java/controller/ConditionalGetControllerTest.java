@@ -0,0 +1,73 @@
+package controller;
+
+import activity.Application;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static activity.controller.ActivityController.ACTIVITY_GROUP_URL;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Revalidates lists against an embedded database, where the ETag of the
+ * conditional path is an aggregate query and the one of the unconditional
+ * path is computed from the rows it returned.
+ */
+public class ConditionalGetControllerTest {
+
+    private static ConfigurableApplicationContext context;
+    private static MockMvc mockMvc;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void start() {
+        context = new SpringApplicationBuilder(Application.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:conditional;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--management.server.port=-1");
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @Test
+    void getAllActivityWithOrphanTodoItemNotModified() throws Exception {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO activities (title, created_date, updated_date, email) VALUES (?, ?, ?, ?)",
+                "kept", now, now, "conditional@gmail.com");
+        long groupId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM activities", Long.class);
+        jdbcTemplate.update("INSERT INTO todos (id, activity_group_id, title, is_active, priority, created_date, updated_date) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", 500_000_000L, groupId, "kept item", true, "high", now, now);
+        //Left behind by a deleted group until TodoItemPurger gets to it
+        jdbcTemplate.update("INSERT INTO todos (id, activity_group_id, title, is_active, priority, created_date, updated_date) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", 500_000_001L, groupId + 1000, "orphan item", true, "high", now, now);
+
+        String etag = mockMvc.perform(get(ACTIVITY_GROUP_URL + "?include=todo_items"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        mockMvc.perform(get(ACTIVITY_GROUP_URL + "?include=todo_items").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+}
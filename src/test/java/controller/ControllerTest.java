@@ -1,14 +1,26 @@
 package controller;
 
 import activity.controller.ActivityController;
+import activity.controller.AdmissionControlAdvice;
 import activity.dto.ActivityGroupResponse;
+import activity.dto.BulkRequest;
 import activity.dto.GeneralRequest;
+import activity.dto.ResourceVersion;
+import activity.entity.Activity;
+import activity.entity.ActivityGroup;
 import activity.repository.ActivityGroupRepository;
 import activity.services.ActivityGroupService;
 import activity.services.ActivityService;
+import activity.services.IdempotencyService;
+import activity.services.SearchService;
+import activity.services.TodoItemImporter;
+import activity.services.TodoItemStreamer;
+import activity.services.TodoListExporter;
+import activity.util.OverloadedException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -18,25 +30,48 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
+import static activity.controller.ActivityController.ACTIVITY_GROUP_EXPORT_URL;
+import static activity.controller.ActivityController.ACTIVITY_GROUP_SEARCH_URL;
 import static activity.controller.ActivityController.ACTIVITY_GROUP_URL;
+import static activity.controller.ActivityController.TODO_ITEMS_BULK_URL;
+import static activity.controller.ActivityController.TODO_ITEMS_IMPORT_URL;
+import static activity.controller.ActivityController.TODO_ITEMS_SEARCH_URL;
 import static activity.controller.ActivityController.TODO_ITEMS_URL;
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -58,34 +93,67 @@ public class ControllerTest {
     @Mock
     private ActivityService activityService;
 
+    @Mock
+    private TodoItemStreamer todoItemStreamer;
+
+    @Mock
+    private SearchService searchService;
+
+    @Mock
+    private TodoListExporter todoListExporter;
+
+    @Mock
+    private TodoItemImporter todoItemImporter;
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     private MockMvc mockMvc;
 
     @BeforeEach
+    @SuppressWarnings("unchecked")
     void setup() {
-        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new AdmissionControlAdvice())
+                .build();
+        //Creates run straight through, IdempotencyService has its own tests
+        when(idempotencyService.execute(any(), any(), any(), any()))
+                .thenAnswer(invocation -> ((Supplier<ResponseEntity<ActivityGroupResponse>>) invocation.getArgument(3)).get());
     }
 
     @ParameterizedTest
     @MethodSource("getActivityParam")
     void getAllActivityByEmail(String value) throws Exception {
 
-        when(activityGroupService.getAllActivity("cek@gmail.com")).thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder().build(), HttpStatus.OK));
-        when(activityGroupService.getAllActivity(null)).thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder().build(), HttpStatus.OK));
+        when(activityGroupService.getAllActivity("cek@gmail.com", null, null, false, false)).thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder().build(), HttpStatus.OK));
+        when(activityGroupService.getAllActivity(null, null, null, false, false)).thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder().build(), HttpStatus.OK));
 
         mockMvc.perform(get(value)
                 .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void getAllActivityByEmailWithCursor() throws Exception {
+        when(activityGroupService.getAllActivity("cek@gmail.com", "abc", 10, false, false)).thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder()
+                .status("Success").message("Success").nextCursor("def").build(), HttpStatus.OK));
+
+        mockMvc.perform(get(ACTIVITY_GROUP_URL + "?email=cek@gmail.com&limit=10&cursor=abc")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.next_cursor").value("def"));
+        verify(activityGroupService).getAllActivity("cek@gmail.com", "abc", 10, false, false);
+    }
+
     @ParameterizedTest
     @MethodSource("getOneActivityParam")
     void saveUpdateContact(String value, Long id) throws Exception {
 
-        when(activityGroupService.getActivity(1L)).thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder().build(), HttpStatus.OK));
-        when(activityGroupService.getActivity(null)).thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder().build(), HttpStatus.OK));
-        when(activityGroupService.getActivity(1234L)).thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder().build(), HttpStatus.NOT_FOUND));
+        when(activityGroupService.getActivity(1L, true, false)).thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder().build(), HttpStatus.OK));
+        when(activityGroupService.getActivity(null, true, false)).thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder().build(), HttpStatus.OK));
+        when(activityGroupService.getActivity(1234L, true, false)).thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder().build(), HttpStatus.NOT_FOUND));
 
         if (id != null && id == 1234L) {
             mockMvc.perform(get(value)
@@ -333,4 +401,213 @@ public class ControllerTest {
         );
     }
 
+    @Test
+    void createTodoBulk() throws Exception {
+        when(activityService.createTodoItemsBulk(any())).thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder().build(), HttpStatus.CREATED));
+
+        mockMvc.perform(post(TODO_ITEMS_BULK_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(BulkRequest.builder().items(List.of(GeneralRequest.builder().title("test").build())).build())))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    void updateTodoBulk() throws Exception {
+        when(activityService.updateTodoItemsBulk(any())).thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder().build(), HttpStatus.OK));
+
+        mockMvc.perform(patch(TODO_ITEMS_BULK_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(BulkRequest.builder().ids(List.of(1L, 2L)).isActive(Boolean.FALSE).build())))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void deleteTodoBulk() throws Exception {
+        when(activityService.deleteTodoItemsBulk(List.of(1L, 2L))).thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder().build(), HttpStatus.OK));
+
+        mockMvc.perform(delete(TODO_ITEMS_BULK_URL + "?ids=1,2"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void streamAllTodo() throws Exception {
+        MvcResult result = mockMvc.perform(get(TODO_ITEMS_URL)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON));
+        verify(todoItemStreamer).stream(isNull(), any());
+    }
+
+    @Test
+    void getAllActivityIncludeTodoItems() throws Exception {
+        when(activityGroupService.getAllActivity(null, null, null, true, false)).thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder().build(), HttpStatus.OK));
+
+        mockMvc.perform(get(ACTIVITY_GROUP_URL).param("include", "todo_items"))
+                .andExpect(status().isOk());
+        verify(activityGroupService).getAllActivity(null, null, null, true, false);
+    }
+
+    @Test
+    void getActivityWithoutTodoItems() throws Exception {
+        when(activityGroupService.getActivity(1L, false, false)).thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder().build(), HttpStatus.OK));
+
+        mockMvc.perform(get(ACTIVITY_GROUP_URL + "/1").param("include", "none"))
+                .andExpect(status().isOk());
+        verify(activityGroupService).getActivity(1L, false, false);
+    }
+
+    @Test
+    void getActivityWithSummary() throws Exception {
+        when(activityGroupService.getActivity(1L, true, true)).thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder().build(), HttpStatus.OK));
+
+        mockMvc.perform(get(ACTIVITY_GROUP_URL + "/1").param("include", "todo_items,summary"))
+                .andExpect(status().isOk());
+        verify(activityGroupService).getActivity(1L, true, true);
+    }
+
+    @Test
+    void getActivitySummary() throws Exception {
+        when(activityGroupService.getSummary(1L)).thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder().build(), HttpStatus.OK));
+
+        mockMvc.perform(get(ACTIVITY_GROUP_URL + "/1/summary"))
+                .andExpect(status().isOk());
+        verify(activityGroupService).getSummary(1L);
+    }
+
+    @Test
+    void searchTodoItems() throws Exception {
+        when(searchService.searchTodoItems("milk", 1L, null, null, 10)).thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder().build(), HttpStatus.OK));
+
+        mockMvc.perform(get(TODO_ITEMS_SEARCH_URL).param("q", "milk").param("activity_group_id", "1").param("limit", "10"))
+                .andExpect(status().isOk());
+        verify(searchService).searchTodoItems("milk", 1L, null, null, 10);
+        verify(activityService, never()).getTodoItems(any());
+    }
+
+    @Test
+    void searchActivityGroups() throws Exception {
+        when(searchService.searchActivityGroups("milk", "cek@gmail.com", null, null)).thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder().build(), HttpStatus.OK));
+
+        mockMvc.perform(get(ACTIVITY_GROUP_SEARCH_URL).param("q", "milk").param("email", "cek@gmail.com"))
+                .andExpect(status().isOk());
+        verify(searchService).searchActivityGroups("milk", "cek@gmail.com", null, null);
+        verify(activityGroupService, never()).getActivity(any(), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    void exportActivityGroups() throws Exception {
+        MvcResult result = mockMvc.perform(get(ACTIVITY_GROUP_EXPORT_URL).param("email", "cek@gmail.com"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ActivityController.XLSX_CONTENT_TYPE))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"todo-list.xlsx\""));
+        verify(todoListExporter).export(eq("cek@gmail.com"), any());
+        verify(activityGroupService, never()).getActivity(any(), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    void importTodoItems() throws Exception {
+        when(todoItemImporter.importTodoItems(any(), eq(1L))).thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder().build(), HttpStatus.CREATED));
+
+        mockMvc.perform(multipart(TODO_ITEMS_IMPORT_URL)
+                        .file(new MockMultipartFile("file", "todos.csv", "text/csv", "title\nmilk\n".getBytes()))
+                        .param("activity_group_id", "1"))
+                .andExpect(status().isCreated());
+        verify(todoItemImporter).importTodoItems(argThat(file -> "todos.csv".equals(file.getOriginalFilename())), eq(1L));
+        verify(activityService, never()).createTodoItems(any());
+    }
+
+    @Test
+    void createTodoItemsWithIdempotencyKey() throws Exception {
+        GeneralRequest request = GeneralRequest.builder().activityGroupId(1L).title("milk").build();
+        when(activityService.createTodoItems(request)).thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder().build(), HttpStatus.CREATED));
+
+        mockMvc.perform(post(TODO_ITEMS_URL)
+                        .header(IdempotencyService.IDEMPOTENCY_KEY_HEADER, "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+        verify(idempotencyService).execute(eq("key-1"), eq(TODO_ITEMS_URL), eq(request), any());
+        verify(activityService).createTodoItems(request);
+    }
+
+    @Test
+    void getActivityNotModified() throws Exception {
+        ResourceVersion version = ResourceVersion.of(1L, LocalDateTime.now());
+        when(activityGroupService.getActivityVersion(1L, true)).thenReturn(version);
+
+        mockMvc.perform(get(ACTIVITY_GROUP_URL + "/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, version.getEtag()))
+                .andExpect(status().isNotModified());
+        verify(activityGroupService, never()).getActivity(any(), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    void getAllTodoModified() throws Exception {
+        ResourceVersion version = new ResourceVersion(2L, LocalDateTime.now(), 3L);
+        when(activityService.getAllTodoItemsVersion(1L)).thenReturn(version);
+        when(activityService.getAllTodoItems(1L)).thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder().build(), HttpStatus.OK));
+
+        mockMvc.perform(get(TODO_ITEMS_URL + "?activity_group_id=1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, version.getEtag()));
+    }
+
+    @Test
+    void getActivityOverloaded() throws Exception {
+        when(activityGroupService.getActivity(1L, true, false)).thenThrow(new OverloadedException("read", 1));
+
+        mockMvc.perform(get(ACTIVITY_GROUP_URL + "/1"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(content().string(containsString("Service Unavailable")));
+    }
+
+    @Test
+    void getAllTodoUnconditional() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        List<Activity> items = List.of(Activity.builder().id(1L).updatedDate(now).build(), Activity.builder().id(2L).updatedDate(now).build());
+        when(activityService.getAllTodoItems(1L)).thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder().data(items).build(), HttpStatus.OK));
+
+        mockMvc.perform(get(TODO_ITEMS_URL + "?activity_group_id=1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, new ResourceVersion(2L, now, 3L).getEtag()));
+        verify(activityService, never()).getAllTodoItemsVersion(any());
+    }
+
+    @Test
+    void getAllActivityUnconditional() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        List<ActivityGroup> groups = List.of(ActivityGroup.builder().id(5L).updatedDate(now)
+                .todoItems(List.of(Activity.builder().id(7L).updatedDate(now).build())).build());
+        when(activityGroupService.getAllActivity("cek@gmail.com", null, null, true, false))
+                .thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder().data(groups).build(), HttpStatus.OK));
+
+        mockMvc.perform(get(ACTIVITY_GROUP_URL + "?email=cek@gmail.com&include=todo_items"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, new ResourceVersion(1L, now, 5L).and(new ResourceVersion(1L, now, 7L)).getEtag()));
+        verify(activityGroupService, never()).getAllActivityVersion(any(), anyBoolean());
+    }
+
+    @Test
+    void getAllTodoIfModifiedSinceOnly() throws Exception {
+        //A delete does not move MAX(updated_date), so a list is never answered 304 by date alone
+        when(activityService.getAllTodoItemsVersion(1L)).thenReturn(new ResourceVersion(1L, LocalDateTime.now().minusDays(1), 1L));
+        when(activityService.getAllTodoItems(1L)).thenReturn(new ResponseEntity<>(ActivityGroupResponse.builder().data(List.of()).build(), HttpStatus.OK));
+
+        mockMvc.perform(get(TODO_ITEMS_URL + "?activity_group_id=1")
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, "Fri, 01 Jan 2100 00:00:00 GMT"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED));
+    }
 }
@@ -0,0 +1,221 @@
+package controller;
+
+import activity.Application;
+import activity.entity.Activity;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.Map;
+
+import static activity.config.CacheConfig.TODO_ITEMS_CACHE;
+import static activity.controller.ActivityController.ACTIVITY_GROUP_URL;
+import static activity.controller.ActivityController.TODO_ITEMS_URL;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Boots the reactive profile on Netty, with R2DBC and JPA sharing one
+ * embedded H2 database whose schema Hibernate creates.
+ */
+@SpringBootTest(classes = Application.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactive;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive?options=MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "management.server.port=-1"
+})
+@ActiveProfiles("reactive")
+public class ReactiveActivityControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void givenActivityWithTodoItems_whenGetById_thenEmbedded() {
+        long groupId = createActivity("reactive@gmail.com");
+        long itemId = createTodoItem(groupId, "first");
+        createTodoItem(groupId, "second");
+
+        webTestClient.get().uri(ACTIVITY_GROUP_URL + "/" + groupId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("Success")
+                .jsonPath("$.data.email").isEqualTo("reactive@gmail.com")
+                .jsonPath("$.data.todo_items.length()").isEqualTo(2)
+                .jsonPath("$.data.todo_items[0].id").isEqualTo(itemId);
+
+        webTestClient.get().uri(ACTIVITY_GROUP_URL + "/" + groupId + "?include=none")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.todo_items").doesNotExist();
+    }
+
+    @Test
+    void givenTodoItems_whenListed_thenStreamedInEnvelope() {
+        long groupId = createActivity("list@gmail.com");
+        createTodoItem(groupId, "first");
+        createTodoItem(groupId, "second");
+        createTodoItem(groupId, "third");
+
+        webTestClient.get().uri(TODO_ITEMS_URL + "?activity_group_id=" + groupId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("Success")
+                .jsonPath("$.message").isEqualTo("Success")
+                .jsonPath("$.data.length()").isEqualTo(3)
+                .jsonPath("$.data[2].title").isEqualTo("third");
+
+        webTestClient.get().uri(TODO_ITEMS_URL + "?activity_group_id=" + (groupId + 1000))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.length()").isEqualTo(0);
+
+        webTestClient.get().uri(ACTIVITY_GROUP_URL + "?email=list@gmail.com&include=todo_items")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.length()").isEqualTo(1)
+                .jsonPath("$.data[0].todo_items.length()").isEqualTo(3);
+    }
+
+    @Test
+    void givenNdjson_whenListed_thenOneItemPerLine() {
+        long groupId = createActivity("ndjson@gmail.com");
+        createTodoItem(groupId, "first");
+        createTodoItem(groupId, "second");
+
+        Flux<Activity> body = webTestClient.get().uri(TODO_ITEMS_URL + "?activity_group_id=" + groupId)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Activity.class)
+                .getResponseBody();
+
+        //One item at a time, the second is only read after it is requested
+        StepVerifier.create(body, 1)
+                .expectNextMatches(x -> "first".equals(x.getTitle()))
+                .thenRequest(1)
+                .expectNextMatches(x -> "second".equals(x.getTitle()))
+                .verifyComplete();
+    }
+
+    @Test
+    void givenTodoItem_whenUpdatedAndDeleted_thenInvalidationAndCountersRecorded() {
+        long groupId = createActivity("write@gmail.com");
+        long itemId = createTodoItem(groupId, "before");
+
+        webTestClient.patch().uri(TODO_ITEMS_URL + "/" + itemId)
+                .bodyValue(Map.of("title", "after"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.title").isEqualTo("after");
+
+        webTestClient.patch().uri(TODO_ITEMS_URL + "/" + itemId)
+                .bodyValue(Map.of("is_active", false))
+                .exchange()
+                .expectStatus().isOk();
+        assertArrayEquals(new long[]{1, 0}, counters(groupId));
+
+        webTestClient.delete().uri(TODO_ITEMS_URL + "/" + itemId)
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get().uri(TODO_ITEMS_URL + "/" + itemId)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Todo with ID " + itemId + " Not Found");
+
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cache_invalidations WHERE cache_name = ? AND cache_key = ?",
+                Integer.class, TODO_ITEMS_CACHE, itemId));
+        assertArrayEquals(new long[]{0, 0}, counters(groupId));
+    }
+
+    @Test
+    void givenInvalidRequests_whenSent_thenSameErrorsAsServlet() {
+        webTestClient.post().uri(TODO_ITEMS_URL)
+                .bodyValue(Map.of("title", "no group"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("activity_group_id cannot be null");
+
+        webTestClient.post().uri(ACTIVITY_GROUP_URL)
+                .bodyValue(Map.of("email", "no-title@gmail.com"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("title cannot be null");
+
+        webTestClient.patch().uri(ACTIVITY_GROUP_URL + "/0")
+                .bodyValue(Map.of("title", "missing"))
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Activity with ID 0 Not Found");
+    }
+
+    @Test
+    void givenManyTodoItems_whenCreated_thenIdsDoNotCollideWithJpa() {
+        long groupId = createActivity("ids@gmail.com");
+        long reactiveId = 0;
+        for (int i = 0; i < 150; i++) {
+            reactiveId = createTodoItem(groupId, "item " + i);
+        }
+
+        //Hibernate claims the next block from the same id_blocks row
+        Long nextVal = jdbcTemplate.queryForObject("SELECT next_val FROM id_blocks WHERE sequence_name = 'todos'", Long.class);
+        assertTrue(reactiveId < nextVal - 99, "last id " + reactiveId + " is inside the block after " + nextVal);
+        assertEquals(150, jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT id) FROM todos WHERE activity_group_id = ?",
+                Integer.class, groupId));
+    }
+
+    //total and active of one group
+    private long[] counters(long groupId) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(total), 0), COALESCE(SUM(active), 0) FROM todo_counters WHERE activity_group_id = ?",
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)}, groupId);
+    }
+
+    private long createActivity(String email) {
+        Map<?, ?> body = webTestClient.post().uri(ACTIVITY_GROUP_URL)
+                .bodyValue(Map.of("title", "activity", "email", email))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Map.class)
+                .returnResult()
+                .getResponseBody();
+        return ((Number) ((Map<?, ?>) body.get("data")).get("id")).longValue();
+    }
+
+    private long createTodoItem(long groupId, String title) {
+        Map<?, ?> body = webTestClient.post().uri(TODO_ITEMS_URL)
+                .bodyValue(Map.of("activity_group_id", groupId, "title", title))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Map.class)
+                .returnResult()
+                .getResponseBody();
+        return ((Number) ((Map<?, ?>) body.get("data")).get("id")).longValue();
+    }
+}
@@ -0,0 +1,261 @@
+package perf;
+
+import activity.Application;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Boots the whole application on a random port against H2 in MySQL mode,
+ * seeds it and drives a fixed-concurrency mix of reads and writes over HTTP.
+ * Throughput and latency percentiles per endpoint are logged and written to
+ * target/load-test-report.csv. Sizes and duration are system properties, e.g.
+ * mvn -P perf test -Dperf.emails=5000 -Dperf.duration-seconds=120
+ */
+@Tag("perf")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(classes = Application.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:perf;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=32",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "management.server.port=-1",
+        "logging.level.activity=WARN",
+        //Measures what the database sustains, not how much the bulkheads shed
+        "admission.enabled=false"
+})
+public class LoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTest.class);
+
+    private static final int EMAILS = Integer.getInteger("perf.emails", 1000);
+    private static final int GROUPS_PER_EMAIL = Integer.getInteger("perf.groups-per-email", 20);
+    private static final int ITEMS_PER_GROUP = Integer.getInteger("perf.items-per-group", 10);
+    private static final int CONCURRENCY = Integer.getInteger("perf.concurrency", 32);
+    private static final int WARMUP_SECONDS = Integer.getInteger("perf.warmup-seconds", 10);
+    private static final int DURATION_SECONDS = Integer.getInteger("perf.duration-seconds", 30);
+
+    //Seeded To-Do Items start here so they never collide with IDs the application allocates
+    private static final long SEED_ITEM_ID = 1_000_000_000L;
+
+    private static final Path REPORT = Paths.get("target", "load-test-report.csv");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final Map<String, Histogram> latencies = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+
+    private long firstGroupId;
+    private long groups;
+    private long items;
+
+    @BeforeAll
+    void seed() {
+        long start = System.nanoTime();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> groupRows = new ArrayList<>(GROUPS_PER_EMAIL);
+        for (int email = 0; email < EMAILS; email++) {
+            for (int group = 0; group < GROUPS_PER_EMAIL; group++) {
+                groupRows.add(new Object[]{"activity " + group, now, now, email(email)});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO activities (title, created_date, updated_date, email) VALUES (?, ?, ?, ?)", groupRows);
+            groupRows.clear();
+        }
+
+        firstGroupId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM activities", Long.class);
+        groups = (long) EMAILS * GROUPS_PER_EMAIL;
+
+        List<Object[]> itemRows = new ArrayList<>(ITEMS_PER_GROUP);
+        long itemId = SEED_ITEM_ID;
+        for (long group = 0; group < groups; group++) {
+            for (int item = 0; item < ITEMS_PER_GROUP; item++) {
+                itemRows.add(new Object[]{itemId++, firstGroupId + group, "todo item " + item, true, "very-high", now, now});
+            }
+            if (itemRows.size() >= 1000 || group == groups - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO todos (id, activity_group_id, title, is_active, priority, created_date, updated_date) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?)", itemRows);
+                itemRows.clear();
+            }
+        }
+        items = itemId - SEED_ITEM_ID;
+
+        log.info("Seeded {} emails, {} activity groups and {} todo items in {} ms",
+                EMAILS, groups, items, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @Test
+    void mixedWorkload() throws Exception {
+        run(WARMUP_SECONDS);
+        latencies.clear();
+        errors.clear();
+
+        long requests = run(DURATION_SECONDS);
+        report(requests);
+
+        long failed = errors.values().stream().mapToLong(AtomicLong::get).sum();
+        assertEquals(0, failed, "requests answered with 5xx or not answered at all");
+    }
+
+    private long run(int seconds) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Future<Long>> workers = new ArrayList<>();
+
+        for (int i = 0; i < CONCURRENCY; i++) {
+            workers.add(executor.submit(() -> {
+                long count = 0;
+                while (System.nanoTime() < deadline) {
+                    next();
+                    count++;
+                }
+                return count;
+            }));
+        }
+
+        long requests = 0;
+        for (Future<Long> worker : workers) {
+            requests += worker.get();
+        }
+        executor.shutdown();
+        return requests;
+    }
+
+    /**
+     * One request picked from the mix: 30% group list by email, 20% one group,
+     * 20% To-Do Items of a group, 10% one item, 10% create, 7% update, 3% delete.
+     */
+    private void next() throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int pick = random.nextInt(100);
+        long groupId = firstGroupId + random.nextLong(groups);
+        long itemId = SEED_ITEM_ID + random.nextLong(items);
+
+        if (pick < 30) {
+            send("GET /activity-groups?email", get("/activity-groups?email=" + email(random.nextInt(EMAILS))));
+        } else if (pick < 50) {
+            send("GET /activity-groups/{id}", get("/activity-groups/" + groupId));
+        } else if (pick < 70) {
+            send("GET /todo-items?activity_group_id", get("/todo-items?activity_group_id=" + groupId));
+        } else if (pick < 80) {
+            send("GET /todo-items/{id}", get("/todo-items/" + itemId));
+        } else if (pick < 90) {
+            send("POST /todo-items", request("/todo-items")
+                    .POST(json("{\"activity_group_id\":" + groupId + ",\"title\":\"load test\",\"priority\":\"high\"}")).build());
+        } else if (pick < 97) {
+            send("PATCH /todo-items/{id}", request("/todo-items/" + itemId)
+                    .method("PATCH", json("{\"title\":\"updated " + random.nextInt() + "\"}")).build());
+        } else {
+            send("DELETE /todo-items/{id}", request("/todo-items/" + itemId).DELETE().build());
+        }
+    }
+
+    private void send(String endpoint, HttpRequest request) throws InterruptedException {
+        long start = System.nanoTime();
+        int status;
+        try {
+            status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            status = 0;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        latencies.computeIfAbsent(endpoint, x -> new ConcurrentHistogram(TimeUnit.SECONDS.toMicros(60), 3))
+                .recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(elapsed), TimeUnit.SECONDS.toMicros(60)));
+        //404 is expected once an item has been deleted by another worker
+        if (status == 0 || status >= 500) {
+            errors.computeIfAbsent(endpoint, x -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    private void report(long requests) throws IOException {
+        StringBuilder csv = new StringBuilder("endpoint,requests,errors,throughput_rps,p50_ms,p90_ms,p99_ms,p999_ms,max_ms\n");
+        StringBuilder table = new StringBuilder(String.format("%n%-34s %9s %7s %9s %8s %8s %8s %8s %8s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms"));
+
+        latencies.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
+            Histogram histogram = entry.getValue();
+            long failed = errors.getOrDefault(entry.getKey(), new AtomicLong()).get();
+            Object[] row = {entry.getKey(), histogram.getTotalCount(), failed,
+                    (double) histogram.getTotalCount() / DURATION_SECONDS,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue())};
+
+            table.append(String.format("%-34s %9d %7d %9.1f %8.2f %8.2f %8.2f %8.2f %8.2f%n", row));
+            csv.append(String.format("%s,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f%n", row));
+        });
+        table.append(String.format("%d requests at concurrency %d in %d s, %.1f req/s",
+                requests, CONCURRENCY, DURATION_SECONDS, (double) requests / DURATION_SECONDS));
+
+        log.info(table.toString());
+        Files.createDirectories(REPORT.getParent());
+        Files.writeString(REPORT, csv);
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json");
+    }
+
+    private static HttpRequest.BodyPublisher json(String body) {
+        return HttpRequest.BodyPublishers.ofString(body);
+    }
+
+    private static String email(int index) {
+        return "user" + index + "@gmail.com";
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,171 @@
+package perf;
+
+import activity.Application;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the same read mix against ActivityController on Tomcat and against
+ * ReactiveActivityController on Netty, one after the other on the same
+ * seeded H2 database, and compares latency and the threads each needed.
+ * Results are logged and written to target/reactive-report.csv, e.g.
+ * mvn -P perf test -Dtest=ReactiveLoadTest -Dperf.clients=2000
+ */
+@Tag("perf")
+public class ReactiveLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveLoadTest.class);
+
+    private static final int CLIENTS = Integer.getInteger("perf.clients", 500);
+    private static final int GROUPS = Integer.getInteger("perf.groups", 1000);
+    private static final int ITEMS_PER_GROUP = Integer.getInteger("perf.items-per-group", 20);
+    private static final int WARMUP_SECONDS = Integer.getInteger("perf.warmup-seconds", 10);
+    private static final int DURATION_SECONDS = Integer.getInteger("perf.duration-seconds", 30);
+
+    private static final Path REPORT = Paths.get("target", "reactive-report.csv");
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+
+    @Test
+    void servletVersusReactive() throws Exception {
+        List<String> rows = new ArrayList<>();
+        rows.add(run("servlet"));
+        rows.add(run("reactive"));
+
+        StringBuilder csv = new StringBuilder("stack,clients,requests,errors,throughput_rps,p50_ms,p99_ms,max_ms,peak_threads\n");
+        rows.forEach(row -> csv.append(row).append('\n'));
+        log.info("\n{}", csv);
+        Files.createDirectories(REPORT.getParent());
+        Files.writeString(REPORT, csv);
+    }
+
+    private String run(String stack) throws Exception {
+        String database = "reactive_perf_" + stack;
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .profiles("reactive".equals(stack) ? "reactive" : "default")
+                .run("--server.port=0",
+                        "--server.tomcat.accept-count=" + CLIENTS,
+                        "--spring.datasource.url=jdbc:h2:mem:" + database + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.r2dbc.url=r2dbc:h2:mem:///" + database + "?options=MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.r2dbc.username=sa",
+                        "--spring.r2dbc.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--management.server.port=-1",
+                        "--logging.level.activity=WARN",
+                        "--admission.enabled=false");
+
+        try {
+            long firstGroupId = seed(context.getBean(JdbcTemplate.class));
+            int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+
+            drive(port, firstGroupId, WARMUP_SECONDS, new ConcurrentHistogram(3), new AtomicLong());
+
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            threads.resetPeakThreadCount();
+
+            Histogram latency = new ConcurrentHistogram(3);
+            AtomicLong errors = new AtomicLong();
+            drive(port, firstGroupId, DURATION_SECONDS, latency, errors);
+            assertEquals(0, errors.get(), stack + " requests answered with 5xx or not answered at all");
+
+            return String.format("%s,%d,%d,%d,%.1f,%.2f,%.2f,%.2f,%d", stack, CLIENTS, latency.getTotalCount(), errors.get(),
+                    (double) latency.getTotalCount() / DURATION_SECONDS, latency.getValueAtPercentile(50) / 1000.0,
+                    latency.getValueAtPercentile(99) / 1000.0, latency.getMaxValue() / 1000.0, threads.getPeakThreadCount());
+        } finally {
+            context.close();
+        }
+    }
+
+    private static long seed(JdbcTemplate jdbcTemplate) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> groups = new ArrayList<>();
+        for (int i = 0; i < GROUPS; i++) {
+            groups.add(new Object[]{"activity " + i, now, now, "user" + i + "@gmail.com"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO activities (title, created_date, updated_date, email) VALUES (?, ?, ?, ?)", groups);
+        long firstGroupId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM activities", Long.class);
+
+        //Seeded To-Do Items start high so they never collide with IDs the application allocates
+        List<Object[]> items = new ArrayList<>();
+        long itemId = 1_000_000_000L;
+        for (int group = 0; group < GROUPS; group++) {
+            for (int item = 0; item < ITEMS_PER_GROUP; item++) {
+                items.add(new Object[]{itemId++, firstGroupId + group, "todo item " + item, true, "very-high", now, now});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO todos (id, activity_group_id, title, is_active, priority, created_date, updated_date) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", items);
+        return firstGroupId;
+    }
+
+    private void drive(int port, long firstGroupId, int seconds, Histogram latency, AtomicLong errors) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<CompletableFuture<Void>> clients = new ArrayList<>(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            clients.add(client(port, firstGroupId, deadline, latency, errors));
+        }
+        CompletableFuture.allOf(clients.toArray(new CompletableFuture[0])).join();
+    }
+
+    /**
+     * Half the requests list the To-Do Items of a group, the rest read one
+     * group with its items embedded.
+     */
+    private CompletableFuture<Void> client(int port, long firstGroupId, long deadline, Histogram latency, AtomicLong errors) {
+        if (System.nanoTime() >= deadline) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long groupId = firstGroupId + random.nextInt(GROUPS);
+        String path = random.nextBoolean() ? "/todo-items?activity_group_id=" + groupId : "/activity-groups/" + groupId;
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+        long start = System.nanoTime();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, failure) -> {
+                    latency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                    if (failure != null || response.statusCode() >= 500) {
+                        errors.incrementAndGet();
+                    }
+                    return null;
+                })
+                .thenCompose(x -> client(port, firstGroupId, deadline, latency, errors));
+    }
+}
@@ -0,0 +1,230 @@
+package perf;
+
+import activity.Application;
+import activity.config.VirtualThreadConfig;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the Tomcat worker pool with virtual threads under many concurrent
+ * clients whose requests spend most of their time waiting on JDBC. Every
+ * statement is delayed by perf.db-latency-ms to stand in for a remote MySQL,
+ * and the connection pool is sized so it is not the limit. The virtual thread
+ * run is skipped on runtimes older than Java 21. Results are logged and
+ * written to target/virtual-thread-report.csv, e.g.
+ * mvn -P perf test -Dtest=VirtualThreadLoadTest -Dperf.clients=10000
+ */
+@Tag("perf")
+public class VirtualThreadLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadLoadTest.class);
+
+    private static final int CLIENTS = Integer.getInteger("perf.clients", 5000);
+    private static final int DB_LATENCY_MS = Integer.getInteger("perf.db-latency-ms", 20);
+    private static final int POOL_SIZE = Integer.getInteger("perf.pool-size", 1000);
+    private static final int GROUPS = Integer.getInteger("perf.groups", 1000);
+    private static final int WARMUP_SECONDS = Integer.getInteger("perf.warmup-seconds", 10);
+    private static final int DURATION_SECONDS = Integer.getInteger("perf.duration-seconds", 30);
+
+    private static final Path REPORT = Paths.get("target", "virtual-thread-report.csv");
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+
+    @Test
+    void platformThreadsVersusVirtualThreads() throws Exception {
+        List<String> rows = new ArrayList<>();
+        rows.add(run(false));
+
+        if (VirtualThreadConfig.isSupported()) {
+            rows.add(run(true));
+        } else {
+            log.warn("Java {} has no virtual threads, only the platform thread pool was measured", System.getProperty("java.version"));
+        }
+
+        StringBuilder csv = new StringBuilder("mode,clients,requests,errors,throughput_rps,p50_ms,p99_ms,max_ms,peak_threads,heap_used_mb\n");
+        rows.forEach(row -> csv.append(row).append('\n'));
+        log.info("\n{}", csv);
+        Files.createDirectories(REPORT.getParent());
+        Files.writeString(REPORT, csv);
+    }
+
+    private String run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class, SlowJdbc.class)
+                .run("--server.port=0",
+                        "--server.tomcat.accept-count=" + CLIENTS,
+                        "--server.tomcat.max-connections=" + (CLIENTS * 2),
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.datasource.url=jdbc:h2:mem:" + mode + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                        "--spring.datasource.hikari.connection-timeout=60000",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--management.server.port=-1",
+                        "--logging.level.activity=WARN",
+                        "--admission.enabled=false");
+
+        try {
+            long firstGroupId = seed(context.getBean(JdbcTemplate.class));
+            int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+
+            drive(port, firstGroupId, WARMUP_SECONDS, new ConcurrentHistogram(3), new AtomicLong());
+
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            System.gc();
+            threads.resetPeakThreadCount();
+
+            Histogram latency = new ConcurrentHistogram(3);
+            AtomicLong errors = new AtomicLong();
+            drive(port, firstGroupId, DURATION_SECONDS, latency, errors);
+
+            long heapUsedMb = memory.getHeapMemoryUsage().getUsed() / (1024 * 1024);
+            assertEquals(0, errors.get(), mode + " requests answered with 5xx or not answered at all");
+
+            return String.format("%s,%d,%d,%d,%.1f,%.2f,%.2f,%.2f,%d,%d", mode, CLIENTS, latency.getTotalCount(), errors.get(),
+                    (double) latency.getTotalCount() / DURATION_SECONDS, latency.getValueAtPercentile(50) / 1000.0,
+                    latency.getValueAtPercentile(99) / 1000.0, latency.getMaxValue() / 1000.0,
+                    threads.getPeakThreadCount(), heapUsedMb);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static long seed(JdbcTemplate jdbcTemplate) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < GROUPS; i++) {
+            rows.add(new Object[]{"activity " + i, now, now, "user" + i + "@gmail.com"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO activities (title, created_date, updated_date, email) VALUES (?, ?, ?, ?)", rows);
+        return jdbcTemplate.queryForObject("SELECT MIN(id) FROM activities", Long.class);
+    }
+
+    /**
+     * Keeps CLIENTS requests in flight until the deadline, each client sending
+     * its next request as soon as the previous one is answered.
+     */
+    private void drive(int port, long firstGroupId, int seconds, Histogram latency, AtomicLong errors) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<CompletableFuture<Void>> clients = new ArrayList<>(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            clients.add(client(port, firstGroupId, deadline, latency, errors));
+        }
+        CompletableFuture.allOf(clients.toArray(new CompletableFuture[0])).join();
+    }
+
+    private CompletableFuture<Void> client(int port, long firstGroupId, long deadline, Histogram latency, AtomicLong errors) {
+        if (System.nanoTime() >= deadline) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        long groupId = firstGroupId + ThreadLocalRandom.current().nextInt(GROUPS);
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/todo-items?activity_group_id=" + groupId))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+        long start = System.nanoTime();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, failure) -> {
+                    latency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                    if (failure != null || response.statusCode() >= 500) {
+                        errors.incrementAndGet();
+                    }
+                    return null;
+                })
+                .thenCompose(x -> client(port, firstGroupId, deadline, latency, errors));
+    }
+
+    /**
+     * Delays every statement execution, holding the connection and the
+     * request thread the way a round trip to a remote database would.
+     */
+    @Configuration
+    static class SlowJdbc {
+
+        @Bean
+        static BeanPostProcessor slowDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource)) {
+                        return bean;
+                    }
+                    DataSource dataSource = (DataSource) bean;
+                    return proxy(DataSource.class, dataSource, (method, result) ->
+                            method.equals("getConnection") ? proxy(Connection.class, (Connection) result, SlowJdbc::statement) : result);
+                }
+            };
+        }
+
+        private static Object statement(String method, Object result) {
+            if (result instanceof Statement) {
+                Class<?> type = result instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+                return proxy(type, result, (name, value) -> value);
+            }
+            return result;
+        }
+
+        private interface Wrapper {
+            Object wrap(String method, Object result) throws Exception;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, Object target, Wrapper wrapper) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                if (method.getName().startsWith("execute")) {
+                    Thread.sleep(DB_LATENCY_MS);
+                }
+                try {
+                    return wrapper.wrap(method.getName(), method.invoke(target, args));
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+        }
+    }
+}
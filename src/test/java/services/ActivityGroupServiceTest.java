@@ -1,9 +1,18 @@
 package services;
 
+import activity.dto.ActivityGroupResponse;
 import activity.dto.GeneralRequest;
+import activity.dto.ResourceVersion;
+import activity.entity.Activity;
 import activity.entity.ActivityGroup;
+import activity.entity.ActivityGroupTombstone;
 import activity.repository.ActivityGroupRepository;
+import activity.repository.ActivityGroupTombstoneRepository;
+import activity.repository.ActivityRepository;
 import activity.services.ActivityGroupService;
+import activity.services.CacheInvalidationService;
+import activity.services.TodoCounterService;
+import activity.util.PageCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,14 +23,21 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 import static activity.services.ActivityGroupService.BAD_REQUEST_STATUS;
 import static activity.services.ActivityService.NOT_FOUND_STATUS;
 import static activity.services.ActivityService.SUCCESS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(SpringExtension.class)
@@ -33,30 +49,99 @@ public class ActivityGroupServiceTest {
     @MockBean
     private ActivityGroupRepository activityGroupRepository;
 
+    @MockBean
+    private ActivityRepository activityRepository;
+
+    @MockBean
+    private CacheInvalidationService cacheInvalidationService;
+
+    @MockBean
+    private TodoCounterService todoCounterService;
+
+    @MockBean
+    private ActivityGroupTombstoneRepository activityGroupTombstoneRepository;
+
     @BeforeEach
     void init () {
-        when(activityGroupRepository.findAllActivity()).thenReturn(List.of(ActivityGroup.builder().build()));
-        when(activityGroupRepository.findByEmail(any())).thenReturn(List.of(ActivityGroup.builder().build()));
-        when(activityGroupRepository.findByActivityId(1L)).thenReturn(ActivityGroup.builder().build());
+        when(activityGroupRepository.findAllActivity(anyInt())).thenReturn(List.of(ActivityGroup.builder().build()));
+        when(activityGroupRepository.findByEmail(any(), anyInt())).thenReturn(List.of(ActivityGroup.builder().build()));
+        when(activityGroupRepository.findByActivityId(1L)).thenReturn(Optional.of(ActivityGroup.builder().build()));
         when(activityGroupRepository.save(any())).thenReturn(ActivityGroup.builder().build());
-        when(activityGroupRepository.existsById(1234L)).thenReturn(Boolean.FALSE);
-        when(activityGroupRepository.existsById(1L)).thenReturn(Boolean.TRUE);
+        when(activityGroupRepository.updateTitle(eq(1L), any(), any())).thenReturn(1);
+        when(activityGroupRepository.deleteActivityById(1L)).thenReturn(1);
+        when(activityGroupTombstoneRepository.save(any())).thenAnswer(x -> x.getArgument(0));
     }
 
     @ParameterizedTest
     @ValueSource(strings = {"", "cek@gmail.com"})
     void givenAnyvalue_whenGetAllActivity_thenSuccess(String email) {
-        assertNotNull(activityGroupService.getAllActivity(email).getBody().getData());
+        assertNotNull(activityGroupService.getAllActivity(email, null, null, false, false).getBody().getData());
+    }
+
+    @Test
+    void givenMoreRowsThanLimit_whenGetAllActivity_thenNextCursor() {
+        LocalDateTime now = LocalDateTime.now();
+        when(activityGroupRepository.findByEmail("cek@gmail.com", 2)).thenReturn(List.of(
+                ActivityGroup.builder().id(1L).updatedDate(now).build(),
+                ActivityGroup.builder().id(2L).updatedDate(now).build()));
+
+        ActivityGroupResponse response = activityGroupService.getAllActivity("cek@gmail.com", null, 1, false, false).getBody();
+
+        assertEquals(1, ((List<?>) response.getData()).size());
+        assertEquals(PageCursor.encode(now, 1L), response.getNextCursor());
+    }
+
+    @Test
+    void givenCursor_whenGetAllActivity_thenReadsAfterCursor() {
+        LocalDateTime now = LocalDateTime.now();
+        when(activityGroupRepository.findByEmailAfter("cek@gmail.com", now, 1L, 11)).thenReturn(List.of(
+                ActivityGroup.builder().id(2L).updatedDate(now).build()));
+
+        ActivityGroupResponse response = activityGroupService.getAllActivity("cek@gmail.com", PageCursor.encode(now, 1L), 10, false, false).getBody();
+
+        assertEquals(1, ((List<?>) response.getData()).size());
+        assertNull(response.getNextCursor());
+    }
+
+    @Test
+    void givenInvalidCursorOrLimit_whenGetAllActivity_thenBadRequest() {
+        assertEquals(BAD_REQUEST_STATUS, activityGroupService.getAllActivity(null, "not-a-cursor", null, false, false).getBody().getStatus());
+        assertEquals(BAD_REQUEST_STATUS, activityGroupService.getAllActivity(null, null, 0, false, false).getBody().getStatus());
+    }
+
+    @Test
+    void givenIncludeTodoItems_whenGetAllActivity_thenOneQueryForAllItems() {
+        when(activityGroupRepository.findByEmail("cek@gmail.com", 1001)).thenReturn(List.of(
+                ActivityGroup.builder().id(1L).build(),
+                ActivityGroup.builder().id(2L).build()));
+        when(activityRepository.findTodoItemsByActivityGroupIdIn(List.of(1L, 2L))).thenReturn(List.of(
+                Activity.builder().id(10L).activityGroupId(1L).build(),
+                Activity.builder().id(11L).activityGroupId(1L).build()));
+
+        List<?> data = (List<?>) activityGroupService.getAllActivity("cek@gmail.com", null, null, true, false).getBody().getData();
+
+        assertEquals(2, ((ActivityGroup) data.get(0)).getTodoItems().size());
+        assertEquals(0, ((ActivityGroup) data.get(1)).getTodoItems().size());
+        verify(activityRepository).findTodoItemsByActivityGroupIdIn(List.of(1L, 2L));
+        verify(activityRepository, never()).findTodoItemsByActivityGroupId(any());
+    }
+
+    @Test
+    void givenNoInclude_whenGetAllActivity_thenNoItemsQuery() {
+        List<?> data = (List<?>) activityGroupService.getAllActivity("cek@gmail.com", null, null, false, false).getBody().getData();
+
+        assertNull(((ActivityGroup) data.get(0)).getTodoItems());
+        verify(activityRepository, never()).findTodoItemsByActivityGroupIdIn(any());
     }
 
     @Test
     void givenIdNotNull_whenGetActivity_thenSuccess() {
-        assertNotNull(activityGroupService.getActivity(1L).getBody().getData());
+        assertNotNull(activityGroupService.getActivity(1L, true, false).getBody().getData());
     }
 
     @Test
     public void givenIdNull_whenGetActivity_thenNotFound() {
-        assertEquals(NOT_FOUND_STATUS, activityGroupService.getActivity(null).getBody().getStatus());
+        assertEquals(NOT_FOUND_STATUS, activityGroupService.getActivity(null, true, false).getBody().getStatus());
     }
 
     @Test
@@ -86,11 +171,29 @@ public class ActivityGroupServiceTest {
 
     @Test
     public void givenIdFound_whenDeleteActivity_thenSuccess() {
-        assertEquals(SUCCESS, activityGroupService.deleteActivity( 1L).getBody().getStatus());
+        ActivityGroupResponse response = activityGroupService.deleteActivity( 1L).getBody();
+        assertEquals(SUCCESS, response.getStatus());
+        assertEquals(1L, ((ActivityGroupTombstone) response.getData()).getActivityGroupId());
     }
 
     @Test
     public void givenIdNotFound_whenDeleteActivity_thenSuccess() {
         assertEquals(NOT_FOUND_STATUS, activityGroupService.deleteActivity( 1234L).getBody().getStatus());
+        verify(activityGroupTombstoneRepository, never()).save(any());
+    }
+
+    @Test
+    public void givenIdFound_whenGetActivityVersion_thenIncludesTodoItems() {
+        LocalDateTime now = LocalDateTime.now();
+        when(activityGroupRepository.findByActivityId(2L)).thenReturn(Optional.of(ActivityGroup.builder().id(2L).updatedDate(now).build()));
+        when(activityRepository.findVersionByActivityGroupId(2L)).thenReturn(new ResourceVersion(1L, now, 5L));
+
+        assertEquals(ResourceVersion.of(2L, now).and(new ResourceVersion(1L, now, 5L)).getEtag(),
+                activityGroupService.getActivityVersion(2L, true).getEtag());
+    }
+
+    @Test
+    public void givenIdNotFound_whenGetActivityVersion_thenNull() {
+        assertNull(activityGroupService.getActivityVersion(1234L, true));
     }
 }
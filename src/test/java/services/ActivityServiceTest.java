@@ -1,9 +1,14 @@
 package services;
 
+import activity.dto.BulkItemResult;
+import activity.dto.BulkRequest;
 import activity.dto.GeneralRequest;
 import activity.entity.Activity;
 import activity.repository.ActivityRepository;
 import activity.services.ActivityService;
+import activity.services.CacheInvalidationService;
+import activity.services.TodoCounterService;
+import activity.services.TodoItemWriteBuffer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,13 +18,20 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.util.List;
+import java.util.Optional;
 
 import static activity.services.ActivityGroupService.BAD_REQUEST_STATUS;
 import static activity.services.ActivityService.NOT_FOUND_STATUS;
 import static activity.services.ActivityService.SUCCESS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(SpringExtension.class)
@@ -31,13 +43,26 @@ public class ActivityServiceTest {
     @MockBean
     private ActivityRepository activityRepository;
 
+    @MockBean
+    private TodoItemWriteBuffer todoItemWriteBuffer;
+
+    @MockBean
+    private CacheInvalidationService cacheInvalidationService;
+
+    @MockBean
+    private TodoCounterService todoCounterService;
+
     @BeforeEach
     void init () {
         when(activityRepository.findTodoItemsByActivityGroupId(1L)).thenReturn(List.of(Activity.builder().build()));
-        when(activityRepository.findItemById(1L)).thenReturn(Activity.builder().build());
+        when(activityRepository.findItemById(1L)).thenReturn(Optional.of(Activity.builder().build()));
         when(activityRepository.save(any())).thenReturn(Activity.builder().build());
-        when(activityRepository.existsById(1234L)).thenReturn(Boolean.FALSE);
-        when(activityRepository.existsById(1L)).thenReturn(Boolean.TRUE);
+        when(todoItemWriteBuffer.save(any())).thenReturn(Activity.builder().build());
+        when(activityRepository.updateTitle(eq(1L), any(), any())).thenReturn(1);
+        when(activityRepository.updateIsActive(eq(1L), any(), any())).thenReturn(1);
+        when(activityRepository.deleteItemById(1L)).thenReturn(1);
+        when(activityRepository.findExistingIds(anyCollection())).thenReturn(List.of(1L));
+        when(activityRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
     }
 
     @Test
@@ -60,6 +85,16 @@ public class ActivityServiceTest {
         assertEquals(SUCCESS, activityService.getTodoItems(1L).getBody().getStatus());
     }
 
+    @Test
+    void givenCachedItem_whenGetTodoItems_thenCopyReturned() {
+        Activity cached = Activity.builder().id(1L).title("cached").build();
+        when(activityRepository.findItemById(1L)).thenReturn(Optional.of(cached));
+
+        Object data = activityService.getTodoItems(1L).getBody().getData();
+        assertEquals(cached, data);
+        assertNotSame(cached, data);
+    }
+
     @Test
     public void givenTitleAndActivityGroupIdNotNull_whenCreateTodoItems_thenSuccess() {
         assertNotNull(activityService.createTodoItems(GeneralRequest.builder().title("test").activityGroupId(1L).build()).getBody().getData());
@@ -85,6 +120,14 @@ public class ActivityServiceTest {
         assertNotNull(activityService.updateTodoItems(GeneralRequest.builder().title("test").build(), 1L).getBody().getData());
     }
 
+    @Test
+    public void givenIsActive_whenUpdateTodoItems_thenOnlyStatusUpdated() {
+        activityService.updateTodoItems(GeneralRequest.builder().title("test").isActive(Boolean.FALSE).build(), 1L);
+
+        verify(activityRepository).updateIsActive(eq(1L), eq(Boolean.FALSE), any());
+        verify(activityRepository, never()).updateTitle(any(), any(), any());
+    }
+
     @Test
     public void givenisActive_whenUpdateTodoItems_thenSuccess() {
         assertNotNull(activityService.updateTodoItems(GeneralRequest.builder().isActive(Boolean.TRUE).build(), 1L).getBody().getData());
@@ -104,4 +147,50 @@ public class ActivityServiceTest {
     public void givenIdNotFound_whenDeleteTodoItems_thenSuccess() {
         assertEquals(NOT_FOUND_STATUS, activityService.deleteTodoItems( 1234L).getBody().getStatus());
     }
+
+    @Test
+    public void givenMixedItems_whenCreateTodoItemsBulk_thenPerItemResults() {
+        BulkRequest request = BulkRequest.builder()
+                .items(List.of(GeneralRequest.builder().title("test").activityGroupId(1L).build(),
+                        GeneralRequest.builder().activityGroupId(1L).build()))
+                .build();
+
+        List<BulkItemResult> results = (List<BulkItemResult>) activityService.createTodoItemsBulk(request).getBody().getData();
+
+        assertEquals(SUCCESS, results.get(0).getStatus());
+        assertEquals(BAD_REQUEST_STATUS, results.get(1).getStatus());
+    }
+
+    @Test
+    public void givenItemsEmpty_whenCreateTodoItemsBulk_thenBadRequest() {
+        assertEquals(BAD_REQUEST_STATUS, activityService.createTodoItemsBulk(BulkRequest.builder().build()).getBody().getStatus());
+    }
+
+    @Test
+    public void givenSomeIdsNotFound_whenUpdateTodoItemsBulk_thenPerItemResults() {
+        BulkRequest request = BulkRequest.builder().ids(List.of(1L, 1234L)).isActive(Boolean.FALSE).build();
+
+        List<BulkItemResult> results = (List<BulkItemResult>) activityService.updateTodoItemsBulk(request).getBody().getData();
+
+        assertEquals(SUCCESS, results.get(0).getStatus());
+        assertEquals(NOT_FOUND_STATUS, results.get(1).getStatus());
+    }
+
+    @Test
+    public void givenNoChanges_whenUpdateTodoItemsBulk_thenBadRequest() {
+        assertEquals(BAD_REQUEST_STATUS, activityService.updateTodoItemsBulk(BulkRequest.builder().ids(List.of(1L)).build()).getBody().getStatus());
+    }
+
+    @Test
+    public void givenSomeIdsNotFound_whenDeleteTodoItemsBulk_thenPerItemResults() {
+        List<BulkItemResult> results = (List<BulkItemResult>) activityService.deleteTodoItemsBulk(List.of(1L, 1234L)).getBody().getData();
+
+        assertEquals(SUCCESS, results.get(0).getStatus());
+        assertEquals(NOT_FOUND_STATUS, results.get(1).getStatus());
+    }
+
+    @Test
+    public void givenIdsEmpty_whenDeleteTodoItemsBulk_thenBadRequest() {
+        assertEquals(BAD_REQUEST_STATUS, activityService.deleteTodoItemsBulk(List.of()).getBody().getStatus());
+    }
 }
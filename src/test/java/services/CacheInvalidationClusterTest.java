@@ -0,0 +1,79 @@
+package services;
+
+import activity.Application;
+import activity.dto.GeneralRequest;
+import activity.entity.ActivityGroup;
+import activity.repository.ActivityGroupRepository;
+import activity.services.ActivityGroupService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+
+import static activity.config.CacheConfig.ACTIVITY_GROUPS_CACHE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Two application contexts standing in for two nodes behind a load balancer,
+ * sharing one embedded database.
+ */
+public class CacheInvalidationClusterTest {
+
+    private ConfigurableApplicationContext nodeA;
+    private ConfigurableApplicationContext nodeB;
+
+    @BeforeEach
+    void startNodes() {
+        nodeA = startNode("create-drop");
+        nodeB = startNode("none");
+    }
+
+    @AfterEach
+    void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    @Test
+    void givenUpdateOnOneNode_whenPolled_thenOtherNodeEvicts() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        Long id = nodeA.getBean(ActivityGroupRepository.class)
+                .save(ActivityGroup.builder().title("before").createdDate(now).updatedDate(now).build())
+                .getId();
+
+        ActivityGroupService serviceB = nodeB.getBean(ActivityGroupService.class);
+        Cache cacheB = nodeB.getBean(CacheManager.class).getCache(ACTIVITY_GROUPS_CACHE);
+
+        assertEquals("before", ((ActivityGroup) serviceB.getActivity(id, true, false).getBody().getData()).getTitle());
+        assertNotNull(cacheB.get(id));
+
+        nodeA.getBean(ActivityGroupService.class).updateActivity(GeneralRequest.builder().title("after").build(), id);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cacheB.get(id) != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertNull(cacheB.get(id));
+        assertEquals("after", ((ActivityGroup) serviceB.getActivity(id, true, false).getBody().getData()).getTitle());
+    }
+
+    private static ConfigurableApplicationContext startNode(String ddlAuto) {
+        return new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:cluster;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                        "--spring.jpa.show-sql=false",
+                        "--cache.invalidation.poll-interval-ms=50");
+    }
+}
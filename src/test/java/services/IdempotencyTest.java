@@ -0,0 +1,138 @@
+package services;
+
+import activity.Application;
+import activity.dto.ActivityGroupResponse;
+import activity.dto.GeneralRequest;
+import activity.entity.ActivityGroup;
+import activity.services.ActivityGroupService;
+import activity.services.IdempotencyService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static activity.controller.ActivityController.ACTIVITY_GROUP_URL;
+import static activity.services.IdempotencyService.IDEMPOTENT_REPLAYED_HEADER;
+import static activity.services.IdempotencyService.KEY_IN_PROGRESS_MESSAGE;
+import static activity.services.IdempotencyService.KEY_REUSED_MESSAGE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Two application contexts standing in for two nodes, sharing one embedded
+ * database, so a retry can land on a node that never saw the first request.
+ */
+public class IdempotencyTest {
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode("create-drop");
+        nodeB = startNode("none");
+        jdbcTemplate = nodeA.getBean(JdbcTemplate.class);
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    @Test
+    void givenRetries_whenExecute_thenCreatedOnceAndFirstResponseReplayed() {
+        GeneralRequest request = GeneralRequest.builder().title("retried").email("retry@gmail.com").build();
+
+        ResponseEntity<ActivityGroupResponse> first = create(nodeA, "key-retry", request);
+        ResponseEntity<ActivityGroupResponse> sameNode = create(nodeA, "key-retry", request);
+        ResponseEntity<ActivityGroupResponse> otherNode = create(nodeB, "key-retry", request);
+
+        assertEquals(HttpStatus.CREATED, first.getStatusCode());
+        assertNull(first.getHeaders().getFirst(IDEMPOTENT_REPLAYED_HEADER));
+        long id = ((ActivityGroup) first.getBody().getData()).getId();
+        for (ResponseEntity<ActivityGroupResponse> retry : new ResponseEntity[]{sameNode, otherNode}) {
+            assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+            assertEquals("true", retry.getHeaders().getFirst(IDEMPOTENT_REPLAYED_HEADER));
+            assertEquals(first.getBody().getStatus(), retry.getBody().getStatus());
+            assertEquals(id, ((Number) ((Map<?, ?>) retry.getBody().getData()).get("id")).longValue());
+        }
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM activities WHERE email = 'retry@gmail.com'", Long.class));
+
+        //The same key on another endpoint is another key
+        assertEquals(HttpStatus.BAD_REQUEST, nodeA.getBean(IdempotencyService.class).execute("key-retry", "/todo-items",
+                GeneralRequest.builder().build(), () -> ResponseEntity.badRequest().body(ActivityGroupResponse.builder().build())).getStatusCode());
+    }
+
+    @Test
+    void givenKeyReusedWithOtherRequest_whenExecute_thenUnprocessable() {
+        create(nodeA, "key-reused", GeneralRequest.builder().title("one").build());
+
+        ResponseEntity<ActivityGroupResponse> response = create(nodeB, "key-reused", GeneralRequest.builder().title("two").build());
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertEquals(KEY_REUSED_MESSAGE, response.getBody().getMessage());
+    }
+
+    @Test
+    void givenFirstRequestRunning_whenExecute_thenConflictUntilLeaseExpires() {
+        GeneralRequest request = GeneralRequest.builder().title("slow").email("slow@gmail.com").build();
+        nodeA.getBean(IdempotencyService.class).execute("key-running", ACTIVITY_GROUP_URL, request, () -> {
+            ResponseEntity<ActivityGroupResponse> concurrent = create(nodeB, "key-running", request);
+            assertEquals(HttpStatus.CONFLICT, concurrent.getStatusCode());
+            assertEquals(KEY_IN_PROGRESS_MESSAGE, concurrent.getBody().getMessage());
+
+            //As if the first node had died a while ago, the retry takes the key over
+            jdbcTemplate.update("UPDATE idempotency_keys SET created_date = ? WHERE idempotency_key = 'key-running'",
+                    LocalDateTime.now().minusMinutes(5));
+            assertEquals(HttpStatus.CREATED, create(nodeB, "key-running", request).getStatusCode());
+            return ResponseEntity.status(HttpStatus.CREATED).body(ActivityGroupResponse.builder().build());
+        });
+
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM activities WHERE email = 'slow@gmail.com'", Long.class));
+    }
+
+    @Test
+    void givenFailedFirstRequest_whenRetried_thenRunsAgain() {
+        IdempotencyService idempotencyService = nodeA.getBean(IdempotencyService.class);
+        GeneralRequest request = GeneralRequest.builder().title("flaky").email("flaky@gmail.com").build();
+
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute("key-failed", ACTIVITY_GROUP_URL, request, () -> {
+            throw new IllegalStateException("database went away");
+        }));
+
+        assertEquals(HttpStatus.CREATED, create(nodeB, "key-failed", request).getStatusCode());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM activities WHERE email = 'flaky@gmail.com'", Long.class));
+    }
+
+    @Test
+    void givenTooLongKey_whenExecute_thenBadRequest() {
+        assertEquals(HttpStatus.BAD_REQUEST, create(nodeA, "k".repeat(256), GeneralRequest.builder().title("long").build()).getStatusCode());
+    }
+
+    private static ResponseEntity<ActivityGroupResponse> create(ConfigurableApplicationContext node, String key, GeneralRequest request) {
+        ActivityGroupService activityGroupService = node.getBean(ActivityGroupService.class);
+        return node.getBean(IdempotencyService.class)
+                .execute(key, ACTIVITY_GROUP_URL, request, () -> activityGroupService.createActivity(request));
+    }
+
+    private static ConfigurableApplicationContext startNode(String ddlAuto) {
+        return new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:idempotency;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                        "--spring.jpa.show-sql=false");
+    }
+}
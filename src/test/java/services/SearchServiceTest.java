@@ -0,0 +1,127 @@
+package services;
+
+import activity.dto.ActivityGroupResponse;
+import activity.entity.Activity;
+import activity.entity.ActivityGroup;
+import activity.repository.ActivityGroupRepository;
+import activity.repository.ActivityRepository;
+import activity.services.SearchService;
+import activity.util.PageCursor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+
+import static activity.services.ActivityGroupService.BAD_REQUEST_STATUS;
+import static activity.services.ActivityGroupService.SUCCESS;
+import static activity.services.SearchService.BAD_REQUEST_ACTIVITY_GROUPS_SCOPE_MESSAGE;
+import static activity.services.SearchService.BAD_REQUEST_TODO_ITEMS_SCOPE_MESSAGE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = SearchService.class)
+@TestPropertySource(properties = {"search.min-word-length=3", "search.max-words=3", "search.page.default-size=2", "search.max-offset=4"})
+public class SearchServiceTest {
+    @Autowired
+    private SearchService searchService;
+
+    @MockBean
+    private ActivityRepository activityRepository;
+
+    @MockBean
+    private ActivityGroupRepository activityGroupRepository;
+
+    @Test
+    void givenFreeText_whenToBooleanQuery_thenEveryWordRequiredPrefix() {
+        assertEquals("+buy* +milk*", searchService.toBooleanQuery("Buy milk!"));
+        assertEquals("+süt* +2024*", searchService.toBooleanQuery("süt, 2024"));
+    }
+
+    @Test
+    void givenOperatorsAndShortWords_whenToBooleanQuery_thenDropped() {
+        assertEquals("+milk* +bread*", searchService.toBooleanQuery("-milk +a (bread) @2 \"to\""));
+        assertEquals("+one* +two* +three*", searchService.toBooleanQuery("one two three four"));
+        assertEquals("", searchService.toBooleanQuery("a to"));
+    }
+
+    @Test
+    void givenGroup_whenSearchTodoItems_thenScopedToGroup() {
+        when(activityRepository.searchByActivityGroupId(1L, "+milk*", 3, 0)).thenReturn(List.of(Activity.builder().id(10L).build()));
+
+        ActivityGroupResponse response = searchService.searchTodoItems("milk", 1L, "cek@gmail.com", null, null).getBody();
+
+        assertEquals(SUCCESS, response.getStatus());
+        assertEquals(1, ((List<?>) response.getData()).size());
+        assertNull(response.getNextCursor());
+        verify(activityRepository, never()).searchByEmail(any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void givenEmail_whenSearchTodoItems_thenScopedToEmail() {
+        searchService.searchTodoItems("milk", null, "cek@gmail.com", null, null);
+
+        verify(activityRepository).searchByEmail("cek@gmail.com", "+milk*", 3, 0);
+    }
+
+    @Test
+    void givenMoreResultsThanLimit_whenSearch_thenNextCursorIsNextOffset() {
+        when(activityGroupRepository.searchByEmail("cek@gmail.com", "+milk*", 3, 0)).thenReturn(List.of(
+                ActivityGroup.builder().id(1L).build(),
+                ActivityGroup.builder().id(2L).build(),
+                ActivityGroup.builder().id(3L).build()));
+
+        ActivityGroupResponse first = searchService.searchActivityGroups("milk", "cek@gmail.com", null, null).getBody();
+
+        assertEquals(2, ((List<?>) first.getData()).size());
+        assertEquals(PageCursor.encodeOffset(2), first.getNextCursor());
+
+        searchService.searchActivityGroups("milk", "cek@gmail.com", first.getNextCursor(), 5);
+        verify(activityGroupRepository).searchByEmail("cek@gmail.com", "+milk*", 6, 2);
+    }
+
+    @Test
+    void givenInvalidQueryLimitOrCursor_whenSearch_thenBadRequest() {
+        assertEquals(BAD_REQUEST_STATUS, searchService.searchTodoItems(null, 1L, null, null, null).getBody().getStatus());
+        assertEquals("q must contain a word of at least 3 characters",
+                searchService.searchTodoItems("a b", 1L, null, null, null).getBody().getMessage());
+        assertEquals(BAD_REQUEST_STATUS, searchService.searchActivityGroups("milk", "cek@gmail.com", null, 101).getBody().getStatus());
+        assertEquals(BAD_REQUEST_STATUS, searchService.searchActivityGroups("milk", "cek@gmail.com", "not-a-cursor", null).getBody().getStatus());
+        verify(activityRepository, never()).searchByActivityGroupId(any(), anyString(), anyInt(), anyInt());
+        verify(activityGroupRepository, never()).searchByEmail(any(), anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    void givenNoGroupOrEmail_whenSearch_thenBadRequest() {
+        assertEquals(BAD_REQUEST_TODO_ITEMS_SCOPE_MESSAGE, searchService.searchTodoItems("milk", null, null, null, null).getBody().getMessage());
+        assertEquals(BAD_REQUEST_ACTIVITY_GROUPS_SCOPE_MESSAGE, searchService.searchActivityGroups("milk", "", null, null).getBody().getMessage());
+        verify(activityRepository, never()).searchByEmail(any(), anyString(), anyInt(), anyInt());
+        verify(activityGroupRepository, never()).searchByEmail(any(), anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    void givenMaxOffset_whenSearch_thenNoCursorPastIt() {
+        when(activityRepository.searchByActivityGroupId(1L, "+milk*", 3, 4)).thenReturn(List.of(
+                Activity.builder().id(1L).build(),
+                Activity.builder().id(2L).build(),
+                Activity.builder().id(3L).build()));
+
+        ActivityGroupResponse last = searchService.searchTodoItems("milk", 1L, null, PageCursor.encodeOffset(4), null).getBody();
+        assertEquals(2, ((List<?>) last.getData()).size());
+        assertNull(last.getNextCursor());
+
+        assertEquals("cursor cannot go past result 4",
+                searchService.searchTodoItems("milk", 1L, null, PageCursor.encodeOffset(6), null).getBody().getMessage());
+    }
+}
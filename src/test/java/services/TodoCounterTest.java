@@ -0,0 +1,141 @@
+package services;
+
+import activity.Application;
+import activity.dto.BulkRequest;
+import activity.dto.GeneralRequest;
+import activity.dto.TodoSummary;
+import activity.entity.Activity;
+import activity.entity.ActivityGroup;
+import activity.repository.ActivityGroupRepository;
+import activity.services.ActivityService;
+import activity.services.TodoCounterService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the To-Do Item write paths against an embedded database and checks
+ * the counters against a count over the todos table after each of them.
+ */
+public class TodoCounterTest {
+
+    private static ConfigurableApplicationContext context;
+    private static ActivityService activityService;
+    private static TodoCounterService todoCounterService;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void start() {
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:counters;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        //The concurrent writes below must all run, not be shed by the write bulkhead
+                        "--admission.enabled=false");
+        activityService = context.getBean(ActivityService.class);
+        todoCounterService = context.getBean(TodoCounterService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @Test
+    void givenSingleItemWrites_whenSummarized_thenMatchesTodos() {
+        long groupId = createGroup();
+        long first = create(groupId, "high");
+        long second = create(groupId, "high");
+        create(groupId, null);
+        assertCounted(groupId, 3, 3, Map.of("high", 2L, "very-high", 1L));
+
+        activityService.updateTodoItems(GeneralRequest.builder().isActive(Boolean.FALSE).build(), first);
+        //Setting the same status again must not count twice
+        activityService.updateTodoItems(GeneralRequest.builder().isActive(Boolean.FALSE).build(), first);
+        activityService.updateTodoItems(GeneralRequest.builder().title("renamed").build(), second);
+        assertCounted(groupId, 3, 2, Map.of("high", 2L, "very-high", 1L));
+
+        activityService.deleteTodoItems(first);
+        activityService.deleteTodoItems(first);
+        assertCounted(groupId, 2, 2, Map.of("high", 1L, "very-high", 1L));
+    }
+
+    @Test
+    void givenBulkWrites_whenSummarized_thenMatchesTodos() {
+        long groupId = createGroup();
+        List<GeneralRequest> items = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            items.add(GeneralRequest.builder().activityGroupId(groupId).title("bulk " + i).priority("low").build());
+        }
+        activityService.createTodoItemsBulk(BulkRequest.builder().items(items).build());
+        assertCounted(groupId, 5, 5, Map.of("low", 5L));
+
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM todos WHERE activity_group_id = ? ORDER BY id", Long.class, groupId);
+        activityService.updateTodoItemsBulk(BulkRequest.builder().ids(ids.subList(0, 2)).priority("high").isActive(Boolean.FALSE).build());
+        assertCounted(groupId, 5, 3, Map.of("low", 3L, "high", 2L));
+
+        activityService.deleteTodoItemsBulk(ids.subList(1, 3));
+        assertCounted(groupId, 3, 2, Map.of("low", 2L, "high", 1L));
+    }
+
+    @Test
+    void givenConcurrentWrites_whenSummarized_thenMatchesTodos() {
+        long groupId = createGroup();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ids.add(create(groupId, i % 2 == 0 ? "high" : "low"));
+        }
+
+        List<CompletableFuture<?>> writes = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            long id = ids.get(i);
+            writes.add(CompletableFuture.runAsync(() -> activityService.updateTodoItems(GeneralRequest.builder().isActive(Boolean.FALSE).build(), id)));
+            writes.add(CompletableFuture.runAsync(() -> activityService.updateTodoItems(GeneralRequest.builder().isActive(Boolean.FALSE).build(), id)));
+            if (i % 4 == 0) {
+                writes.add(CompletableFuture.runAsync(() -> activityService.deleteTodoItems(id)));
+            }
+        }
+        CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).join();
+
+        assertCounted(groupId, 15, 0, Map.of("high", 5L, "low", 10L));
+    }
+
+    private static long createGroup() {
+        LocalDateTime now = LocalDateTime.now();
+        return context.getBean(ActivityGroupRepository.class)
+                .save(ActivityGroup.builder().title("counted").createdDate(now).updatedDate(now).build())
+                .getId();
+    }
+
+    private static long create(long groupId, String priority) {
+        return ((Activity) activityService.createTodoItems(GeneralRequest.builder()
+                .activityGroupId(groupId).title("item").priority(priority).build()).getBody().getData()).getId();
+    }
+
+    private static void assertCounted(long groupId, long total, long active, Map<String, Long> priorities) {
+        TodoSummary summary = todoCounterService.getSummary(groupId);
+        assertEquals(total, summary.getTotal());
+        assertEquals(active, summary.getActive());
+        assertEquals(new TreeMap<>(priorities), summary.getPriorities());
+
+        assertEquals(total, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM todos WHERE activity_group_id = ?", Long.class, groupId));
+        assertEquals(active, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM todos WHERE activity_group_id = ? AND is_active", Long.class, groupId));
+    }
+}
@@ -0,0 +1,175 @@
+package services;
+
+import activity.Application;
+import activity.dto.ActivityGroupResponse;
+import activity.dto.TodoItemFilter;
+import activity.entity.Activity;
+import activity.repository.ActivityRepositoryImpl;
+import activity.services.ActivityService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static activity.services.ActivityService.BAD_REQUEST_ID_MESSAGE;
+import static activity.services.ActivityService.BAD_REQUEST_RANGE_MESSAGE;
+import static activity.services.ActivityService.BAD_REQUEST_SORT_MESSAGE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs filtered To-Do Item queries against an embedded database and checks
+ * both the rows and the plan of the generated SQL.
+ */
+public class TodoItemFilterTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private static ConfigurableApplicationContext context;
+    private static ActivityService activityService;
+    private static JdbcTemplate jdbcTemplate;
+    private static long groupId;
+
+    @BeforeAll
+    static void start() {
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:filter;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false");
+        activityService = context.getBean(ActivityService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        seed();
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @Test
+    void givenStatusAndPriority_whenFiltered_thenNewestUpdatesFirst() {
+        List<Long> ids = ids(TodoItemFilter.builder().activityGroupId(groupId).isActive(true).priority("high").build(), null, 3);
+
+        //Items 0, 4, 8, ... are active and high, item i was updated i minutes after START
+        assertEquals(List.of(36L, 32L, 28L), ids);
+    }
+
+    @Test
+    void givenRangesAndAscendingSort_whenFiltered_thenOnlyRowsInRange() {
+        TodoItemFilter filter = TodoItemFilter.builder().activityGroupId(groupId)
+                .updatedFrom(START.plusMinutes(10)).updatedTo(START.plusMinutes(14))
+                .build();
+        assertEquals(List.of(10L, 11L, 12L, 13L), ids(filter, "updated_at", null));
+
+        filter = TodoItemFilter.builder().activityGroupId(groupId).isActive(false)
+                .createdFrom(START.minusMinutes(5)).createdTo(START.minusMinutes(1))
+                .build();
+        //Item i was created 40 - i minutes before START, odd items are done
+        assertEquals(List.of(37L, 35L), ids(filter, "-created_at", null));
+    }
+
+    @Test
+    void givenBadParameters_whenFiltered_thenBadRequest() {
+        assertEquals(BAD_REQUEST_ID_MESSAGE, badRequest(TodoItemFilter.builder().isActive(true).build(), null, null));
+        assertEquals(BAD_REQUEST_SORT_MESSAGE, badRequest(TodoItemFilter.builder().activityGroupId(groupId).build(), "title", null));
+        assertEquals(BAD_REQUEST_RANGE_MESSAGE, badRequest(TodoItemFilter.builder().activityGroupId(groupId)
+                .updatedFrom(START).updatedTo(START).build(), null, null));
+        assertEquals(HttpStatus.BAD_REQUEST, activityService.getFilteredTodoItems(
+                TodoItemFilter.builder().activityGroupId(groupId).build(), null, 1001).getStatusCode());
+    }
+
+    //H2 only reports a sorted read when ORDER BY starts with the first index column, TodoItemPlanTest checks that on MySQL
+    @Test
+    void givenIndexedFilters_whenExplained_thenIndexLookupWithoutScan() {
+        String plan = explain(TodoItemFilter.builder().activityGroupId(groupId).isActive(true).priority("high")
+                .updatedFrom(START).sortColumn(ActivityRepositoryImpl.UPDATED_DATE_COLUMN).descending(true).limit(10).build());
+        assertIndexLookup(plan, "IDX_TODOS_GROUP_ACTIVE_PRIORITY_UPDATED", "ACTIVITY_GROUP_ID = ?1", "IS_ACTIVE = ?2", "PRIORITY = ?3", "UPDATED_DATE >= ?4");
+
+        plan = explain(TodoItemFilter.builder().activityGroupId(groupId).isActive(false).priority("low")
+                .sortColumn(ActivityRepositoryImpl.UPDATED_DATE_COLUMN).limit(10).build());
+        assertIndexLookup(plan, "IDX_TODOS_GROUP_ACTIVE_PRIORITY_UPDATED", "ACTIVITY_GROUP_ID = ?1", "IS_ACTIVE = ?2", "PRIORITY = ?3");
+
+        plan = explain(TodoItemFilter.builder().activityGroupId(groupId).isActive(true)
+                .sortColumn(ActivityRepositoryImpl.UPDATED_DATE_COLUMN).descending(true).limit(10).build());
+        assertIndexLookup(plan, "IDX_TODOS_GROUP_ACTIVE_UPDATED", "ACTIVITY_GROUP_ID = ?1", "IS_ACTIVE = ?2");
+
+        plan = explain(TodoItemFilter.builder().activityGroupId(groupId).priority("low")
+                .updatedFrom(START).sortColumn(ActivityRepositoryImpl.UPDATED_DATE_COLUMN).limit(10).build());
+        assertIndexLookup(plan, "IDX_TODOS_GROUP_PRIORITY_UPDATED", "ACTIVITY_GROUP_ID = ?1", "PRIORITY = ?2", "UPDATED_DATE >= ?3");
+
+        plan = explain(TodoItemFilter.builder().activityGroupId(groupId)
+                .updatedTo(START).sortColumn(ActivityRepositoryImpl.UPDATED_DATE_COLUMN).descending(true).limit(10).build());
+        assertIndexLookup(plan, "IDX_TODOS_GROUP_UPDATED", "ACTIVITY_GROUP_ID = ?1", "UPDATED_DATE < ?2");
+    }
+
+    private static void assertIndexLookup(String plan, String index, String... conditions) {
+        String lookup = plan.substring(plan.indexOf("/*"), plan.indexOf("*/"));
+        assertEquals(true, lookup.contains("PUBLIC." + index + ":"), plan);
+        for (String condition : conditions) {
+            assertEquals(true, lookup.contains(condition), plan);
+        }
+        assertEquals(false, plan.contains("tableScan"), plan);
+    }
+
+    private static String explain(TodoItemFilter filter) {
+        Map<String, Object> parameters = new HashMap<>();
+        String sql = ActivityRepositoryImpl.sql(filter, parameters);
+        return new NamedParameterJdbcTemplate(jdbcTemplate).queryForObject("EXPLAIN " + sql, parameters, String.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Long> ids(TodoItemFilter filter, String sort, Integer limit) {
+        ResponseEntity<ActivityGroupResponse> response = activityService.getFilteredTodoItems(filter, sort, limit);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return ((List<Activity>) response.getBody().getData()).stream()
+                .map(activity -> activity.getId() - 800_000_000L)
+                .collect(Collectors.toList());
+    }
+
+    private static String badRequest(TodoItemFilter filter, String sort, Integer limit) {
+        ResponseEntity<ActivityGroupResponse> response = activityService.getFilteredTodoItems(filter, sort, limit);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        return response.getBody().getMessage();
+    }
+
+    private static void seed() {
+        Timestamp now = Timestamp.valueOf(START);
+        jdbcTemplate.update("INSERT INTO activities (title, created_date, updated_date, email) VALUES (?, ?, ?, ?)",
+                "filter", now, now, "filter@gmail.com");
+        groupId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM activities", Long.class);
+        jdbcTemplate.update("INSERT INTO activities (title, created_date, updated_date, email) VALUES (?, ?, ?, ?)",
+                "other", now, now, "filter@gmail.com");
+        long otherGroupId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM activities", Long.class);
+
+        String[] priorities = {"high", "low"};
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            rows.add(new Object[]{800_000_000L + i, groupId, "item " + i, i % 2 == 0, priorities[(i / 2) % 2],
+                    Timestamp.valueOf(START.minusMinutes(40 - i)), Timestamp.valueOf(START.plusMinutes(i))});
+        }
+        //Another group with the same values, so the plans cannot get away with a full scan
+        for (int i = 0; i < 40; i++) {
+            rows.add(new Object[]{800_001_000L + i, otherGroupId, "other " + i, true, "high", now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO todos (id, activity_group_id, title, is_active, priority, created_date, updated_date) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+        //Selectivity for the optimizer, as MySQL keeps it for InnoDB
+        jdbcTemplate.execute("ANALYZE");
+    }
+}
@@ -0,0 +1,88 @@
+package services;
+
+import activity.Application;
+import activity.dto.ActivityGroupResponse;
+import activity.dto.GeneralRequest;
+import activity.entity.Activity;
+import activity.services.ActivityService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Seeds the id_blocks allocator the way the migration does on a database
+ * that already holds To-Do Items, then creates more than one block of new
+ * items and checks none of them reuses an existing id.
+ */
+public class TodoItemIdTest {
+
+    private static final int EXISTING_ITEMS = 500;
+
+    private static ConfigurableApplicationContext context;
+    private static ActivityService activityService;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void start() {
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:id_blocks;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false");
+        activityService = context.getBean(ActivityService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @Test
+    void givenExistingItems_whenSeededAndCreated_thenIdsAboveExisting() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= EXISTING_ITEMS; id++) {
+            rows.add(new Object[]{id, 1L, "existing " + id, true, "high", now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO todos (id, activity_group_id, title, is_active, priority, created_date, updated_date) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+
+        //Runs before the first generated insert, like on a database upgraded to the block allocator
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/mysql/V2__id_blocks.sql"))
+                .execute(context.getBean(DataSource.class));
+
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 150; i++) {
+            ResponseEntity<ActivityGroupResponse> response = activityService.createTodoItems(GeneralRequest.builder()
+                    .activityGroupId(1L).title("new " + i).build());
+            assertEquals(HttpStatus.CREATED, response.getStatusCode());
+
+            long id = ((Activity) response.getBody().getData()).getId();
+            assertTrue(id > EXISTING_ITEMS, "id " + id + " collides with an existing item");
+            assertTrue(ids.add(id));
+        }
+        assertEquals(EXISTING_ITEMS + 150L, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM todos", Long.class));
+    }
+}
@@ -0,0 +1,156 @@
+package services;
+
+import activity.Application;
+import activity.dto.ActivityGroupResponse;
+import activity.dto.BulkItemResult;
+import activity.dto.ImportResult;
+import activity.dto.TodoSummary;
+import activity.services.TodoCounterService;
+import activity.services.TodoItemImporter;
+import activity.services.TodoListExporter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static activity.services.ActivityService.BAD_REQUEST_ID_MESSAGE;
+import static activity.services.ActivityService.BAD_REQUEST_TITLE_MESSAGE;
+import static activity.services.TodoItemImporter.BAD_REQUEST_FORMAT_MESSAGE;
+import static activity.services.TodoItemImporter.BAD_REQUEST_GROUP_ID_MESSAGE;
+import static activity.services.TodoItemImporter.BAD_REQUEST_HEADER_MESSAGE;
+import static activity.services.TodoItemImporter.BAD_REQUEST_IS_ACTIVE_MESSAGE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Imports files into an embedded database with a batch size small enough
+ * that every import spans several commits.
+ */
+public class TodoItemImporterTest {
+
+    private static ConfigurableApplicationContext context;
+    private static TodoItemImporter todoItemImporter;
+    private static TodoListExporter todoListExporter;
+    private static TodoCounterService todoCounterService;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void start() {
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:import;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--todo.import.batch-size=3");
+        todoItemImporter = context.getBean(TodoItemImporter.class);
+        todoListExporter = context.getBean(TodoListExporter.class);
+        todoCounterService = context.getBean(TodoCounterService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @Test
+    void givenCsvWithBadRows_whenImport_thenValidRowsInsertedAndErrorsByRow() {
+        long groupId = createGroup("csv@gmail.com");
+        String csv = "Title,priority,is_active,activity_group_id\n" +
+                "milk,high,,\n" +
+                "\"bread, brown\",,false,\n" +
+                ",low,,\n" +
+                "eggs,,maybe,\n" +
+                "\n" +
+                "tea,,TRUE,x\n" +
+                "jam,,0," + groupId + "\n" +
+                "rice,low,1,\n";
+
+        ImportResult result = importFile("todos.csv", csv.getBytes(StandardCharsets.UTF_8), groupId);
+
+        assertEquals(7, result.getRows());
+        assertEquals(4, result.getImported());
+        assertEquals(3, result.getFailed());
+        assertEquals(List.of(4, 5, 7), result.getErrors().stream().map(BulkItemResult::getIndex).collect(Collectors.toList()));
+        assertEquals(List.of(BAD_REQUEST_TITLE_MESSAGE, BAD_REQUEST_IS_ACTIVE_MESSAGE, BAD_REQUEST_GROUP_ID_MESSAGE),
+                result.getErrors().stream().map(BulkItemResult::getMessage).collect(Collectors.toList()));
+        assertEquals(List.of("bread, brown", "jam", "milk", "rice"), jdbcTemplate.queryForList(
+                "SELECT title FROM todos WHERE activity_group_id = ? ORDER BY title", String.class, groupId));
+
+        TodoSummary summary = todoCounterService.getSummary(groupId);
+        assertEquals(4, summary.getTotal());
+        assertEquals(2, summary.getActive());
+        assertEquals(Map.of("high", 1L, "very-high", 2L, "low", 1L), summary.getPriorities());
+    }
+
+    @Test
+    void givenNoGroup_whenImport_thenEveryRowRejectedLikeCreate() {
+        ImportResult result = importFile("todos.csv", "title\nmilk\n".getBytes(StandardCharsets.UTF_8), null);
+
+        assertEquals(0, result.getImported());
+        assertEquals(BAD_REQUEST_ID_MESSAGE, result.getErrors().get(0).getMessage());
+    }
+
+    @Test
+    void givenExportedWorkbook_whenImport_thenRoundTrip() throws Exception {
+        long source = createGroup("xlsx@gmail.com");
+        for (int i = 0; i < 10; i++) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.update("INSERT INTO todos (id, activity_group_id, title, is_active, priority, created_date, updated_date) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?)", 900_000_000L + i, source, "item " + i, i % 2 == 0, "low", now, now);
+        }
+        ByteArrayOutputStream workbook = new ByteArrayOutputStream();
+        todoListExporter.export("xlsx@gmail.com", workbook);
+        jdbcTemplate.update("DELETE FROM todos WHERE activity_group_id = ?", source);
+
+        ImportResult result = importFile("export.xlsx", workbook.toByteArray(), null);
+
+        assertEquals(10, result.getRows());
+        assertEquals(10, result.getImported());
+        assertEquals(5, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM todos WHERE activity_group_id = ? AND is_active = TRUE AND priority = 'low'", Long.class, source));
+    }
+
+    @Test
+    void givenBadFile_whenImport_thenBadRequest() {
+        ResponseEntity<ActivityGroupResponse> format = todoItemImporter.importTodoItems(
+                new MockMultipartFile("file", "todos.txt", null, "title".getBytes(StandardCharsets.UTF_8)), 1L);
+        ResponseEntity<ActivityGroupResponse> header = todoItemImporter.importTodoItems(
+                new MockMultipartFile("file", "todos.csv", null, "name\nmilk".getBytes(StandardCharsets.UTF_8)), 1L);
+        ResponseEntity<ActivityGroupResponse> corrupt = todoItemImporter.importTodoItems(
+                new MockMultipartFile("file", "todos.xlsx", null, "not a zip".getBytes(StandardCharsets.UTF_8)), 1L);
+
+        assertEquals(BAD_REQUEST_FORMAT_MESSAGE, format.getBody().getMessage());
+        assertEquals(BAD_REQUEST_HEADER_MESSAGE, header.getBody().getMessage());
+        assertEquals(HttpStatus.BAD_REQUEST, corrupt.getStatusCode());
+    }
+
+    private static ImportResult importFile(String name, byte[] content, Long groupId) {
+        ResponseEntity<ActivityGroupResponse> response = todoItemImporter.importTodoItems(
+                new MockMultipartFile("file", name, null, content), groupId);
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        return (ImportResult) response.getBody().getData();
+    }
+
+    private static long createGroup(String email) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO activities (title, created_date, updated_date, email) VALUES (?, ?, ?, ?)",
+                "import", now, now, email);
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM activities", Long.class);
+    }
+}
@@ -0,0 +1,142 @@
+package services;
+
+import activity.Application;
+import activity.dto.TodoItemFilter;
+import activity.repository.ActivityRepositoryImpl;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Applies the Flyway migrations to a real MySQL schema and checks that the
+ * filtered To-Do Item queries read one of the composite indexes in order,
+ * without a full scan or a filesort. The schema should be empty or only used
+ * by this test, e.g.
+ * mvn -P mysql test -Dmysql.url=jdbc:mysql://localhost:3306/todo_plans -Dmysql.username=root -Dmysql.password=secret
+ */
+@Tag("mysql")
+public class TodoItemPlanTest {
+
+    private static final String URL = System.getProperty("mysql.url");
+    private static final int GROUPS = 200;
+    private static final int ITEMS_PER_GROUP = 100;
+    private static final long SEED_ITEM_ID = 900_000_000L;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private static ConfigurableApplicationContext context;
+    private static JdbcTemplate jdbcTemplate;
+    private static long groupId;
+
+    @BeforeAll
+    static void start() {
+        assumeTrue(URL != null, "mysql.url is not set");
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + URL,
+                        "--spring.datasource.username=" + System.getProperty("mysql.username", "root"),
+                        "--spring.datasource.password=" + System.getProperty("mysql.password", ""),
+                        "--spring.jpa.hibernate.ddl-auto=none",
+                        "--spring.jpa.show-sql=false");
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        seed();
+    }
+
+    @AfterAll
+    static void stop() {
+        if (context != null) {
+            jdbcTemplate.update("DELETE FROM todos WHERE id >= ?", SEED_ITEM_ID);
+            jdbcTemplate.update("DELETE FROM activities WHERE email = ?", "plan@gmail.com");
+            context.close();
+        }
+    }
+
+    @Test
+    void givenStatusPriorityAndRange_whenExplained_thenCompositeIndexWithoutFilesort() {
+        assertIndexRead(TodoItemFilter.builder().activityGroupId(groupId).isActive(true).priority("high")
+                .updatedFrom(START).sortColumn(ActivityRepositoryImpl.UPDATED_DATE_COLUMN).descending(true).limit(10).build(),
+                "idx_todos_group_active_priority_updated");
+    }
+
+    @Test
+    void givenStatusAndPriority_whenExplained_thenCompositeIndexWithoutFilesort() {
+        assertIndexRead(TodoItemFilter.builder().activityGroupId(groupId).isActive(false).priority("low")
+                .sortColumn(ActivityRepositoryImpl.UPDATED_DATE_COLUMN).limit(10).build(),
+                "idx_todos_group_active_priority_updated");
+    }
+
+    @Test
+    void givenStatusOnly_whenExplained_thenStatusIndexWithoutFilesort() {
+        assertIndexRead(TodoItemFilter.builder().activityGroupId(groupId).isActive(true)
+                .sortColumn(ActivityRepositoryImpl.UPDATED_DATE_COLUMN).descending(true).limit(10).build(),
+                "idx_todos_group_active_updated");
+    }
+
+    @Test
+    void givenPriorityAndRange_whenExplained_thenPriorityIndexWithoutFilesort() {
+        assertIndexRead(TodoItemFilter.builder().activityGroupId(groupId).priority("medium")
+                .updatedFrom(START).sortColumn(ActivityRepositoryImpl.UPDATED_DATE_COLUMN).limit(10).build(),
+                "idx_todos_group_priority_updated");
+    }
+
+    @Test
+    void givenGroupAndRange_whenExplained_thenGroupIndexWithoutFilesort() {
+        assertIndexRead(TodoItemFilter.builder().activityGroupId(groupId).updatedTo(START)
+                .sortColumn(ActivityRepositoryImpl.UPDATED_DATE_COLUMN).descending(true).limit(10).build(),
+                "idx_todos_group_updated");
+    }
+
+    private static void assertIndexRead(TodoItemFilter filter, String index) {
+        Map<String, Object> parameters = new HashMap<>();
+        String sql = ActivityRepositoryImpl.sql(filter, parameters);
+        List<Map<String, Object>> plan = new NamedParameterJdbcTemplate(jdbcTemplate).queryForList("EXPLAIN " + sql, parameters);
+
+        assertEquals(1, plan.size(), plan.toString());
+        Map<String, Object> row = plan.get(0);
+        assertEquals(index, row.get("key"), plan.toString());
+        assertNotEquals("ALL", row.get("type"), plan.toString());
+        String extra = String.valueOf(row.get("Extra"));
+        assertEquals(false, extra.contains("Using filesort"), plan.toString());
+    }
+
+    private static void seed() {
+        Timestamp now = Timestamp.valueOf(START);
+        List<Object[]> groupRows = new ArrayList<>();
+        for (int i = 0; i < GROUPS; i++) {
+            groupRows.add(new Object[]{"plan " + i, now, now, "plan@gmail.com"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO activities (title, created_date, updated_date, email) VALUES (?, ?, ?, ?)", groupRows);
+        List<Long> groupIds = jdbcTemplate.queryForList("SELECT id FROM activities WHERE email = ? ORDER BY id", Long.class, "plan@gmail.com");
+        groupId = groupIds.get(0);
+
+        String[] priorities = {"very-high", "high", "medium", "low", "very-low"};
+        List<Object[]> rows = new ArrayList<>();
+        long itemId = SEED_ITEM_ID;
+        for (long group : groupIds) {
+            for (int i = 0; i < ITEMS_PER_GROUP; i++) {
+                rows.add(new Object[]{itemId++, group, "item " + i, i % 2 == 0, priorities[i % priorities.length],
+                        Timestamp.valueOf(START.minusMinutes(i)), Timestamp.valueOf(START.plusMinutes(i - ITEMS_PER_GROUP / 2))});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO todos (id, activity_group_id, title, is_active, priority, created_date, updated_date) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+            rows.clear();
+        }
+        jdbcTemplate.execute("ANALYZE TABLE todos");
+    }
+}
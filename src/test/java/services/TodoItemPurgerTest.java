@@ -0,0 +1,179 @@
+package services;
+
+import activity.Application;
+import activity.dto.ActivityGroupResponse;
+import activity.dto.GeneralRequest;
+import activity.entity.ActivityGroup;
+import activity.entity.ActivityGroupTombstone;
+import activity.services.ActivityGroupService;
+import activity.services.TodoCounterService;
+import activity.services.TodoItemPurger;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static activity.config.CacheConfig.TODO_ITEMS_CACHE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Deletes activity Groups against an embedded database and checks that
+ * their To-Do Items are left to the purger and removed in batches.
+ */
+public class TodoItemPurgerTest {
+
+    private static ConfigurableApplicationContext context;
+    private static ActivityGroupService activityGroupService;
+    private static TodoItemPurger todoItemPurger;
+    private static TodoCounterService todoCounterService;
+    private static JdbcTemplate jdbcTemplate;
+    private static long nextItemId = 700_000_000L;
+
+    @BeforeAll
+    static void start() {
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:purge;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        //Only the test runs the purger
+                        "--todo.purge.interval-ms=3600000",
+                        "--todo.purge.batch-size=100",
+                        "--todo.purge.pause-ms=0");
+        activityGroupService = context.getBean(ActivityGroupService.class);
+        todoItemPurger = context.getBean(TodoItemPurger.class);
+        todoCounterService = context.getBean(TodoCounterService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @Test
+    void givenGroupWithItems_whenDeleted_thenTombstoneAndItemsPurgedInBatches() {
+        long groupId = createGroup();
+        long keptGroupId = createGroup();
+        insertItems(groupId, 250);
+        insertItems(keptGroupId, 10);
+        jdbcTemplate.update("INSERT INTO todo_counters (activity_group_id, priority, total, active) VALUES (?, 'high', 250, 250)", groupId);
+
+        ResponseEntity<ActivityGroupResponse> response = activityGroupService.deleteActivity(groupId);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(groupId, ((ActivityGroupTombstone) response.getBody().getData()).getActivityGroupId());
+        //The delete itself leaves the items alone
+        assertEquals(250, countItems(groupId));
+
+        assertEquals(200, todoItemPurger.purge(2));
+        assertEquals(50, countItems(groupId));
+        assertEquals(1, countTombstones(groupId));
+
+        assertEquals(50, todoItemPurger.purge(10));
+        assertEquals(0, countItems(groupId));
+        assertEquals(0, countTombstones(groupId));
+        assertEquals(0, todoCounterService.getSummary(groupId).getTotal());
+        assertEquals(10, countItems(keptGroupId));
+    }
+
+    @Test
+    void givenCachedItems_whenGroupPurged_thenOnlyItsItemsInvalidated() {
+        long groupId = createGroup();
+        long keptGroupId = createGroup();
+        long purgedItemId = nextItemId;
+        insertItems(groupId, 150);
+        long keptItemId = nextItemId;
+        insertItems(keptGroupId, 1);
+
+        Cache cache = context.getBean(CacheManager.class).getCache(TODO_ITEMS_CACHE);
+        cache.put(purgedItemId, "purged");
+        cache.put(keptItemId, "kept");
+        long lastInvalidationId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM cache_invalidations", Long.class);
+
+        activityGroupService.deleteActivity(groupId);
+        assertEquals(150, todoItemPurger.purge(10));
+
+        assertNull(cache.get(purgedItemId));
+        assertNotNull(cache.get(keptItemId));
+        //One key per deleted item for the other nodes, and no clear of the whole cache
+        assertEquals(150, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cache_invalidations " +
+                "WHERE id > ? AND cache_name = ? AND cache_key BETWEEN ? AND ?", Long.class,
+                lastInvalidationId, TODO_ITEMS_CACHE, purgedItemId, purgedItemId + 149));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cache_invalidations " +
+                "WHERE id > ? AND cache_name = ? AND cache_key IS NULL", Long.class, lastInvalidationId, TODO_ITEMS_CACHE));
+    }
+
+    @Test
+    void givenScheduledJobs_whenStarted_thenPurgerDoesNotShareTheOnlySchedulerThread() {
+        ThreadPoolTaskScheduler scheduler = context.getBean(ThreadPoolTaskScheduler.class);
+
+        //The purger, the invalidation poll and purge and the idempotency purge each get a thread
+        assertEquals(4, scheduler.getScheduledThreadPoolExecutor().getCorePoolSize());
+    }
+
+    @Test
+    void givenOrphansFromEarlierDeletes_whenSwept_thenPurged() {
+        long keptGroupId = createGroup();
+        long orphanGroupId = createGroup();
+        insertItems(keptGroupId, 5);
+        insertItems(orphanGroupId, 120);
+        //How groups were deleted before the purger existed
+        jdbcTemplate.update("DELETE FROM activities WHERE id = ?", orphanGroupId);
+
+        //The migration that sweeps the orphans, the tombstone table already exists in the embedded schema
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/mysql/V10__activity_group_tombstones.sql"))
+                .execute(context.getBean(DataSource.class));
+        assertEquals(1, countTombstones(orphanGroupId));
+        assertEquals(0, countTombstones(keptGroupId));
+
+        assertTrue(todoItemPurger.purge(10) >= 120);
+        assertEquals(0, countItems(orphanGroupId));
+        assertEquals(0, countTombstones(orphanGroupId));
+        assertEquals(5, countItems(keptGroupId));
+    }
+
+    private static long createGroup() {
+        ResponseEntity<ActivityGroupResponse> response = activityGroupService.createActivity(GeneralRequest.builder()
+                .title("purge").email("purge@gmail.com").build());
+        return ((ActivityGroup) response.getBody().getData()).getId();
+    }
+
+    private static void insertItems(long groupId, int count) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{nextItemId++, groupId, "item " + i, true, "high", now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO todos (id, activity_group_id, title, is_active, priority, created_date, updated_date) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    private static long countItems(long groupId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM todos WHERE activity_group_id = ?", Long.class, groupId);
+    }
+
+    private static long countTombstones(long groupId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM activity_group_tombstones WHERE activity_group_id = ?", Long.class, groupId);
+    }
+}
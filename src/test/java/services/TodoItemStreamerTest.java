@@ -0,0 +1,59 @@
+package services;
+
+import activity.entity.Activity;
+import activity.repository.ActivityRepository;
+import activity.services.TodoItemStreamer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class TodoItemStreamerTest {
+
+    @InjectMocks
+    private TodoItemStreamer todoItemStreamer;
+
+    @Mock
+    private ActivityRepository activityRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void givenIdNull_whenStream_thenOneLinePerItem() throws Exception {
+        when(activityRepository.streamAll()).thenReturn(Stream.of(
+                Activity.builder().id(1L).title("first").build(),
+                Activity.builder().id(2L).title("second").build()));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        assertEquals(2, todoItemStreamer.stream(null, outputStream));
+        assertEquals("{\"id\":1,\"title\":\"first\"}\n{\"id\":2,\"title\":\"second\"}\n",
+                outputStream.toString(StandardCharsets.UTF_8));
+        verify(entityManager, times(2)).detach(any());
+    }
+
+    @Test
+    void givenIdNotNull_whenStream_thenStreamByActivityGroupId() throws Exception {
+        when(activityRepository.streamByActivityGroupId(1L)).thenReturn(Stream.of(Activity.builder().id(1L).build()));
+
+        assertEquals(1, todoItemStreamer.stream(1L, new ByteArrayOutputStream()));
+    }
+}
@@ -0,0 +1,83 @@
+package services;
+
+import activity.entity.Activity;
+import activity.repository.ActivityRepository;
+import activity.services.TodoCounterService;
+import activity.services.TodoItemWriteBuffer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = TodoItemWriteBuffer.class)
+@TestPropertySource(properties = {"todo.write-buffer.flush-interval-ms=100", "todo.write-buffer.flushers=1"})
+public class TodoItemWriteBufferTest {
+    @Autowired
+    private TodoItemWriteBuffer todoItemWriteBuffer;
+
+    @MockBean
+    private ActivityRepository activityRepository;
+
+    @MockBean
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private TodoCounterService todoCounterService;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Test
+    void givenConcurrentSaves_whenSave_thenWrittenInOneBatch() throws Exception {
+        when(activityRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Activity> activities = new ArrayList<>(invocation.getArgument(0));
+            activities.forEach(x -> x.setId(sequence.incrementAndGet()));
+            return activities;
+        });
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Activity>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return todoItemWriteBuffer.save(Activity.builder().title("test").build());
+            }));
+        }
+        start.countDown();
+
+        for (CompletableFuture<Activity> result : results) {
+            assertNotNull(result.get().getId());
+        }
+        verify(activityRepository, atMost(2)).saveAll(anyList());
+    }
+
+    @Test
+    void givenBatchFails_whenSave_thenRetriedOneByOne() {
+        when(activityRepository.saveAll(anyList())).thenThrow(new IllegalStateException("batch failed"));
+        when(activityRepository.save(any())).thenReturn(Activity.builder().id(1L).build());
+
+        assertEquals(1L, todoItemWriteBuffer.save(Activity.builder().title("test").build()).getId());
+    }
+}
@@ -0,0 +1,114 @@
+package services;
+
+import activity.Application;
+import activity.services.TodoListExporter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static activity.services.TodoListExporter.ACTIVITY_GROUPS_SHEET;
+import static activity.services.TodoListExporter.TODO_ITEMS_SHEET;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Exports seeded rows from an embedded database with a row window much
+ * smaller than the export and reads the workbook back.
+ */
+public class TodoListExporterTest {
+
+    private static final int ITEMS_PER_GROUP = 1000;
+
+    private static ConfigurableApplicationContext context;
+    private static TodoListExporter todoListExporter;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void start() {
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:export;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--export.xlsx.row-window=10");
+        todoListExporter = context.getBean(TodoListExporter.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        seed();
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @Test
+    void givenEmail_whenExport_thenOnlyThatEmailInOrder() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        assertEquals(2 * ITEMS_PER_GROUP, todoListExporter.export("export1@gmail.com", outputStream));
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            Sheet groups = workbook.getSheet(ACTIVITY_GROUPS_SHEET);
+            assertEquals(2, groups.getLastRowNum());
+            assertEquals("email", groups.getRow(0).getCell(2).getStringCellValue());
+            assertEquals("export1@gmail.com", groups.getRow(1).getCell(2).getStringCellValue());
+            assertEquals("group 1", groups.getRow(1).getCell(1).getStringCellValue());
+
+            Sheet items = workbook.getSheet(TODO_ITEMS_SHEET);
+            assertEquals(2 * ITEMS_PER_GROUP, items.getLastRowNum());
+            Row first = items.getRow(1);
+            assertEquals(groups.getRow(1).getCell(0).getNumericCellValue(), first.getCell(1).getNumericCellValue());
+            assertEquals("item 0", first.getCell(2).getStringCellValue());
+            assertEquals(true, first.getCell(3).getBooleanCellValue());
+            assertEquals("high", first.getCell(4).getStringCellValue());
+            assertEquals(2020, first.getCell(5).getLocalDateTimeCellValue().getYear());
+            //Items come out grouped by activity Group
+            assertEquals(groups.getRow(2).getCell(0).getNumericCellValue(),
+                    items.getRow(ITEMS_PER_GROUP + 1).getCell(1).getNumericCellValue());
+        }
+    }
+
+    @Test
+    void givenNoEmail_whenExport_thenEverything() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        assertEquals(3 * ITEMS_PER_GROUP, todoListExporter.export(null, outputStream));
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            assertEquals(3, workbook.getSheet(ACTIVITY_GROUPS_SHEET).getLastRowNum());
+        }
+    }
+
+    private static void seed() {
+        Timestamp created = Timestamp.valueOf(LocalDateTime.of(2020, 1, 1, 10, 0));
+        String[] emails = {"export1@gmail.com", "export1@gmail.com", "export2@gmail.com"};
+        List<Object[]> items = new ArrayList<>();
+        long itemId = 1;
+
+        for (int group = 0; group < emails.length; group++) {
+            jdbcTemplate.update("INSERT INTO activities (title, created_date, updated_date, email) VALUES (?, ?, ?, ?)",
+                    "group " + (group + 1), created, created, emails[group]);
+            long groupId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM activities", Long.class);
+            for (int item = 0; item < ITEMS_PER_GROUP; item++) {
+                items.add(new Object[]{itemId++, groupId, "item " + item, true, "high", created, created});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO todos (id, activity_group_id, title, is_active, priority, created_date, updated_date) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", items);
+    }
+}
@@ -0,0 +1,78 @@
+package services;
+
+import activity.Application;
+import activity.dto.GeneralRequest;
+import activity.entity.Activity;
+import activity.entity.ActivityGroup;
+import activity.services.ActivityGroupService;
+import activity.services.ActivityService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Reads an activity Group and a To-Do Item into the cache, patches them and
+ * checks the PATCH response and the next read show the new values.
+ */
+public class UpdateAfterReadTest {
+
+    private static ConfigurableApplicationContext context;
+    private static ActivityGroupService activityGroupService;
+    private static ActivityService activityService;
+
+    @BeforeAll
+    static void start() {
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:update_after_read;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false");
+        activityGroupService = context.getBean(ActivityGroupService.class);
+        activityService = context.getBean(ActivityService.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @Test
+    void givenCachedActivity_whenPatched_thenResponseHasNewTitle() {
+        long id = ((ActivityGroup) activityGroupService.createActivity(GeneralRequest.builder()
+                .title("before").email("patch@gmail.com").build()).getBody().getData()).getId();
+        ActivityGroup read = (ActivityGroup) activityGroupService.getActivity(id, false, false).getBody().getData();
+        assertEquals("before", read.getTitle());
+
+        ActivityGroup patched = (ActivityGroup) activityGroupService.updateActivity(GeneralRequest.builder().title("after").build(), id)
+                .getBody().getData();
+        assertEquals("after", patched.getTitle());
+        assertEquals("after", ((ActivityGroup) activityGroupService.getActivity(id, false, false).getBody().getData()).getTitle());
+    }
+
+    @Test
+    void givenCachedTodoItem_whenPatched_thenResponseHasNewValues() {
+        long groupId = ((ActivityGroup) activityGroupService.createActivity(GeneralRequest.builder()
+                .title("group").email("patch@gmail.com").build()).getBody().getData()).getId();
+        long id = ((Activity) activityService.createTodoItems(GeneralRequest.builder()
+                .activityGroupId(groupId).title("before").build()).getBody().getData()).getId();
+        Activity read = (Activity) activityService.getTodoItems(id).getBody().getData();
+        assertEquals("before", read.getTitle());
+
+        Activity patched = (Activity) activityService.updateTodoItems(GeneralRequest.builder().title("after").build(), id)
+                .getBody().getData();
+        assertEquals("after", patched.getTitle());
+
+        patched = (Activity) activityService.updateTodoItems(GeneralRequest.builder().isActive(Boolean.FALSE).build(), id)
+                .getBody().getData();
+        assertEquals(Boolean.FALSE, patched.getIsActive());
+        assertEquals("after", patched.getTitle());
+        assertEquals(Boolean.FALSE, ((Activity) activityService.getTodoItems(id).getBody().getData()).getIsActive());
+    }
+}
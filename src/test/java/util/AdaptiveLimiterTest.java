@@ -0,0 +1,92 @@
+package util;
+
+import activity.util.AdaptiveLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void givenFullLimiter_whenAcquire_thenRejectedUntilReleased() {
+        AdaptiveLimiter limiter = limiter(2, 1, 10);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1, limiter.getRejected());
+
+        limiter.release(FAST, false);
+        assertTrue(limiter.tryAcquire());
+        assertEquals(2, limiter.getInflight());
+    }
+
+    @Test
+    void givenSlowResponses_whenReleased_thenLimitShrinksOncePerThreshold() {
+        AdaptiveLimiter limiter = limiter(10, 2, 10);
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire();
+        }
+
+        //One stall slows every request in flight, it only counts once
+        for (int i = 0; i < 5; i++) {
+            limiter.release(SLOW, false);
+        }
+        assertEquals(9, limiter.getLimit());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        limiter.release(0, true);
+        assertEquals(8, limiter.getLimit());
+
+        for (int i = 0; i < 50; i++) {
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+            limiter.tryAcquire();
+            limiter.release(SLOW, false);
+        }
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void givenFastResponsesWhileBusy_whenReleased_thenLimitGrowsToMax() {
+        AdaptiveLimiter limiter = limiter(2, 1, 4);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire();
+            limiter.tryAcquire();
+            limiter.release(FAST, false);
+            limiter.release(FAST, false);
+        }
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void givenIdleLimiter_whenFastResponses_thenLimitKept() {
+        AdaptiveLimiter limiter = limiter(10, 1, 20);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire();
+            limiter.release(FAST, false);
+        }
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void givenInitialOutsideBounds_whenCreated_thenIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> limiter(20, 1, 10));
+    }
+
+    private AdaptiveLimiter limiter(int initialLimit, int minLimit, int maxLimit) {
+        return new AdaptiveLimiter("test", initialLimit, minLimit, maxLimit, 100, 0.9, clock::get);
+    }
+}
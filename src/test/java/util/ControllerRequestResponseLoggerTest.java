@@ -0,0 +1,107 @@
+package util;
+
+import activity.util.BodyCaptureResponseWrapper;
+import activity.util.ControllerRequestResponseLogger;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ControllerRequestResponseLoggerTest {
+
+    private static final String BODY = "{\"status\":\"Success\",\"message\":\"Success\"}";
+
+    private final ControllerRequestResponseLogger filter = new ControllerRequestResponseLogger();
+    private final Logger logger = (Logger) LoggerFactory.getLogger(ControllerRequestResponseLogger.class);
+    private final AtomicReference<HttpServletResponse> seenResponse = new AtomicReference<>();
+
+    private Level level;
+
+    @BeforeEach
+    void init() {
+        level = logger.getLevel();
+        logger.setLevel(Level.DEBUG);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "sampleRate", 1.0);
+        ReflectionTestUtils.setField(filter, "maxBodyBytes", 8);
+        ReflectionTestUtils.setField(filter, "includePaths", new String[0]);
+        ReflectionTestUtils.setField(filter, "excludePaths", new String[]{"/cache-stats"});
+    }
+
+    @AfterEach
+    void reset() {
+        logger.setLevel(level);
+    }
+
+    @Test
+    void givenCaptureDisabled_whenFilter_thenPassThrough() throws Exception {
+        ReflectionTestUtils.setField(filter, "enabled", false);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/activity-groups"), response, chain());
+
+        assertSame(response, seenResponse.get());
+        assertEquals(BODY, response.getContentAsString());
+    }
+
+    @Test
+    void givenExcludedPath_whenFilter_thenPassThrough() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/cache-stats"), response, chain());
+
+        assertSame(response, seenResponse.get());
+    }
+
+    @Test
+    void givenSampleRateZero_whenFilter_thenPassThrough() throws Exception {
+        ReflectionTestUtils.setField(filter, "sampleRate", 0.0);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/activity-groups"), response, chain());
+
+        assertSame(response, seenResponse.get());
+    }
+
+    @Test
+    void givenCaptureEnabled_whenFilter_thenBodyWrittenThroughAndCaptureBounded() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/activity-groups"), response, chain());
+
+        BodyCaptureResponseWrapper wrapper = (BodyCaptureResponseWrapper) seenResponse.get();
+        assertEquals(BODY, response.getContentAsString());
+        assertArrayEquals(BODY.substring(0, 8).getBytes(), wrapper.getCapturedBody());
+        assertEquals(BODY.length(), wrapper.getContentSize());
+        assertTrue(wrapper.isTruncated());
+    }
+
+    private MockFilterChain chain() {
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                seenResponse.set(resp);
+                resp.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                resp.getWriter().write(BODY);
+            }
+        });
+    }
+}
@@ -0,0 +1,45 @@
+package util;
+
+import activity.util.CsvReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CsvReaderTest {
+
+    @Test
+    void givenPlainRecords_whenNext_thenOneListPerLine() throws Exception {
+        CsvReader reader = new CsvReader(new StringReader("\uFEFFtitle,priority\r\nmilk,high\nbread,\n"));
+
+        assertEquals(List.of("title", "priority"), reader.next());
+        assertEquals(List.of("milk", "high"), reader.next());
+        assertEquals(List.of("bread", ""), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void givenQuotedFields_whenNext_thenCommasQuotesAndLineBreaksKept() throws Exception {
+        CsvReader reader = new CsvReader(new StringReader("\"a, b\",\"say \"\"hi\"\"\",\"two\r\nlines\"\nlast"));
+
+        assertEquals(List.of("a, b", "say \"hi\"", "two\r\nlines"), reader.next());
+        assertEquals(3, reader.getLine());
+        assertEquals(List.of("last"), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void givenUnclosedQuote_whenNext_thenIOException() {
+        CsvReader reader = new CsvReader(new StringReader("ok\n\"never closed,\nmore"));
+
+        assertThrows(IOException.class, () -> {
+            reader.next();
+            reader.next();
+        });
+    }
+}